@@ -0,0 +1,67 @@
+package edu.mtu.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.mtu.environment.Stand;
+import edu.mtu.examples.houghton.model.Harvesting;
+import edu.mtu.steppables.LandUseGeomWrapper;
+import sim.util.IntBag;
+
+/**
+ * Benchmarks for the operations performed by, or on behalf of, the parcel agents. Each benchmark covers 
+ * every parcel in the landscape so the results scale with the grid size and woody fraction.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class AgentBenchmarks {
+
+	/**
+	 * Locate the woody pixels of every parcel, the number of pixels found is returned.
+	 */
+	@Benchmark
+	public int createAgentParcel(Landscape landscape) {
+		BenchmarkModel model = landscape.getModel();
+		IntBag xPos = new IntBag();
+		IntBag yPos = new IntBag();
+		int count = 0;
+		for (LandUseGeomWrapper lu : landscape.getParcels()) {
+			xPos.clear();
+			yPos.clear();
+			model.createParcel(lu.geometry, xPos, yPos);
+			count += xPos.size();
+		}
+		return count;
+	}
+
+	/**
+	 * Get the stands that are ready for a saw timber harvest from every parcel, along with their value.
+	 */
+	@Benchmark
+	public double getHarvestValue(Landscape landscape) {
+		double value = 0.0;
+		for (BenchmarkAgent agent : landscape.getAgents()) {
+			List<Stand> stands = Harvesting.getHarvestableStands(agent, Harvesting.SawtimberDbh);
+			value += Harvesting.getHarvestValue(stands);
+		}
+		return value;
+	}
+
+	@Benchmark
+	public void projectHarvests(Landscape landscape) {
+		for (BenchmarkAgent agent : landscape.getAgents()) {
+			agent.project();
+		}
+	}
+}
@@ -0,0 +1,30 @@
+package edu.mtu.benchmarks;
+
+import edu.mtu.examples.houghton.steppables.EconomicAgent;
+import edu.mtu.simulation.ForestSim;
+import edu.mtu.steppables.LandUseGeomWrapper;
+
+/**
+ * This class exposes the parts of the economic agent that are benchmarked, the agent is never stepped.
+ */
+@SuppressWarnings("serial")
+public class BenchmarkAgent extends EconomicAgent {
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param lu The land use wrapper for the agent.
+	 * @param state The model that the agent belongs to.
+	 */
+	public BenchmarkAgent(LandUseGeomWrapper lu, ForestSim state) {
+		super(lu);
+		this.state = state;
+	}
+
+	/**
+	 * Project the value of future harvests, see EconomicAgent.projectHarvests.
+	 */
+	public void project() {
+		projectHarvests();
+	}
+}
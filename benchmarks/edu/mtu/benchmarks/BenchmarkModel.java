@@ -0,0 +1,32 @@
+package edu.mtu.benchmarks;
+
+import com.vividsolutions.jts.geom.Geometry;
+
+import edu.mtu.examples.houghton.model.HoughtonModel;
+import sim.field.geo.GeomGridField;
+import sim.util.IntBag;
+
+/**
+ * This class exposes the parts of the Houghton model that are benchmarked, the model is never started.
+ */
+@SuppressWarnings("serial")
+public class BenchmarkModel extends HoughtonModel {
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param seed The seed for the model.
+	 * @param landCover The land cover to locate the pixels of the parcels with.
+	 */
+	public BenchmarkModel(long seed, GeomGridField landCover) {
+		super(seed);
+		setCoverLayer(landCover);
+	}
+
+	/**
+	 * Get the woody pixels in the bounded geometry, see ForestSim.createAgentParcel.
+	 */
+	public void createParcel(Geometry geometry, IntBag xPos, IntBag yPos) {
+		createAgentParcel(geometry, xPos, yPos);
+	}
+}
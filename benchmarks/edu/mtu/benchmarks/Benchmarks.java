@@ -0,0 +1,39 @@
+package edu.mtu.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point for the benchmarks, accepts the standard JMH arguments (e.g., a regular expression to select 
+ * the benchmarks, or -p size=1024 to limit the parameters). Unless otherwise indicated the results are 
+ * written to benchmarks.json so they can be archived.
+ */
+public class Benchmarks {
+
+	private final static String defaultResults = "benchmarks.json";
+
+	public static void main(String[] args) {
+		try {
+			CommandLineOptions options = new CommandLineOptions(args);
+			ChainedOptionsBuilder builder = new OptionsBuilder().parent(options);
+			if (!options.getResultFormat().hasValue()) {
+				builder.resultFormat(ResultFormatType.JSON);
+			}
+			if (!options.getResult().hasValue()) {
+				builder.result(defaultResults);
+			}
+			new Runner(builder.build()).run();
+		} catch (CommandLineOptionException ex) {
+			System.err.println("Invalid arguments: " + ex.getMessage());
+			System.exit(-1);
+		} catch (RunnerException ex) {
+			System.err.println("An error occurred running the benchmarks: " + ex);
+			System.exit(-1);
+		}
+	}
+}
@@ -0,0 +1,67 @@
+package edu.mtu.benchmarks;
+
+import java.awt.Point;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.mtu.environment.Forest;
+import edu.mtu.measures.ForestMeasuresParallel;
+
+/**
+ * Benchmarks for the forest wide operations that are performed every time step.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ForestBenchmarks {
+
+	/**
+	 * Reset the forest prior to each iteration so that grow does not run the stands out to maturity.
+	 */
+	@Setup(Level.Iteration)
+	public void reset(Landscape landscape) throws InterruptedException {
+		landscape.reset();
+	}
+
+	@Benchmark
+	public void grow(Landscape landscape) throws InterruptedException {
+		Forest.getInstance().grow();
+	}
+
+	@Benchmark
+	public void updateStocking(Landscape landscape) throws InterruptedException {
+		Forest.getInstance().updateStocking();
+	}
+
+	/**
+	 * Calculate the stocking of every woody stand, the sum is returned so the work is not eliminated.
+	 */
+	@Benchmark
+	public double calculateStandStocking(Landscape landscape) {
+		Forest forest = Forest.getInstance();
+		double stocking = 0.0;
+		for (Point point : landscape.getWoodyPixels()) {
+			stocking += forest.calculateStandStocking(point.x, point.y);
+		}
+		return stocking;
+	}
+
+	@Benchmark
+	public double calculateBiomass(Landscape landscape) throws InterruptedException {
+		return ForestMeasuresParallel.calculateBiomass();
+	}
+}
@@ -0,0 +1,163 @@
+package edu.mtu.benchmarks;
+
+import java.awt.Point;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.GeometryFactory;
+
+import ec.util.MersenneTwisterFast;
+import edu.mtu.environment.Forest;
+import edu.mtu.environment.ForestState;
+import edu.mtu.environment.NlcdClassification;
+import edu.mtu.environment.ParcelIndex;
+import edu.mtu.environment.SyntheticLandscape;
+import edu.mtu.examples.houghton.model.Harvesting;
+import edu.mtu.examples.houghton.model.WesternUpEvenAgedWholeStand;
+import edu.mtu.measures.BiomassLedger;
+import edu.mtu.measures.ParcelSummaries;
+import edu.mtu.steppables.LandUseGeomWrapper;
+import sim.field.geo.GeomGridField;
+import sim.field.grid.IntGrid2D;
+import sim.util.IntBag;
+
+/**
+ * This class contains the synthetic landscape that the benchmarks are run against. The land cover and
+ * parcels are generated by SyntheticLandscape with the given fraction of woody pixels, the initial stands
+ * are generated by the Houghton growth model, and each parcel is owned by an economic agent.
+ *
+ * Note that the growth model reads the stocking guides from the data directory, so the benchmarks must be
+ * run from the same directory as the model.
+ */
+@State(Scope.Benchmark)
+public class Landscape {
+
+	// Size of the pixels, in meters
+	private final static double pixelSize = 30.0;
+
+	// Seed for the landscape so every run of a benchmark sees the same forest
+	private final static long seed = 42;
+
+	@Param({"256", "1024", "2048"})
+	public int size;
+
+	@Param({"0.25", "0.75"})
+	public double woodyFraction;
+
+	private BenchmarkModel model;
+	private BenchmarkAgent[] agents;
+	private LandUseGeomWrapper[] parcels;
+	private ForestState initial;
+	private Point[] woodyPixels;
+
+	/**
+	 * Generate the land cover, initial stands, and parcels.
+	 */
+	@Setup(Level.Trial)
+	public void setup() throws InterruptedException, IOException {
+		SyntheticLandscape generator = new SyntheticLandscape(size, size, seed);
+		generator.setCellSize(pixelSize);
+		generator.setWoodyFraction(woodyFraction);
+
+		// Generate the land cover, noting the woody pixels
+		IntGrid2D cover = generator.generateLandCover();
+		List<Point> woody = new ArrayList<Point>();
+		for (int ndx = 0; ndx < size; ndx++) {
+			for (int ndy = 0; ndy < size; ndy++) {
+				if (NlcdClassification.isWoodyBiomass(cover.field[ndx][ndy])) {
+					woody.add(new Point(ndx, ndy));
+				}
+			}
+		}
+		woodyPixels = woody.toArray(new Point[0]);
+		GeomGridField landCover = new GeomGridField(cover);
+		landCover.setPixelHeight(pixelSize);
+		landCover.setPixelWidth(pixelSize);
+		landCover.setMBR(new Envelope(0, size * pixelSize, 0, size * pixelSize));
+
+		// Generate the initial stands
+		Forest.getInstance().calculateInitialStands(landCover, new WesternUpEvenAgedWholeStand(new MersenneTwisterFast(seed)));
+		model = new BenchmarkModel(seed, landCover);
+
+		// Give each of the parcels to an agent
+		final GeometryFactory factory = new GeometryFactory();
+		final List<LandUseGeomWrapper> wrappers = new ArrayList<LandUseGeomWrapper>();
+		final List<BenchmarkAgent> working = new ArrayList<BenchmarkAgent>();
+		generator.generateParcels(new SyntheticLandscape.ParcelVisitor() {
+			public void visit(long index, int x, int y, int columns, int rows) {
+				// Inset the parcel by half a pixel so that it only covers its own pixel centers
+				double maxY = (size - y) * pixelSize;
+				Envelope envelope = new Envelope(
+						x * pixelSize + pixelSize / 2, (x + columns) * pixelSize - pixelSize / 2,
+						maxY - rows * pixelSize + pixelSize / 2, maxY - pixelSize / 2);
+				LandUseGeomWrapper lu = new LandUseGeomWrapper();
+				lu.geometry = factory.toGeometry(envelope);
+				wrappers.add(lu);
+
+				IntBag xPos = new IntBag();
+				IntBag yPos = new IntBag();
+				model.createParcel(lu.geometry, xPos, yPos);
+				if (xPos.size() == 0) {
+					return;
+				}
+				lu.setIndex(working.size());
+				BenchmarkAgent agent = new BenchmarkAgent(lu, model);
+				agent.createCoverPoints(xPos, yPos);
+				working.add(agent);
+			}
+		});
+		parcels = wrappers.toArray(new LandUseGeomWrapper[0]);
+		agents = working.toArray(new BenchmarkAgent[0]);
+
+		// Index the parcels in the same manner as ForestSim
+		Point[][] points = new Point[agents.length][];
+		for (int ndx = 0; ndx < agents.length; ndx++) {
+			points[ndx] = agents[ndx].getParcel();
+		}
+		ParcelIndex.getInstance().setThresholds(Harvesting.PulpwoodDbh, Harvesting.SawtimberDbh, Harvesting.VeneerDbh);
+		ParcelIndex.getInstance().setParcels(points, size, size);
+		ParcelIndex.getInstance().update();
+		BiomassLedger.getInstance().rebuild();
+		ParcelSummaries.getInstance().rebuild();
+
+		initial = Forest.getInstance().capture(null);
+	}
+
+	/**
+	 * Return the forest to the initial stands, used by benchmarks that alter the forest.
+	 */
+	public void reset() throws InterruptedException {
+		Forest.getInstance().restore(initial);
+		BiomassLedger.getInstance().rebuild();
+		ParcelSummaries.getInstance().rebuild();
+		ParcelIndex.getInstance().update();
+	}
+
+	/**
+	 * Get the agents that own the parcels.
+	 */
+	public BenchmarkAgent[] getAgents() { return agents; }
+
+	/**
+	 * Get the model used to locate the pixels of the parcels.
+	 */
+	public BenchmarkModel getModel() { return model; }
+
+	/**
+	 * Get the geometry of every parcel, including those without woody pixels.
+	 */
+	public LandUseGeomWrapper[] getParcels() { return parcels; }
+
+	/**
+	 * Get the coordinates of the woody pixels.
+	 */
+	public Point[] getWoodyPixels() { return woodyPixels; }
+}
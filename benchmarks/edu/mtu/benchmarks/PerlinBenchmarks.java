@@ -0,0 +1,41 @@
+package edu.mtu.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ec.util.MersenneTwisterFast;
+import edu.mtu.utilities.Perlin;
+import sim.field.grid.DoubleGrid2D;
+
+/**
+ * Benchmark for the Perlin noise used to generate the initial stands. The noise does not depend upon the 
+ * land cover, so only the grid size is varied.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PerlinBenchmarks {
+
+	@Param({"256", "1024", "2048"})
+	public int size;
+
+	private MersenneTwisterFast random = new MersenneTwisterFast(42);
+
+	@Benchmark
+	public DoubleGrid2D generate() {
+		return Perlin.generate(size, size, 8, random);
+	}
+}
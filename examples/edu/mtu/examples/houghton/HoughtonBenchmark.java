@@ -0,0 +1,14 @@
+package edu.mtu.examples.houghton;
+
+/**
+ * The Houghton model without the VIP, as run by the macro benchmark. The results are written to their own 
+ * directory so that a benchmark does not overwrite the results of the model.
+ */
+@SuppressWarnings("serial")
+public class HoughtonBenchmark extends HoughtonNoVip {
+
+	public HoughtonBenchmark(long seed) {
+		super(seed);
+		getParameters().setOutputDirectory("out/benchmark");
+	}
+}
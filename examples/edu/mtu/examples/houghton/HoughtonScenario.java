@@ -0,0 +1,51 @@
+package edu.mtu.examples.houghton;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.mtu.examples.houghton.model.HoughtonModel;
+import edu.mtu.examples.houghton.model.scorecard.HoughtonScorecard;
+import edu.mtu.examples.houghton.vip.VipFactory.VipRegime;
+import edu.mtu.simulation.ForestSim;
+import edu.mtu.simulation.ScenarioFork.Scenario;
+import edu.mtu.simulation.Scorecard;
+
+/**
+ * A VIP regime that is branched from the shared pre-policy trajectory of the Houghton model.
+ */
+public class HoughtonScenario implements Scenario {
+	
+	private String outputDirectory;
+	private VipRegime regime;
+	
+	/**
+	 * Constructor.
+	 */
+	public HoughtonScenario(VipRegime regime, String outputDirectory) {
+		this.regime = regime;
+		this.outputDirectory = outputDirectory;
+	}
+	
+	/**
+	 * Get the scenarios for each of the VIP regimes, using the same output directories as the models.
+	 */
+	public static List<Scenario> getScenarios() {
+		List<Scenario> scenarios = new ArrayList<Scenario>();
+		scenarios.add(new HoughtonScenario(VipRegime.NONE, "out/none"));
+		scenarios.add(new HoughtonScenario(VipRegime.DISCOUNT, "out/discount"));
+		scenarios.add(new HoughtonScenario(VipRegime.AGGLOMERATION, "out/agglomeration"));
+		return scenarios;
+	}
+	
+	@Override
+	public Scorecard createScorecard() {
+		return new HoughtonScorecard(outputDirectory);
+	}
+
+	@Override
+	public void apply(ForestSim state) {
+		((HoughtonModel)state).getParameters().setVipProgram(regime);
+		((HoughtonModel)state).getParameters().setOutputDirectory(outputDirectory);
+		state.setOutputDirectory(outputDirectory);
+	}
+}
@@ -0,0 +1,66 @@
+package edu.mtu.examples.houghton;
+
+import java.io.File;
+import java.io.IOException;
+
+import edu.mtu.environment.SyntheticLandscape;
+
+/**
+ * The benchmark model run on a synthetic landscape in place of the Houghton County data. The landscape is 
+ * generated once for each size and seed, and is reused by later runs.
+ */
+@SuppressWarnings("serial")
+public class HoughtonSynthetic extends HoughtonBenchmark {
+
+	private final static String directory = "data/synthetic/%1$d-%2$d";
+	private final static long landscapeSeed = 1;
+
+	private static String coverFile = null;
+	private static String parcelFile = null;
+	private static int size = 0;
+
+	public HoughtonSynthetic(long seed) {
+		super(seed);
+		getParameters().setGridWidth(size);
+		getParameters().setGridHeight(size);
+	}
+
+	@Override
+	public String getDefaultCoverFile() {
+		return coverFile;
+	}
+
+	@Override
+	public String getDefaultParcelFile() {
+		return "file:" + parcelFile;
+	}
+
+	/**
+	 * Prepare the synthetic landscape if requested by the -synthetic argument, which gives the width and height
+	 * of the landscape in pixels.
+	 *
+	 * @return True if the synthetic landscape should be used, false otherwise.
+	 */
+	public static boolean prepare(String[] args) throws IOException, InterruptedException {
+		for (int ndx = 0; ndx < args.length - 1; ndx++) {
+			if (args[ndx].equals("-synthetic")) {
+				size = Integer.parseInt(args[ndx + 1]);
+			}
+		}
+		if (size == 0) {
+			return false;
+		}
+
+		File path = new File(String.format(directory, size, landscapeSeed));
+		coverFile = new File(path, "nlcd.asc").getPath();
+		parcelFile = new File(path, "parcels.shp").getPath();
+		if (!new File(coverFile).exists() || !new File(parcelFile).exists()) {
+			System.out.println("Generating synthetic landscape in " + path);
+			path.mkdirs();
+			SyntheticLandscape landscape = new SyntheticLandscape(size, size, landscapeSeed);
+			landscape.writeLandCover(coverFile);
+			landscape.writeParcels(parcelFile);
+		}
+		return true;
+	}
+}
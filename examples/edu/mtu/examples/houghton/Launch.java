@@ -1,8 +1,13 @@
 package edu.mtu.examples.houghton;
 
+import java.io.IOException;
+
 import edu.mtu.examples.houghton.model.HoughtonModel;
+import edu.mtu.examples.houghton.model.HoughtonParameters;
 import edu.mtu.simulation.ForestSim;
 import edu.mtu.simulation.ForestSimWithUI;
+import edu.mtu.simulation.MacroBenchmark;
+import edu.mtu.simulation.ScenarioFork;
 
 public class Launch {	
 	public static void main(String[] args) {
@@ -18,6 +23,7 @@ public class Launch {
 		// We must be running simulations on the command line
 		@SuppressWarnings("rawtypes")
 		Class mode = null;
+		prepareCompression(args);
 		
 		// Parse out the arguments
 		for (int ndx = 0; ndx < args.length; ndx++) {
@@ -36,10 +42,52 @@ public class Launch {
 				System.out.println("Starting model with agglomeration VIP.");
 				mode = HoughtonAgglomeration.class;
 				break;
+			case "--fork":
+				System.out.println("Starting models for all VIPs from a shared pre-policy trajectory.");
+				ScenarioFork.load(HoughtonNoVip.class, HoughtonScenario.getScenarios(), args);
+				return;
+			case "--benchmark":
+				System.out.println("Starting macro benchmark with no VIP.");
+				MacroBenchmark.load(prepareSynthetic(args) ? HoughtonSynthetic.class : HoughtonBenchmark.class, args);
+				return;
 			}
 		}
 		
 		// Execute the model
 		ForestSim.load(mode, args);
 	}
+	
+	/**
+	 * Apply the gzip level for the output given by the -compression argument, if one was provided.
+	 */
+	private static void prepareCompression(String[] args) {
+		for (int ndx = 0; ndx < args.length - 1; ndx++) {
+			if (!args[ndx].equals("-compression")) {
+				continue;
+			}
+			int level = Integer.parseInt(args[ndx + 1]);
+			if (level < 0 || level > 9) {
+				System.err.println("The compression level must be between 0 and 9, got " + level);
+				System.exit(-1);
+			}
+			System.out.println("Compressing output at gzip level " + level + ".");
+			HoughtonParameters.setDefaultCompressionLevel(level);
+		}
+	}
+	
+	/**
+	 * Prepare the synthetic landscape, if one was requested.
+	 */
+	private static boolean prepareSynthetic(String[] args) {
+		try {
+			return HoughtonSynthetic.prepare(args);
+		} catch (IOException ex) {
+			System.err.println("Unhandled IOException: " + ex.toString());
+			System.exit(-1);
+		} catch (InterruptedException ex) {
+			System.err.println("Thread interrupted while generating the landscape: " + ex);
+			System.exit(-1);
+		}
+		return false;
+	}
 }
@@ -0,0 +1,100 @@
+package edu.mtu.examples.houghton.model;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+import edu.mtu.environment.StockingCondition;
+import edu.mtu.examples.houghton.species.WesternUPSpecies;
+import edu.mtu.utilities.Precision;
+
+/**
+ * This class memoizes the volume of a single stand by species and quantized DBH, since the height 
+ * estimate, rounding, and log rule only need to be evaluated once for a given DBH. The DBH is quantized
+ * down and the bid per MBF is always determined by the actual DBH, so a stand is never valued above a 
+ * threshold that it has not reached.
+ * 
+ * Parcels can also be valued in bulk from a histogram of their stands, in which case each DBH bin is
+ * valued at its lower edge for the same reason.
+ * 
+ * Note that the cache is not synchronized and is intended to be used from the agent step.
+ */
+public class HarvestValueCache {
+	
+	/**
+	 * The DBH quantum used for the cache keys, in cm.
+	 */
+	public final static double Quantum = 0.01;
+	
+	private static HarvestValueCache instance = new HarvestValueCache();
+	
+	// Sparse array of stand volumes, in MBF, indexed by quantized DBH and keyed by species name
+	private HashMap<String, double[]> values = new HashMap<String, double[]>();
+	
+	/**
+	 * Constructor.
+	 */
+	private HarvestValueCache() { }
+	
+	/**
+	 * Get an instance of the cache.
+	 */
+	public static HarvestValueCache getInstance() {
+		return instance;
+	}
+	
+	/**
+	 * Get the bid for the histogram of stands provided, only fully stocked stands whose DBH bin has 
+	 * reached the value provided are included. Each bin is valued at its lower edge, so stands in a bin
+	 * that straddles the DBH or a price threshold are not valued above it.
+	 * 
+	 * @param histogram The histogram of the stands in the parcel.
+	 * @param dbh The minimum DBH to harvest at, in cm.
+	 * @return The bid for the stands, rounded to two decimals.
+	 */
+	public double getHarvestValue(StandHistogram histogram, double dbh) {
+		double value = 0.0;
+		for (int ndx = 0; ndx < histogram.size(); ndx++) {
+			if (histogram.getStocking(ndx) < StockingCondition.Full.getValue()) {
+				continue;
+			}
+			double binDbh = YieldTable.getBinDbh(histogram.getBin(ndx));
+			if (binDbh < dbh) {
+				continue;
+			}
+			value += histogram.getCount(ndx) * getStandValue(histogram.getSpecies(ndx), binDbh);
+		}
+		return Precision.round(value, 2);
+	}
+	
+	/**
+	 * Get the bid for a single stand of the given species and DBH.
+	 * 
+	 * @param species The dominate species of the stand.
+	 * @param dbh The arithmetic mean DBH of the stand, in cm.
+	 * @return The unrounded bid for the stand.
+	 */
+	public double getStandValue(WesternUPSpecies species, double dbh) {
+		double bid = Harvesting.getStandBid(species, dbh);
+		if (bid == 0) {
+			return 0.0;
+		}
+		
+		double[] cache = values.get(species.getName());
+		if (cache == null) {
+			cache = new double[(int)Math.floor(species.getMaximumDbh() / Quantum) + 1];
+			Arrays.fill(cache, Double.NaN);
+			values.put(species.getName(), cache);
+		}
+		
+		// Fall back to the calculation if the DBH is outside of the expected range 
+		int key = (int)Math.floor(dbh / Quantum);
+		if (key < 0 || key >= cache.length) {
+			return Harvesting.getStandVolume(species, dbh) * bid;
+		}
+		
+		if (Double.isNaN(cache[key])) {
+			cache[key] = Harvesting.getStandVolume(species, key * Quantum);
+		}
+		return cache[key] * bid;
+	}
+}
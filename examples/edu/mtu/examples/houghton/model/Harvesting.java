@@ -5,10 +5,12 @@ import java.util.ArrayList;
 import java.util.List;
 
 import edu.mtu.environment.Forest;
+import edu.mtu.environment.ParcelIndex;
 import edu.mtu.environment.Stand;
 import edu.mtu.environment.StockingCondition;
 import edu.mtu.examples.houghton.species.WesternUPSpecies;
 import edu.mtu.measures.ForestMeasures;
+import edu.mtu.steppables.ParcelAgent;
 import edu.mtu.utilities.Precision;
 
 public class Harvesting {
@@ -18,6 +20,26 @@ public class Harvesting {
 	public static double SawtimberDbh = 35.56;		// cm
 	public static double VeneerDbh = 40.64;			// cm
 						
+	/**
+	 * Get the harvestable stands for the agent's parcel using the parcel index, these are defined as those
+	 * whose DBH matches the value provided and are fully stocked.
+	 */
+	public static List<Stand> getHarvestableStands(ParcelAgent agent, double dbh) {
+		Point[] points = ParcelIndex.getInstance().getHarvestableStands(agent.getGeometry().getIndex(), dbh);
+		List<Stand> harvestable = new ArrayList<Stand>(points.length);
+		for (Point point : points) {
+			harvestable.add(Forest.getInstance().getStand(point));
+		}
+		return harvestable;
+	}
+	
+	/**
+	 * Get the number of harvestable stands for the agent's parcel using the parcel index.
+	 */
+	public static int getHarvestableCount(ParcelAgent agent, double dbh) {
+		return ParcelIndex.getInstance().getHarvestableCount(agent.getGeometry().getIndex(), dbh);
+	}
+	
 	/**
 	 * Get the harvestable stands, these are defined as those whose DBH matches the value provided and are fully stocked.
 	 */
@@ -55,39 +77,67 @@ public class Harvesting {
 		return biomass;
 	}
 	
+	/**
+	 * Get the bid for the stands provided, the per-stand bids are memoized by the HarvestValueCache.
+	 */
 	public static double getHarvestValue(List<Stand> stands) {
 		double value = 0.0;
 		
+		HarvestValueCache cache = HarvestValueCache.getInstance();
 		for (Stand stand : stands) {
-			// Get the height of the tree
-			double height = stand.dominateSpecies.getHeight(stand.arithmeticMeanDiameter);
-			
-			// Convert DBH and height to imperial units and round
-			double dbh = Precision.round(stand.arithmeticMeanDiameter * 0.39, 2);
-			height = Precision.round(height * 3.28084, 2);
-			
-			// Estimate the number of board feet using Scribner Decimal C log rule
-			double boardFeet = (0.79 * Math.pow(dbh, 2) - 2 * dbh - 4) * (height / 16);
-			
-			// Convert to thousands of board feet for the bid
-			double mbf = boardFeet / 1000;
-			
-			// Update the bid
-			value += (mbf * getStandBid(stand));
+			value += cache.getStandValue((WesternUPSpecies)stand.dominateSpecies, stand.arithmeticMeanDiameter);
 		}
 		
 		// Round the value off and return
 		return Precision.round(value, 2);
 	}
-		
+	
+	/**
+	 * Get the bid for a single stand of the given species and DBH.
+	 * 
+	 * @param species The dominate species of the stand.
+	 * @param dbh The arithmetic mean DBH of the stand, in cm.
+	 * @return The unrounded bid for the stand.
+	 */
+	public static double getStandValue(WesternUPSpecies species, double dbh) {
+		return getStandVolume(species, dbh) * getStandBid(species, dbh);
+	}
+	
 	/**
+	 * Get the volume of a single stand of the given species and DBH.
 	 * 
-	 * @param stand
-	 * @return
+	 * @param species The dominate species of the stand.
+	 * @param dbh The arithmetic mean DBH of the stand, in cm.
+	 * @return The volume of the stand, in thousands of board feet (MBF).
+	 */
+	public static double getStandVolume(WesternUPSpecies species, double dbh) {
+		// Get the height of the tree
+		double height = species.getHeight(dbh);
+		
+		// Convert DBH and height to imperial units and round
+		double imperial = Precision.round(dbh * 0.39, 2);
+		height = Precision.round(height * 3.28084, 2);
+		
+		// Estimate the number of board feet using Scribner Decimal C log rule
+		double boardFeet = (0.79 * Math.pow(imperial, 2) - 2 * imperial - 4) * (height / 16);
+		
+		// Convert to thousands of board feet for the bid
+		return boardFeet / 1000;
+	}
+		
+	/**
+	 * Get the bid per MBF for the given stand.
 	 */
 	public static double getStandBid(Stand stand) {
-		if (stand.arithmeticMeanDiameter >= SawtimberDbh) {
-			return ((WesternUPSpecies)stand.dominateSpecies).getSawtimberValue();
+		return getStandBid((WesternUPSpecies)stand.dominateSpecies, stand.arithmeticMeanDiameter);
+	}
+	
+	/**
+	 * Get the bid per MBF for a stand of the given species and DBH.
+	 */
+	public static double getStandBid(WesternUPSpecies species, double dbh) {
+		if (dbh >= SawtimberDbh) {
+			return species.getSawtimberValue();
 		}
 
 		// Only bidding on saw timber
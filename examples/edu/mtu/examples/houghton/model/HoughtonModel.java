@@ -1,9 +1,15 @@
 package edu.mtu.examples.houghton.model;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
 import org.javatuples.Pair;
 
 import ec.util.MersenneTwisterFast;
 import edu.mtu.environment.GrowthModel;
+import edu.mtu.environment.InitialStandCache;
+import edu.mtu.environment.ParcelIndex;
 import edu.mtu.examples.houghton.model.scorecard.HoughtonScorecard;
 import edu.mtu.examples.houghton.steppables.EconomicAgent;
 import edu.mtu.examples.houghton.steppables.EcosystemsAgent;
@@ -27,16 +33,24 @@ public class HoughtonModel extends ForestSim {
 		super(seed);
 	}
 
-	private HoughtonScorecard scorecard = null;
+	private transient HoughtonScorecard scorecard = null;
 	private HoughtonParameters parameters = null;
 		
 	@Override
 	public GrowthModel getGrowthModel() {
-		return new WesternUpEvenAgedWholeStand(getRandom());
+		WesternUpEvenAgedWholeStand model = new WesternUpEvenAgedWholeStand(getRandom());
+		String directory = getParameters().getStandCacheDirectory();
+		if (directory != null && !directory.isEmpty()) {
+			model.setCache(new InitialStandCache(directory));
+		}
+		return model;
 	}
 
 	@Override
 	public void initialize() {
+		// Index the parcels by the standard harvest thresholds
+		ParcelIndex.getInstance().setThresholds(Harvesting.PulpwoodDbh, Harvesting.SawtimberDbh, Harvesting.VeneerDbh);
+		
 		VipBase vip = VipFactory.getInstance().getVip();
 		if (vip != null) {
 			vip.reset();
@@ -131,6 +145,18 @@ public class HoughtonModel extends ForestSim {
 		return agent;
 	}
 
+	@Override
+	protected void readSingletons(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		super.readSingletons(in);
+		VipFactory.setInstance((VipFactory)in.readObject());
+	}
+	
+	@Override
+	protected void writeSingletons(ObjectOutputStream out) throws IOException {
+		super.writeSingletons(out);
+		out.writeObject(VipFactory.getInstance());
+	}
+
 	@Override
 	public boolean useAggregateHarvester() {
 		return true;
@@ -25,6 +25,9 @@ public class HoughtonParameters extends ParameterBase {
 	 * Assessed property value per acre.
 	 */
 	public final static double PropertyValue = 1000.0;
+	
+	// Gzip level that new parameters use for output, set from the command line
+	private static int defaultCompressionLevel = 0;
 
 	private int loggingCapacity = 0;
 	private int vipCoolDown = 0;
@@ -36,6 +39,13 @@ public class HoughtonParameters extends ParameterBase {
 	private Pair<Double, Double> nipfoWth = Pair.with(0.0, 0.0);
 	private String outputDirectory = "out";
 	private VipRegime vip;
+	
+	/**
+	 * Constructor.
+	 */
+	public HoughtonParameters() {
+		setCompressionLevel(defaultCompressionLevel);
+	}
 			
 	/**
 	 * Get the odds that an ecosystems NIPFO will harvest.
@@ -100,6 +110,13 @@ public class HoughtonParameters extends ParameterBase {
 		return vip;
 	}
 
+	/**
+	 * Set the gzip level that parameters created after this call use for output, zero for uncompressed.
+	 */
+	public static void setDefaultCompressionLevel(int value) {
+		defaultCompressionLevel = value;
+	}
+	
 	/**
 	 * Set the mean and SD for the economic NVP discount rate.
 	 */
@@ -0,0 +1,110 @@
+package edu.mtu.examples.houghton.model;
+
+import java.awt.Point;
+import java.util.HashMap;
+import java.util.Map.Entry;
+
+import edu.mtu.environment.Forest;
+import edu.mtu.environment.StockingCondition;
+import edu.mtu.examples.houghton.species.WesternUPSpecies;
+import sim.field.grid.IntGrid2D;
+
+/**
+ * This class summarizes the stands in a parcel as counts of stands by species, stocking class, and 
+ * DBH bin. Only the non-empty entries are retained so the histogram can be scanned quickly.
+ */
+public class StandHistogram {
+	
+	private final static int StockingClasses = StockingCondition.values().length;
+	
+	private WesternUPSpecies[] species;
+	private int[] bins;
+	private int[] stocking;
+	private int[] counts;
+	
+	/**
+	 * Constructor for factory method.
+	 */
+	private StandHistogram(int size) {
+		species = new WesternUPSpecies[size];
+		bins = new int[size];
+		stocking = new int[size];
+		counts = new int[size];
+	}
+	
+	/**
+	 * Create a histogram of the current state of the stands in the parcel.
+	 * 
+	 * @param parcel The points that make up the parcel.
+	 * @return The histogram for the parcel.
+	 */
+	public static StandHistogram create(Point[] parcel) {
+		Forest forest = Forest.getInstance();
+		IntGrid2D landCover = (IntGrid2D)forest.getLandCover().getGrid();
+		
+		// Count the stands, keyed by species name since the growth model may share species between NLCD codes
+		HashMap<String, int[][]> working = new HashMap<String, int[][]>();
+		HashMap<String, WesternUPSpecies> lookup = new HashMap<String, WesternUPSpecies>();
+		int size = 0;
+		for (Point point : parcel) {
+			WesternUPSpecies reference = (WesternUPSpecies)forest.getGrowthModel().getSpecies(landCover.get(point.x, point.y));
+			int[][] histogram = working.get(reference.getName());
+			if (histogram == null) {
+				histogram = new int[StockingClasses][YieldTable.getBin(reference.getMaximumDbh()) + 1];
+				working.put(reference.getName(), histogram);
+				lookup.put(reference.getName(), reference);
+			}
+			int bin = YieldTable.getBin(forest.getStandDbh(point));
+			int value = forest.getStandStocking(point);
+			if (histogram[value][bin]++ == 0) {
+				size++;
+			}
+		}
+		
+		// Compact the non-empty entries
+		StandHistogram result = new StandHistogram(size);
+		int ndx = 0;
+		for (Entry<String, int[][]> entry : working.entrySet()) {
+			int[][] histogram = entry.getValue();
+			for (int value = 0; value < histogram.length; value++) {
+				for (int bin = 0; bin < histogram[value].length; bin++) {
+					if (histogram[value][bin] == 0) {
+						continue;
+					}
+					result.species[ndx] = lookup.get(entry.getKey());
+					result.stocking[ndx] = value;
+					result.bins[ndx] = bin;
+					result.counts[ndx] = histogram[value][bin];
+					ndx++;
+				}
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Get the DBH bin of the entry.
+	 */
+	public int getBin(int ndx) { return bins[ndx]; }
+	
+	/**
+	 * Get the number of stands in the entry.
+	 */
+	public int getCount(int ndx) { return counts[ndx]; }
+	
+	/**
+	 * Get the species of the entry.
+	 */
+	public WesternUPSpecies getSpecies(int ndx) { return species[ndx]; }
+	
+	/**
+	 * Get the stocking value of the entry.
+	 */
+	public int getStocking(int ndx) { return stocking[ndx]; }
+	
+	/**
+	 * Get the number of non-empty entries in the histogram.
+	 */
+	public int size() { return counts.length; }
+
+}
@@ -7,6 +7,11 @@ import java.io.Reader;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVRecord;
@@ -14,6 +19,7 @@ import org.apache.commons.csv.CSVRecord;
 import ec.util.MersenneTwisterFast;
 import edu.mtu.environment.Forest;
 import edu.mtu.environment.GrowthModel;
+import edu.mtu.environment.InitialStandCache;
 import edu.mtu.environment.NlcdClassification;
 import edu.mtu.environment.Species;
 import edu.mtu.environment.Stand;
@@ -42,6 +48,7 @@ import sim.util.distribution.Normal;
  * Kershaw et al. 2008, http://www.nrs.fs.fed.us/pubs/gtr/gtr-p-24%20papers/39kershaw-p-24.pdf
 
  */
+@SuppressWarnings("serial")
 public class WesternUpEvenAgedWholeStand implements GrowthModel {
 	// The set of reference plants to use for the growth patterns, use a sparce array for this
 	private final static WesternUPSpecies[] growthPatterns;
@@ -53,11 +60,20 @@ public class WesternUpEvenAgedWholeStand implements GrowthModel {
 		growthPatterns[NlcdClassification.MixedForest.getValue()] = new AcerRebrum();		// Based upon DNR readings
 	}
 	
+	// Size of the tiles that the initial stands are derived in, each tile has its own random stream
+	private final static int tileSize = 64;
+	
+	private final static int threadCount = Runtime.getRuntime().availableProcessors();
+	private final static ExecutorService service = Executors.newFixedThreadPool(threadCount);
+	
 	// The set of reference stocking guides for the growth patterns
 	private HashMap<String, double[][]> stockingGuides = null;
 	
 	private MersenneTwisterFast random;
 	
+	// Optional cache of the initial stands, not part of a checkpoint
+	private transient InitialStandCache cache = null;
+	
 	/**
 	 * Constructor.
 	 */
@@ -74,30 +90,108 @@ public class WesternUpEvenAgedWholeStand implements GrowthModel {
 		key = new PinusStrobus();
 		stockingGuides.put(key.getName(), readStockingGuide(key.getDataFile(), multiplier));
 		
+		// Check the cache for the stands, the guides are included in the key in a fixed order
+		String cacheKey = null;
+		if (cache != null) {
+			cacheKey = cache.getKey(random, stockingGuides.get(new AcerRebrum().getName()), stockingGuides.get(key.getName()));
+			try {
+				if (cache.load(cacheKey, random)) {
+					clipLandCover();
+					return;
+				}
+			} catch (IOException ex) {
+				System.err.println("WARNING: unable to read the initial stands from the cache, " + ex);
+			}
+		}
+		
 		// Note the height and width of the grid
 		int height = Forest.getInstance().getMapHeight();
 		int width = Forest.getInstance().getMapWidth();
 		
 		// Create a grid with Perlin noise that will act the base of our landscape
-		DoubleGrid2D grid = Perlin.generate(height, width, 8, random);
-		IntGrid2D treeCount = new IntGrid2D(width, height);
-		IntGrid2D standAge = new IntGrid2D(width, height);
+		final DoubleGrid2D grid = Perlin.generate(height, width, 8, random);
+		final IntGrid2D treeCount = new IntGrid2D(width, height);
+		final IntGrid2D standAge = new IntGrid2D(width, height);
 		GeomGridField landCover = getLandCover();
+		final IntGrid2D cover = (IntGrid2D)landCover.getGrid();
+		
+		// Derive the stands in parallel, each tile has its own random stream derived from the shared one 
+		// so the stands do not depend upon the number of threads
+		final long seed = random.nextLong();
+		final int tilesHigh = (height + tileSize - 1) / tileSize;
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+		for (int ndx = 0; ndx < width; ndx += tileSize) {
+			final int startX = ndx;
+			tasks.add(new Callable<Void>() {
+				public Void call() {
+					for (int tile = 0; tile < tilesHigh; tile++) {
+						int index = (startX / tileSize) * tilesHigh + tile;
+						MersenneTwisterFast generator = new MersenneTwisterFast(new int[] { (int)(seed >>> 32), (int)seed, index });
+						deriveStands(grid, cover, treeCount, standAge, startX, tile * tileSize, generator);
+					}
+					return null;
+				}
+			});
+		}
+		try {
+			for (Future<Void> future : service.invokeAll(tasks)) {
+				future.get();
+			}
+		} catch (InterruptedException | ExecutionException ex) {
+			System.err.println("An error occurred generating the initial stands: " + ex);
+			System.exit(-1);
+		}
 				
+		// Finish setting up the geometric grids
+		GeomGridField standDiameter = new GeomGridField(grid);
+		standDiameter.setPixelHeight(landCover.getPixelHeight());
+		standDiameter.setPixelWidth(landCover.getPixelWidth());
+		standDiameter.setMBR(landCover.getMBR());
+				
+		// Pass the updates along to the forest
+		Forest.getInstance().setStandAgeMap(standAge);
+		Forest.getInstance().setTreeCountMap(treeCount);
+		Forest.getInstance().setStandDiameterMap(standDiameter);
+		
+		// Save the stands for the next run with these inputs
+		if (cache != null) {
+			try {
+				cache.save(cacheKey, random);
+			} catch (IOException ex) {
+				System.err.println("WARNING: unable to write the initial stands to the cache, " + ex);
+			}
+		}
+	}
+	
+	/**
+	 * Derive the initial stands from the Perlin noise for one tile of the grid.
+	 * 
+	 * @param grid The Perlin noise, which is scaled to the DBH in place.
+	 * @param cover The NLCD land cover, which is clipped to woody biomass in place.
+	 * @param treeCount The grid to place the number of trees in.
+	 * @param standAge The grid to place the stand age in.
+	 * @param startX The first column of the tile.
+	 * @param startY The first row of the tile.
+	 * @param generator The random number generator for the tile.
+	 */
+	private void deriveStands(DoubleGrid2D grid, IntGrid2D cover, IntGrid2D treeCount, IntGrid2D standAge, int startX, int startY, MersenneTwisterFast generator) {
+		int endX = Math.min(startX + tileSize, grid.getWidth());
+		int endY = Math.min(startY + tileSize, grid.getHeight());
+		
 		// Match the grid the the NLCD data and scale the fields to the maximum diameter at breast
 		// height (DBH) in the process. This will act as the basis for the height estimation. Also,
 		// note that while the NLCD says that the stands should be at least five meters in height, 
 		// we allow the variability since harvests may have occurred.
-		for (int ndx = 0; ndx < width; ndx++) {
-			for (int ndy = 0; ndy < height; ndy++) {
-				int nlcd = ((IntGrid2D)landCover.getGrid()).get(ndx, ndy);
+		for (int ndx = startX; ndx < endX; ndx++) {
+			for (int ndy = startY; ndy < endY; ndy++) {
+				int nlcd = cover.get(ndx, ndy);
 				
 				// If this is not woody biomass, clear the pixel and move on
 				if (!NlcdClassification.isWoodyBiomass(nlcd)) {
 					grid.set(ndx, ndy, 0.0);
 					
 					// Since we don't care about the grid value, clip it
-					((IntGrid2D)landCover.getGrid()).set(ndx, ndy, 0);
+					cover.set(ndx, ndy, 0);
 					
 					continue;
 				}
@@ -108,25 +202,28 @@ public class WesternUpEvenAgedWholeStand implements GrowthModel {
 				grid.set(ndx, ndy, dbh);
 				
 				// Use the DBH to determine the number of trees in the pixel
-				int count = calculateTargetStocking(reference, dbh);
+				int count = calculateTargetStocking(reference, dbh, generator);
 				treeCount.set(ndx, ndy, count);
 				
 				// Calculate the expected average age of the stands, as a loose estimation, 
 				// assume that the average age is based upon growth rate
 				standAge.set(ndx, ndy, (int)(dbh / reference.getDbhGrowth()));
- 			}
+			}
+		}
+	}
+	
+	/**
+	 * Clip the land cover to woody biomass, as is done when the initial stands are generated.
+	 */
+	private void clipLandCover() {
+		IntGrid2D grid = (IntGrid2D)getLandCover().getGrid();
+		for (int ndx = 0; ndx < grid.getWidth(); ndx++) {
+			for (int ndy = 0; ndy < grid.getHeight(); ndy++) {
+				if (!NlcdClassification.isWoodyBiomass(grid.get(ndx, ndy))) {
+					grid.set(ndx, ndy, 0);
+				}
+			}
 		}
-				
-		// Finish setting up the geometric grids
-		GeomGridField standDiameter = new GeomGridField(grid);
-		standDiameter.setPixelHeight(landCover.getPixelHeight());
-		standDiameter.setPixelWidth(landCover.getPixelWidth());
-		standDiameter.setMBR(landCover.getMBR());
-				
-		// Pass the updates along to the forest
-		Forest.getInstance().setStandAgeMap(standAge);
-		Forest.getInstance().setTreeCountMap(treeCount);
-		Forest.getInstance().setStandDiameterMap(standDiameter);
 	}
 	
 	/**
@@ -137,6 +234,18 @@ public class WesternUpEvenAgedWholeStand implements GrowthModel {
 	 * @return The number of trees for the stand.
 	 */
 	public int calculateTargetStocking(WesternUPSpecies species, double dbh) {
+		return calculateTargetStocking(species, dbh, random);
+	}
+	
+	/**
+	 * Determine the number of trees that a given stand should be seeded with.
+	 * 
+	 * @param species The species to reference.
+	 * @param dbh Mean DBH in cm for the stand.
+	 * @param generator The random number generator to use for the skew.
+	 * @return The number of trees for the stand.
+	 */
+	public int calculateTargetStocking(WesternUPSpecies species, double dbh, MersenneTwisterFast generator) {
 		// Start by finding the guideline to use
 		double[][] stocking = stockingGuides.get(species.getName());
 		int ndx = 0;
@@ -149,11 +258,18 @@ public class WesternUpEvenAgedWholeStand implements GrowthModel {
 
 		// Find the value for fully stocked from the guide and then adjust that by +/-20%
 		int ideal = (int)(ndx > 0 ? stocking[ndx - 1][2] : stocking[0][2]); 
-		double skew = (random.nextInt(41) - 20) / 100.0;
+		double skew = (generator.nextInt(41) - 20) / 100.0;
 		int result = (int)(ideal - ideal * skew);
 		return result;
 	}
 	
+	/**
+	 * Set the cache to use for the initial stands, or null to always generate them.
+	 */
+	public void setCache(InitialStandCache value) {
+		cache = value;
+	}
+	
 	public Species getSpecies(int nlcd) {
 		return growthPatterns[nlcd];
 	}
@@ -0,0 +1,122 @@
+package edu.mtu.examples.houghton.model;
+
+import java.util.HashMap;
+
+import edu.mtu.examples.houghton.species.WesternUPSpecies;
+
+/**
+ * This class contains precomputed yield tables for the species used by the growth model. Since the expected 
+ * growth of a stand only depends upon the species and starting DBH, the expected DBH and harvest value of a 
+ * stand in any year of a projection can be looked up instead of re-simulating the growth of every stand.
+ * 
+ * Note that the growth model does not alter the stocking of a stand as it grows, so the stocking class of a
+ * stand is carried through the projection unchanged and is applied when the tables are consulted.
+ * 
+ * Since the tables start from the lower edge of each bin they are conservative by up to one bin width, 
+ * callers that need the value of the stands as they are today should use the stands themselves.
+ */
+public class YieldTable {
+	
+	/**
+	 * The width of the DBH bins, in cm.
+	 */
+	public final static double BinWidth = 0.1;
+	
+	/**
+	 * The number of years of projections contained in the tables.
+	 */
+	public final static int Years = 100;
+	
+	private static YieldTable instance = new YieldTable();
+	
+	// Expected DBH and stand value, indexed by [bin][year] and keyed by species name
+	private HashMap<String, double[][]> dbhTables = new HashMap<String, double[][]>();
+	private HashMap<String, double[][]> valueTables = new HashMap<String, double[][]>();
+	
+	/**
+	 * Constructor.
+	 */
+	private YieldTable() { }
+	
+	/**
+	 * Get an instance of the yield table.
+	 */
+	public static YieldTable getInstance() {
+		return instance;
+	}
+	
+	/**
+	 * Get the DBH bin that the given DBH falls into.
+	 */
+	public static int getBin(double dbh) {
+		return (int)(dbh / BinWidth);
+	}
+	
+	/**
+	 * Get the DBH at the lower edge of the given bin, this is the smallest DBH of any stand in the bin so
+	 * projections from it never cross a DBH threshold before the stands in the bin would.
+	 */
+	public static double getBinDbh(int bin) {
+		return bin * BinWidth;
+	}
+	
+	/**
+	 * Get the expected DBH of a stand.
+	 * 
+	 * @param species The dominate species of the stand.
+	 * @param bin The DBH bin of the stand at the start of the projection.
+	 * @param year The number of years into the projection.
+	 * @return The expected DBH, in cm.
+	 */
+	public double getDbh(WesternUPSpecies species, int bin, int year) {
+		return getTable(dbhTables, species)[bin][year];
+	}
+	
+	/**
+	 * Get the expected bid for a stand.
+	 * 
+	 * @param species The dominate species of the stand.
+	 * @param bin The DBH bin of the stand at the start of the projection.
+	 * @param year The number of years into the projection.
+	 * @return The expected bid for the stand, unrounded.
+	 */
+	public double getValue(WesternUPSpecies species, int bin, int year) {
+		return getTable(valueTables, species)[bin][year];
+	}
+	
+	/**
+	 * Get the table for the species, preparing the tables if this is the first request for it.
+	 */
+	private double[][] getTable(HashMap<String, double[][]> tables, WesternUPSpecies species) {
+		double[][] table = tables.get(species.getName());
+		if (table == null) {
+			prepare(species);
+			table = tables.get(species.getName());
+		}
+		return table;
+	}
+	
+	/**
+	 * Prepare the expected DBH and value trajectories for the species. The expected growth is the mean
+	 * annual DBH growth of the species, clamped at the maximum DBH as done by the growth model.
+	 */
+	private void prepare(WesternUPSpecies species) {
+		HarvestValueCache cache = HarvestValueCache.getInstance();
+		int bins = getBin(species.getMaximumDbh()) + 1;
+		double[][] dbh = new double[bins][Years];
+		double[][] value = new double[bins][Years];
+		
+		for (int bin = 0; bin < bins; bin++) {
+			// Use the lower edge of the bin as the starting DBH
+			double current = Math.min(getBinDbh(bin), species.getMaximumDbh());
+			for (int year = 0; year < Years; year++) {
+				dbh[bin][year] = current;
+				value[bin][year] = cache.getStandValue(species, current);
+				current = Math.min(current + species.getDbhGrowth(), species.getMaximumDbh());
+			}
+		}
+		
+		dbhTables.put(species.getName(), dbh);
+		valueTables.put(species.getName(), value);
+	}
+}
@@ -3,19 +3,18 @@ package edu.mtu.examples.houghton.model.scorecard;
 import java.io.File;
 import java.io.IOException;
 import java.util.Date;
-import java.util.List;
 
-import edu.mtu.measures.ForestMeasuresParallel;
+import edu.mtu.measures.BiomassLedger;
 import edu.mtu.simulation.ForestSim;
 import edu.mtu.simulation.Scorecard;
-import edu.mtu.steppables.ParcelAgent;
+import edu.mtu.simulation.SnapshotExporter;
 import edu.mtu.steppables.marketplace.HarvesterAgent;
-import edu.mtu.utilities.BufferedCsvWriter;
+import edu.mtu.utilities.AsyncCsvWriter;
+import edu.mtu.utilities.ColumnWriter;
+import edu.mtu.utilities.Compression;
 import edu.mtu.utilities.Constants;
 import edu.mtu.examples.houghton.vip.VipBase;
 import edu.mtu.examples.houghton.vip.VipFactory;
-import sim.field.geo.GeomVectorField;
-import sim.io.geo.ShapeFileExporter;
 
 public class HoughtonScorecard implements Scorecard {
 	
@@ -24,7 +23,11 @@ public class HoughtonScorecard implements Scorecard {
 	private final static int captureInterval = 20;
 	private final static String nipfoFile = "/nipfo%1$d";			// ArcGIS disapproves of .shp.shp
 	
-	private BufferedCsvWriter[] writers;
+	private AsyncCsvWriter writer;
+	private ColumnWriter[] columns;
+	private boolean writeColumns;
+	private SnapshotExporter exporter;
+	private int compressionLevel;
 	private String outputDirectory;
 	private String filesDirectory;
 	
@@ -36,23 +39,23 @@ public class HoughtonScorecard implements Scorecard {
 	
 	public void processTimeStep(ForestSim state) {
 		try {
-			writeCarbonSequestration(state.getParcelAgents());
+			writeCarbonSequestration();
 			writeHarvesting();
 			writeRecreationalAccess();
 			
 			// Check the step and flush and export GIS as needed
 			if (state.schedule.getSteps() % captureInterval == 0) {
-				for (int ndx = 0; ndx < writers.length; ndx++) {
-					writers[ndx].flush();
+				writer.flush();
+				if (writeColumns) {
+					for (ColumnWriter column : columns) {
+						column.flush();
+					}
 				}
 				writeGisFiles(state);
 			}
 		} catch (IOException ex) {
 			System.err.println("Unhandled IOException: " + ex.toString());
 			System.exit(-1);
-		} catch (InterruptedException ex) {
-			System.err.println("Unhandled InterruptedException: " + ex.toString());
-			System.exit(-1);
 		}
 	}
 
@@ -62,11 +65,22 @@ public class HoughtonScorecard implements Scorecard {
 			File directory = new File(filesDirectory);
 			directory.mkdirs();
 
-			// Create the buffered file writers
-			writers = new BufferedCsvWriter[Indicators.IndicatorCount];
+			// Create the writer, one file per indicator
+			compressionLevel = state.getBaseParameters().getCompressionLevel();
+			String[] fileNames = new String[Indicators.IndicatorCount];
 			for (Indicators indicator : Indicators.values()) {
-				writers[indicator.getValue()] = new BufferedCsvWriter(outputDirectory + indicator.getFileName(), true);
-			}			
+				fileNames[indicator.getValue()] = Compression.getFileName(outputDirectory + indicator.getFileName(), compressionLevel);
+			}
+			writer = new AsyncCsvWriter(fileNames, true, AsyncCsvWriter.DefaultCapacity, compressionLevel);
+			
+			// Create the binary results columns, one replicate is appended per run
+			writeColumns = state.getBaseParameters().getWriteColumns();
+			if (writeColumns) {
+				columns = new ColumnWriter[Indicators.IndicatorCount];
+				for (Indicators indicator : Indicators.values()) {
+					columns[indicator.getValue()] = new ColumnWriter(outputDirectory + indicator.getColumnName(), indicator.getColumnType());
+				}
+			}
 		} catch (IOException ex) {
 			System.err.println("Unhandled IOException: " + ex.toString());
 			System.exit(-1);
@@ -75,10 +89,16 @@ public class HoughtonScorecard implements Scorecard {
 		
 	public void processFinalization(ForestSim state) {
 		try {
-			for (int ndx = 0; ndx < writers.length; ndx++) {
-				writers[ndx].close();
+			writer.close();
+			if (writeColumns) {
+				for (ColumnWriter column : columns) {
+					column.close();
+				}
 			}
 			writeGisFiles(state);
+			if (exporter != null) {
+				exporter.close();
+			}
 		} catch (IOException ex) {
 			System.err.println("Unhandled IOException: " + ex.toString());
 			System.exit(-1);
@@ -96,22 +116,38 @@ public class HoughtonScorecard implements Scorecard {
 		return 0.475 * biomass; 
 	}
 	
+	/**
+	 * Record the value of the indicator for this step.
+	 */
+	private void record(Indicators indicator, double value) throws IOException {
+		writer.write(indicator.getValue(), value);
+		if (writeColumns) {
+			columns[indicator.getValue()].write(value);
+		}
+	}
+	
+	/**
+	 * Record the value of the indicator for this step.
+	 */
+	private void record(Indicators indicator, int value) throws IOException {
+		writer.write(indicator.getValue(), value);
+		if (writeColumns) {
+			columns[indicator.getValue()].write(value);
+		}
+	}
+	
 	// Society: Aesthetics, Environment: Habitat Connectivity
 	private void writeGisFiles(ForestSim state) throws IOException {
 		if (!writeGis) {
 			return;
 		}
 		
-		// Have the agents update their parcels
-		for (ParcelAgent agent : state.getParcelAgents()) {
-			agent.updateShapefile();
-			state.updateAgentGeography(agent);
+		// Capture the parcels, they are written to disk in the background
+		if (exporter == null) {
+			exporter = new SnapshotExporter(state, compressionLevel);
 		}
-		
-		// Store the parcels to disk
 		String fileName = String.format(filesDirectory + nipfoFile, state.schedule.getSteps());
-		GeomVectorField parcels = state.getParcelLayer();
-		ShapeFileExporter.write(fileName, parcels);
+		exporter.capture(state, fileName);
 	}
 
 	// Society: Recreational Access
@@ -119,21 +155,23 @@ public class HoughtonScorecard implements Scorecard {
 		VipBase vip = VipFactory.getInstance().getVip();
 		
 		double area = vip != null ? vip.getSubscribedArea() / Constants.SquareMetersToSquareKilometers : 0;
-		writers[Indicators.RecreationAccess .getValue()].write(area);
+		record(Indicators.RecreationAccess, area);
 		
-		writers[Indicators.VipAwareness.getValue()].write(vip != null ? vip.getAwareness() : 0);;
-		writers[Indicators.VipEnrollment.getValue()].write(vip != null ? vip.getSubscriptions() : 0);
+		record(Indicators.VipAwareness, vip != null ? vip.getAwareness() : 0);
+		record(Indicators.VipEnrollment, vip != null ? vip.getSubscriptions() : 0);
 	}
 
 	// Environment: Carbon Sequestration
-	private void writeCarbonSequestration(List<ParcelAgent> agents) throws IOException, InterruptedException {		
-		double biomass = ForestMeasuresParallel.calculateBiomass();
+	private void writeCarbonSequestration() throws IOException {
+		BiomassLedger ledger = BiomassLedger.getInstance();
+		
+		double biomass = ledger.getTotalBiomass();
 		double carbon = carbonInBiomassEstiamte(biomass);
-		writers[Indicators.CarbonGlobal.getValue()].write(carbon);
+		record(Indicators.CarbonGlobal, carbon);
 		
-		biomass = ForestMeasuresParallel.calculateBiomass(agents);
+		biomass = ledger.getTotalAgentBiomass();
 		carbon = carbonInBiomassEstiamte(biomass);
-		writers[Indicators.CarbonAgents.getValue()].write(carbon);
+		record(Indicators.CarbonAgents, carbon);
 	}
 	
 	// Economic: Woody Biomass Availability, Reliability / consistent supply of woody biomass
@@ -141,12 +179,12 @@ public class HoughtonScorecard implements Scorecard {
 		HarvesterAgent harvester = HarvesterAgent.getInstance();
 		
 		double biomass = harvester.getTotalBiomass() / Constants.KilogramToMetricTon;		
-		writers[Indicators.HarvestedBiomass.getValue()].write(biomass);
+		record(Indicators.HarvestedBiomass, biomass);
 		
 		biomass = harvester.getStemBiomass() / Constants.KilogramToMetricTon;
-		writers[Indicators.HarvestedStems.getValue()].write(biomass);
+		record(Indicators.HarvestedStems, biomass);
 		        
-		writers[Indicators.HarvestDemand.getValue()].write(harvester.getHarvestedRequested());
-		writers[Indicators.HarvestedParcels.getValue()].write(harvester.getPracelsHarvested());
+		record(Indicators.HarvestDemand, harvester.getHarvestedRequested());
+		record(Indicators.HarvestedParcels, harvester.getPracelsHarvested());
 	}
 }
@@ -1,30 +1,41 @@
 package edu.mtu.examples.houghton.model.scorecard;
 
+import edu.mtu.utilities.ColumnType;
+
 public enum Indicators {
-	CarbonAgents(0, "/carbonAgents.csv"),
-	CarbonGlobal(1, "/carbonGlobal.csv"),
+	CarbonAgents(0, "/carbonAgents.csv", ColumnType.Float64),
+	CarbonGlobal(1, "/carbonGlobal.csv", ColumnType.Float64),
 	
-	HarvestedBiomass(2, "/harvestedBiomass.csv"),
-	HarvestDemand(3, "/harvestDemand.csv"),
-	HarvestedParcels(4, "/harvestedParcels.csv"),
-	HarvestedStems(5, "/harvestedStems.csv"),
+	HarvestedBiomass(2, "/harvestedBiomass.csv", ColumnType.Float64),
+	HarvestDemand(3, "/harvestDemand.csv", ColumnType.Int32),
+	HarvestedParcels(4, "/harvestedParcels.csv", ColumnType.Int32),
+	HarvestedStems(5, "/harvestedStems.csv", ColumnType.Float64),
 	
-	VipAwareness(6, "/vipAwareness.csv"),
-	VipEnrollment(7, "/vipEnrollment.csv"),
+	VipAwareness(6, "/vipAwareness.csv", ColumnType.Int32),
+	VipEnrollment(7, "/vipEnrollment.csv", ColumnType.Int32),
 	
-	RecreationAccess(8, "/recreationAccess.csv");
+	RecreationAccess(8, "/recreationAccess.csv", ColumnType.Float64);
 	
 	public final static int IndicatorCount = Indicators.values().length;
 
 	private int value;
 	private String fileName;
+	private ColumnType type;
 	
-	private Indicators(int value, String fileName) {
+	private Indicators(int value, String fileName, ColumnType type) {
 		this.value = value;
 		this.fileName = fileName;
+		this.type = type;
 	}
 	
 	public int getValue() { return value; }
 	
 	public String getFileName() { return fileName; }
+	
+	/**
+	 * Get the file name of the binary results column.
+	 */
+	public String getColumnName() { return fileName.replace(".csv", ".col"); }
+	
+	public ColumnType getColumnType() { return type; }
 }
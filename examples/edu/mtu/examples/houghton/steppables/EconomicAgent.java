@@ -1,22 +1,28 @@
 package edu.mtu.examples.houghton.steppables;
 
-import java.awt.Point;
 import java.util.List;
 
 import edu.mtu.environment.Forest;
 import edu.mtu.environment.Stand;
+import edu.mtu.environment.StockingCondition;
 import edu.mtu.examples.houghton.model.Economics;
+import edu.mtu.examples.houghton.model.HarvestValueCache;
 import edu.mtu.examples.houghton.model.Harvesting;
+import edu.mtu.examples.houghton.model.StandHistogram;
+import edu.mtu.examples.houghton.model.YieldTable;
+import edu.mtu.examples.houghton.species.WesternUPSpecies;
+import edu.mtu.simulation.profiling.FlightEvents;
 import edu.mtu.steppables.LandUseGeomWrapper;
 import edu.mtu.steppables.ParcelAgentType;
 import edu.mtu.steppables.marketplace.HarvesterAgent;
+import edu.mtu.utilities.Precision;
 import edu.mtu.examples.houghton.vip.VipBase;
 import edu.mtu.examples.houghton.vip.VipFactory;
 
 @SuppressWarnings("serial")
 public class EconomicAgent extends NipfAgent {
 			
-	private final static int projectionWindow = 100;
+	private final static int projectionWindow = YieldTable.Years;
 	
 	private double rate = 0.0;	
 	private double targetHarvest = -1;
@@ -62,7 +68,7 @@ public class EconomicAgent extends NipfAgent {
 			
 		// If it is time for the next harvest, do so
 		if (state.schedule.getSteps() >= nextHarvest) {
-			List<Stand> stands = Harvesting.getHarvestableStands(getParcel(), getHarvestDbh());
+			List<Stand> stands = Harvesting.getHarvestableStands(this, getHarvestDbh());
 			HarvesterAgent.getInstance().requestHarvest(this, stands);
 		}
 	}
@@ -79,33 +85,20 @@ public class EconomicAgent extends NipfAgent {
 	}
 	
 	/**
-	 * Project the value of future harvests and select the one with the 
+	 * Project the value of future harvests and select the one with the highest present value. The 
+	 * projection is assembled from the yield tables using a histogram of the stands in the parcel.
 	 */
-	private void projectHarvests() {
-		// Note the stands for the projection
-		Forest forest = Forest.getInstance();
-		Point[] points = getParcel();
-		Stand[] projection = new Stand[points.length];
-		for (int ndx = 0; ndx < points.length; ndx++) {
-			projection[ndx] = forest.getStand(points[ndx]);
-		}
+	protected void projectHarvests() {
+		Object event = FlightEvents.AgentProjection.begin();
+		
+		// Summarize the stands for the projection
+		StandHistogram histogram = StandHistogram.create(getParcel());
 			
-		// Prime things with the current year
+		// Get the bid for each year in the window
 		double dbh = getHarvestDbh();
 		double[] values = new double[projectionWindow];
-		values[0] = getBid(projection,  dbh, 0);
-		
-		// Project from T+1 until the window, note that we are updating our projection
-		// list of stands every year by only one increment
-		for (int ndx = 1; ndx < projectionWindow; ndx++) {
-
-			// Advance the stands by one year
-			for (int ndy = 0; ndy < projection.length; ndy++) {
-				projection[ndy] = forest.getGrowthModel().growStand(projection[ndy]);
-			}
-			
-			// Get the bid for the projection
-			values[ndx] = getBid(projection, dbh, ndx);
+		for (int ndx = 0; ndx < projectionWindow; ndx++) {
+			values[ndx] = getBid(histogram, dbh, ndx);
 		}
 		
 		// Find the best year to harvest
@@ -116,24 +109,48 @@ public class EconomicAgent extends NipfAgent {
 				nextHarvest = steps + ndx;
 				value = values[ndx];
 			}
-		}			
+		}
+		
+		if (event != null) {
+			FlightEvents.AgentProjection.commit(event, getGeometry().getIndex(), getParcel().length, nextHarvest);
+		}
 	}
 	
 	/**
-	 * Get the bid for the projected growth.
+	 * Get the bid for the projected growth, the area of the current year is taken from the parcel index so 
+	 * that it agrees with the stands that would be harvested, while the bid is taken from the histogram.
 	 */
-	private double getBid(Stand[] projection, double dbh, long year) {
+	private double getBid(StandHistogram histogram, double dbh, int year) {
 		// See what can be harvested
-		List<Stand> harvestable = Harvesting.getHarvestableStands(projection, dbh);
+		int count = 0;
+		double bid = 0.0;
+		if (year == 0) {
+			count = Harvesting.getHarvestableCount(this, dbh);
+			bid = HarvestValueCache.getInstance().getHarvestValue(histogram, dbh);
+		} else {
+			YieldTable table = YieldTable.getInstance();
+			for (int ndx = 0; ndx < histogram.size(); ndx++) {
+				if (histogram.getStocking(ndx) < StockingCondition.Full.getValue()) {
+					continue;
+				}
+				WesternUPSpecies species = histogram.getSpecies(ndx);
+				int bin = histogram.getBin(ndx);
+				if (table.getDbh(species, bin, year) < dbh) {
+					continue;
+				}
+				count += histogram.getCount(ndx);
+				bid += histogram.getCount(ndx) * table.getValue(species, bin, year);
+			}
+		}
 		
 		// Make sure the area meets the target
-		double area = harvestable.size() * Forest.getInstance().getAcresPerPixel();
+		double area = count * Forest.getInstance().getAcresPerPixel();
 		if (area < targetHarvest) {
 			return 0.0;
 		}
 		
-		// Get the bid and return
-		double bid = Harvesting.getHarvestValue(harvestable);
+		// Round the bid off and return the present value
+		bid = Precision.round(bid, 2);
 		double npv = Economics.npv(bid, rate, year);
 		return npv;
 	}
@@ -1,10 +1,12 @@
 package edu.mtu.examples.houghton.steppables;
 
-import java.util.List;
+import java.awt.Point;
 
 import edu.mtu.environment.Forest;
-import edu.mtu.environment.Stand;
+import edu.mtu.environment.ParcelIndex;
+import edu.mtu.examples.houghton.model.HarvestValueCache;
 import edu.mtu.examples.houghton.model.Harvesting;
+import edu.mtu.examples.houghton.model.StandHistogram;
 import edu.mtu.steppables.LandUseGeomWrapper;
 import edu.mtu.steppables.ParcelAgentType;
 import edu.mtu.steppables.marketplace.HarvesterAgent;
@@ -64,14 +66,15 @@ public class EcosystemsAgent extends NipfAgent {
 		}
 				
 		// See how much can be harvested at the DBH, this overrides the policy 
-		List<Stand> stands = Harvesting.getHarvestableStands(getParcel(), getHarvestDbh());
-		double area = stands.size() * Forest.getInstance().getAcresPerPixel();
+		double dbh = getHarvestDbh();
+		double area = Harvesting.getHarvestableCount(this, dbh) * Forest.getInstance().getAcresPerPixel();
 		if (area < 10) {
 			return;
 		}
+		Point[] stands = ParcelIndex.getInstance().getHarvestableStands(getGeometry().getIndex(), dbh);
 
-		// Get the bid for the area, check it against our WTH
-		double bid = Harvesting.getHarvestValue(stands);
+		// Get the bid for the area from a histogram of the stands, check it against our WTH
+		double bid = HarvestValueCache.getInstance().getHarvestValue(StandHistogram.create(stands), dbh);
 		if (bid == 0) {
 			return;
 		}
@@ -79,7 +82,7 @@ public class EcosystemsAgent extends NipfAgent {
 		// If it exceeds our WTH, request a harvest
 		double wthForParcel = wthPerAcre * getParcelArea();
 		if (bid >= wthForParcel) {
-			HarvesterAgent.getInstance().requestHarvest(this, stands);
+			HarvesterAgent.getInstance().requestHarvest(this, stands, null);
 		}
 	}
 
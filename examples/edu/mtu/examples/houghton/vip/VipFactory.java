@@ -1,6 +1,9 @@
 package edu.mtu.examples.houghton.vip;
 
-public class VipFactory {
+import java.io.Serializable;
+
+@SuppressWarnings("serial")
+public class VipFactory implements Serializable {
 	
 	private static VipFactory instance = new VipFactory();
 	
@@ -25,6 +28,11 @@ public class VipFactory {
 	 * Get an instance of the factory.
 	 */
 	public static VipFactory getInstance() { return instance; }
+	
+	/**
+	 * Replace the factory with one restored from a checkpoint.
+	 */
+	public static void setInstance(VipFactory value) { instance = value; }
 
 	/**
 	 * Get the VIP that is currently in place.
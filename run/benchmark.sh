@@ -0,0 +1,15 @@
+#!/bin/bash
+
+# Run the macro benchmark on a synthetic landscape and compare it against the
+# stored baseline, the first run on a machine records the baseline instead
+size=4000
+steps=50
+baseline=run/baseline-$size.properties
+
+cd ..
+if [ -f $baseline ]; then
+  java -jar ForestSim.jar --benchmark -synthetic $size -steps $steps -seed 1 -baseline $baseline -report out/benchmark.properties
+else
+  echo "No baseline found, recording $baseline"
+  java -jar ForestSim.jar --benchmark -synthetic $size -steps $steps -seed 1 -save-baseline $baseline -report out/benchmark.properties
+fi
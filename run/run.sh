@@ -3,23 +3,17 @@
 caffeinate &
 
 repeat=10
+compression=6
 
 for ndx in {1..1}
 do
   date
   echo "Modeling Pass:" $ndx
   cd ..
-  for mode in none discount agglomeration
-  do  
-    java -jar ForestSim.jar --$mode -repeat $repeat -quiet
-  done
-
-  for path in out/none out/discount out/agglomeration 
-  do
-    echo "Compress and Clean-up $path"
-    zip -r $path/gis$ndx.zip $path -x "*.DS_Store" -x "*.csv" -q
-    rm -rf $path/*/
-  done
+  # Each replicate runs the pre-policy years once and branches into every VIP regime
+  # The scorecards and GIS snapshots are gzipped as they are written at the -compression level, so 
+  # they are left in place rather than zipped and removed after each pass
+  java -jar ForestSim.jar --fork -repeat $repeat -quiet -compression $compression
 
   echo "Updating Plots..."
   cd run
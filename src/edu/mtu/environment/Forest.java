@@ -1,6 +1,9 @@
 package edu.mtu.environment;
 
 import java.awt.Point;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Callable;
@@ -9,8 +12,14 @@ import java.util.concurrent.Executors;
 
 import org.javatuples.Pair;
 
+import edu.mtu.measures.BiomassLedger;
 import edu.mtu.measures.ForestMeasures;
+import edu.mtu.measures.ParcelSummaries;
+import edu.mtu.simulation.profiling.FlightEvents;
 import edu.mtu.utilities.Constants;
+import edu.mtu.utilities.RasterIO;
+import com.vividsolutions.jts.geom.Envelope;
+
 import sim.field.geo.GeomGridField;
 import sim.field.grid.DoubleGrid2D;
 import sim.field.grid.IntGrid2D;
@@ -21,6 +30,9 @@ import sim.field.grid.IntGrid2D;
  */
 public class Forest {
 	
+	// Marker for the header of a checkpoint
+	private final static int checkpointMarker = 0x46535446;
+	
 	private static Forest instance = new Forest();
 	
 	private final int threadCount = Runtime.getRuntime().availableProcessors();
@@ -203,6 +215,109 @@ public class Forest {
 		updateStocking();
 	}
 	
+	/**
+	 * Capture the state of the forest, tiles that have not changed since the previous capture are shared 
+	 * with it.
+	 * 
+	 * @param previous The previous capture, or null.
+	 * @return A copy of the state that is unaffected by further changes to the forest.
+	 */
+	public ForestState capture(ForestState previous) {
+		ForestState state = (previous != null) ? previous.copy() : new ForestState(getMapWidth(), getMapHeight());
+		state.getStandDiameter().load(((DoubleGrid2D)standDiameter.getGrid()).field);
+		state.getStocking().load(((IntGrid2D)stocking.getGrid()).field);
+		state.getStandAge().load(standAge.field);
+		state.getTreeCount().load(treeCount.field);
+		return state;
+	}
+	
+	/**
+	 * Restore the forest to a captured state, the land cover and growth model are unchanged.
+	 * 
+	 * @param state A state captured from this forest.
+	 */
+	public void restore(ForestState state) {
+		if (state.getStandAge().getWidth() != getMapWidth() || state.getStandAge().getHeight() != getMapHeight()) {
+			throw new IllegalArgumentException("The state was not captured from the current forest.");
+		}
+		state.getStandDiameter().store(((DoubleGrid2D)standDiameter.getGrid()).field);
+		state.getStocking().store(((IntGrid2D)stocking.getGrid()).field);
+		state.getStandAge().store(standAge.field);
+		state.getTreeCount().store(treeCount.field);
+	}
+	
+	/**
+	 * Set the growth model without changing the forest, used when the state is restored separately.
+	 */
+	public void setGrowthModel(GrowthModel value) {
+		growthModel = value;
+	}
+	
+	/**
+	 * Write the state of the forest as a header followed by raw blocks of the land cover, DBH, 
+	 * stocking, stand age, and tree count grids.
+	 */
+	public void checkpoint(DataOutput out) throws IOException {
+		Envelope mbr = landCover.getMBR();
+		out.writeInt(checkpointMarker);
+		out.writeInt(getMapWidth());
+		out.writeInt(getMapHeight());
+		out.writeDouble(acresPerPixel);
+		out.writeDouble(landCover.getPixelWidth());
+		out.writeDouble(landCover.getPixelHeight());
+		out.writeDouble(mbr.getMinX());
+		out.writeDouble(mbr.getMaxX());
+		out.writeDouble(mbr.getMinY());
+		out.writeDouble(mbr.getMaxY());
+		
+		RasterIO.writeInts(out, ((IntGrid2D)landCover.getGrid()).field);
+		RasterIO.writeDoubles(out, ((DoubleGrid2D)standDiameter.getGrid()).field);
+		RasterIO.writeInts(out, ((IntGrid2D)stocking.getGrid()).field);
+		RasterIO.writeInts(out, standAge.field);
+		RasterIO.writeInts(out, treeCount.field);
+	}
+	
+	/**
+	 * Restore the state of the forest from a checkpoint, in place of calculating the initial stands.
+	 * 
+	 * @param in The input to read the checkpoint from.
+	 * @param growthModel The growth model that was in use when the checkpoint was written.
+	 */
+	public void restore(DataInput in, GrowthModel growthModel) throws IOException {
+		if (in.readInt() != checkpointMarker) {
+			throw new IOException("The checkpoint does not contain a forest.");
+		}
+		int width = in.readInt();
+		int height = in.readInt();
+		acresPerPixel = in.readDouble();
+		double pixelWidth = in.readDouble();
+		double pixelHeight = in.readDouble();
+		Envelope mbr = new Envelope(in.readDouble(), in.readDouble(), in.readDouble(), in.readDouble());
+		
+		IntGrid2D cover = new IntGrid2D(width, height);
+		DoubleGrid2D dbh = new DoubleGrid2D(width, height);
+		IntGrid2D condition = new IntGrid2D(width, height);
+		standAge = new IntGrid2D(width, height);
+		treeCount = new IntGrid2D(width, height);
+		RasterIO.readInts(in, cover.field);
+		RasterIO.readDoubles(in, dbh.field);
+		RasterIO.readInts(in, condition.field);
+		RasterIO.readInts(in, standAge.field);
+		RasterIO.readInts(in, treeCount.field);
+		
+		landCover = new GeomGridField(cover);
+		standDiameter = new GeomGridField(dbh);
+		stocking = new GeomGridField(condition);
+		for (GeomGridField field : new GeomGridField[] { landCover, standDiameter, stocking }) {
+			field.setPixelWidth(pixelWidth);
+			field.setPixelHeight(pixelHeight);
+			field.setMBR(mbr);
+		}
+		this.growthModel = growthModel;
+		
+		prepareThreads();
+	}
+	
 	/**
 	 * Calculate the stand stocking at the given coordinates.
 	 * 
@@ -290,7 +405,10 @@ public class Forest {
 	 * @throws InterruptedException Throw in the the threads are interrupted.
 	 */
 	public void grow() throws InterruptedException {
-		service.invokeAll(growthThreads);		
+		service.invokeAll(growthThreads);
+		BiomassLedger.getInstance().commit();
+		ParcelSummaries.getInstance().commit();
+		ParcelIndex.getInstance().invalidate();
 	}
 	
 	/**
@@ -298,8 +416,11 @@ public class Forest {
 	 * 
 	 * @param start Start of the height range to grow.
 	 * @param end End of the height range to grow.
+	 * @param thread The index of the thread, used to record biomass and parcel changes.
 	 */
-	private void grow(int start, int end) {
+	private void grow(int start, int end, int thread) {
+		BiomassLedger ledger = BiomassLedger.getInstance();
+		ParcelSummaries summaries = ParcelSummaries.getInstance();
 		for (int ndx = 0; ndx < standDiameter.getGridWidth(); ndx++) {
 			for (int ndy = start; ndy < end; ndy++) {
 				// If this is not a woody biomass stand, press on
@@ -310,8 +431,15 @@ public class Forest {
 				
 				// Perform the growth operation
 				Stand stand = getStand(ndx, ndy);
+				double biomass = BiomassLedger.calculateBiomass(stand);
+				int age = stand.age, trees = stand.numberOfTrees;
+				double dbh = stand.arithmeticMeanDiameter;
 				stand = growthModel.growStand(stand);
-				setStand(stand, ndx, ndy);								
+				setStand(stand, ndx, ndy);
+				
+				// Note the change in biomass and to the parcel
+				ledger.record(thread, ndx, ndy, nlcd, BiomassLedger.calculateBiomass(stand) - biomass);
+				summaries.record(thread, ndx, ndy, stand.age - age, stand.arithmeticMeanDiameter - dbh, stand.numberOfTrees - trees);
 			}
 		}
 	}
@@ -325,6 +453,7 @@ public class Forest {
 	public Pair<Double, Double> harvest(Point[] stands) {
 		double biomass = 0, stem = 0;
 		
+		BiomassLedger ledger = BiomassLedger.getInstance();
 		for (Point point : stands) {
 			// Get the current count of trees
 			int count = treeCount.get(point.x, point.y);
@@ -334,14 +463,24 @@ public class Forest {
 			stem += (result.getValue0() * count);
 			biomass += (result.getValue1() * count);
 									
+			// Note the change to the parcel before the stand is reset
+			int seedlings = (int)(300 * acresPerPixel);
+			ParcelSummaries.getInstance().adjust(point.x, point.y, -standAge.get(point.x, point.y), 
+					-((DoubleGrid2D)standDiameter.getGrid()).get(point.x, point.y), seedlings - count);
+			
 			// Update the current stand
 			((DoubleGrid2D)standDiameter.getGrid()).set(point.x, point.y, 0.0);
 			
 			// Set the stand to 300 seedlings per acre, as per common replanting guidelines in the US
-			treeCount.set(point.x, point.y, (int)(300 * acresPerPixel));
+			treeCount.set(point.x, point.y, seedlings);
 			
 			// Reset the stand age
 			standAge.set(point.x, point.y, 0);
+			
+			// Note the change in biomass and that the parcel index is out of date
+			int nlcd = ((IntGrid2D)landCover.getGrid()).get(point.x, point.y);
+			ledger.adjust(point.x, point.y, nlcd, ForestMeasures.calculateBiomass(point) - result.getValue1() * count);
+			ParcelIndex.getInstance().invalidate(point.x, point.y);
 		}
 		
 		return new Pair<Double, Double>(stem, biomass);
@@ -353,20 +492,31 @@ public class Forest {
 	private void prepareThreads() {
 		// Prepare a list of for the grow method
 		final int range = standDiameter.getGridHeight() / threadCount;
+		BiomassLedger.getInstance().prepare(threadCount);
+		ParcelSummaries.getInstance().prepare(threadCount);
 		growthThreads = new ArrayList<Callable<Void>>();
 		stockingThreads = new ArrayList<Callable<Void>>();
 		for (int ndx = 0; ndx < threadCount; ndx++) {
 			final int start = ndx * range;
 			final int end = (ndx < threadCount - 1) ? (ndx + 1) * range : standDiameter.getGridHeight();
+			final int thread = ndx;
 			growthThreads.add(new Callable<Void>() {
 				public Void call() throws Exception {
-					grow(start, end);
+					Object event = FlightEvents.ForestGrow.begin();
+					grow(start, end, thread);
+					if (event != null) {
+						FlightEvents.ForestGrow.commit(event, thread, start, end);
+					}
 					return null;
 				}	
 			});
 			stockingThreads.add(new Callable<Void>() {
 				public Void call() throws Exception {
-					updateStocking(start, end);
+					Object event = FlightEvents.ForestStocking.begin();
+					updateStocking(start, end, thread);
+					if (event != null) {
+						FlightEvents.ForestStocking.commit(event, thread, start, end);
+					}
 					return null;
 				}
 			});
@@ -382,6 +532,7 @@ public class Forest {
 	public Pair<Double, Double> thin(List<StandThinning> plans) {
 		double biomass = 0, stem = 0;
 		
+		BiomassLedger ledger = BiomassLedger.getInstance();
 		for (StandThinning plan : plans) {					
 			// Thin the stand
 			int orginal = treeCount.get(plan.point.x, plan.point.y);
@@ -393,6 +544,11 @@ public class Forest {
 			Pair<Double, Double> result = ForestMeasures.calculateTreeHarvestBiomass(plan.point.x, plan.point.y);
 			stem += (result.getValue0() * harvest);
 			biomass += (result.getValue1() * harvest);
+			
+			// Note the change in biomass and trees
+			int nlcd = ((IntGrid2D)landCover.getGrid()).get(plan.point.x, plan.point.y);
+			ledger.adjust(plan.point.x, plan.point.y, nlcd, -(result.getValue1() * harvest));
+			ParcelSummaries.getInstance().adjust(plan.point.x, plan.point.y, 0, 0, -harvest);
 		}
 				
 		// Return the biomass
@@ -406,6 +562,8 @@ public class Forest {
 	 */
 	public void updateStocking() throws InterruptedException {
 		service.invokeAll(stockingThreads);
+		ParcelSummaries.getInstance().commit();
+		ParcelIndex.getInstance().update();
 	}
 	
 	/**
@@ -413,8 +571,11 @@ public class Forest {
 	 * 
 	 * @param start Start of the range to update.
 	 * @param end End of the range to update.
+	 * @param thread The index of the thread, used to record parcel changes.
 	 */
-	private void updateStocking(int start, int end) {
+	private void updateStocking(int start, int end, int thread) {
+		ParcelSummaries summaries = ParcelSummaries.getInstance();
+		IntGrid2D grid = (IntGrid2D)stocking.getGrid();
 		for (int ndx = 0; ndx < stocking.getGridWidth(); ndx++) {
 			for (int ndy = start; ndy < end; ndy++) {
 				// Get the stocking value for the point
@@ -432,8 +593,12 @@ public class Forest {
 					value = StockingCondition.Poor.getValue();
 				}
 
-				// Store the value
-				((IntGrid2D)stocking.getGrid()).set(ndx, ndy, value);
+				// Store the value, noting any change to the parcel
+				int previous = grid.get(ndx, ndy);
+				if (previous != value) {
+					grid.set(ndx, ndy, value);
+					summaries.recordStocking(thread, ndx, ndy, value - previous);
+				}
 			}
 		}
 	}
@@ -0,0 +1,87 @@
+package edu.mtu.environment;
+
+/**
+ * This class holds a copy of the state of the forest (i.e., the layers that change while the model runs) 
+ * as copy-on-write tiled rasters. Copies share tiles until they diverge, so a state can be branched for 
+ * scenarios or ensembles at the cost of the tiles that actually change. 
+ */
+public class ForestState {
+	
+	private long step;
+	private TiledDoubleRaster standDiameter;
+	private TiledIntRaster stocking;
+	private TiledIntRaster standAge;
+	private TiledIntRaster treeCount;
+	
+	/**
+	 * Constructor, all of the layers are zero.
+	 */
+	public ForestState(int width, int height) {
+		standDiameter = new TiledDoubleRaster(width, height);
+		stocking = new TiledIntRaster(width, height);
+		standAge = new TiledIntRaster(width, height);
+		treeCount = new TiledIntRaster(width, height);
+	}
+	
+	/**
+	 * Constructor for copies.
+	 */
+	private ForestState(ForestState state) {
+		step = state.step;
+		standDiameter = state.standDiameter.copy();
+		stocking = state.stocking.copy();
+		standAge = state.standAge.copy();
+		treeCount = state.treeCount.copy();
+	}
+	
+	/**
+	 * Create a copy of the state, the tiles are shared until either state is changed.
+	 */
+	public ForestState copy() {
+		return new ForestState(this);
+	}
+	
+	/**
+	 * Get the number of tiles that are allocated by the state, shared or not.
+	 */
+	public int getAllocatedTiles() {
+		return standDiameter.getAllocatedTiles() + stocking.getAllocatedTiles() + standAge.getAllocatedTiles() + treeCount.getAllocatedTiles();
+	}
+	
+	/**
+	 * Get the number of tiles that are owned by this state, i.e., have diverged since it was copied.
+	 */
+	public int getOwnedTiles() {
+		return standDiameter.getOwnedTiles() + stocking.getOwnedTiles() + standAge.getOwnedTiles() + treeCount.getOwnedTiles();
+	}
+	
+	/**
+	 * Get the stand age layer.
+	 */
+	public TiledIntRaster getStandAge() { return standAge; }
+	
+	/**
+	 * Get the stand diameter (DBH) layer.
+	 */
+	public TiledDoubleRaster getStandDiameter() { return standDiameter; }
+	
+	/**
+	 * Get the time step the state was captured at.
+	 */
+	public long getStep() { return step; }
+	
+	/**
+	 * Get the stocking layer.
+	 */
+	public TiledIntRaster getStocking() { return stocking; }
+	
+	/**
+	 * Get the tree count layer.
+	 */
+	public TiledIntRaster getTreeCount() { return treeCount; }
+	
+	/**
+	 * Set the time step the state was captured at.
+	 */
+	public void setStep(long value) { step = value; }
+}
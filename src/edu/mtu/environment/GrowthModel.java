@@ -1,11 +1,14 @@
 package edu.mtu.environment;
 
+import java.io.Serializable;
+
 /**
  * This interface abstracts the functions that are used to actually grow a 
  * given forest stand. These methods are called by the Forest class while 
- * the model is running.  
+ * the model is running. Growth models are serialized when the simulation is 
+ * checkpointed, so any state they hold must be serializable.
  */
-public interface GrowthModel {
+public interface GrowthModel extends Serializable {
 	/**
 	 * Calculate the initial forest stands for the model.
 	 */
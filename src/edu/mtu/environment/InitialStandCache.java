@@ -0,0 +1,177 @@
+package edu.mtu.environment;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import ec.util.MersenneTwisterFast;
+import edu.mtu.utilities.RasterIO;
+import sim.field.geo.GeomGridField;
+import sim.field.grid.DoubleGrid2D;
+import sim.field.grid.IntGrid2D;
+
+/**
+ * This class provides an on-disk cache of the initial stands (DBH, tree count, and stand age) that are
+ * generated by a growth model. Entries are keyed by the state of the random number generator before the
+ * stands are generated, the land cover, and any other inputs provided by the growth model (e.g., stocking
+ * guides). Since generating the stands consumes random numbers, the state of the generator afterwards is
+ * cached as well so that a run which loads the stands continues with the same random sequence.
+ */
+public class InitialStandCache {
+
+	// Marker and version for cache entries, bump the version if the generation of the stands changes
+	private final static int marker = 0x46534943;
+	private final static int version = 2;
+
+	private final static String extension = ".stands";
+
+	private String directory;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param directory The directory to store the cache entries in, it is created if need be.
+	 */
+	public InitialStandCache(String directory) {
+		this.directory = directory;
+	}
+
+	/**
+	 * Get the key for the inputs to the initial stands.
+	 *
+	 * @param random The random number generator, prior to generating the stands.
+	 * @param inputs Any other inputs used by the growth model to generate the stands.
+	 * @return The key to use for the cache entry.
+	 */
+	public String getKey(MersenneTwisterFast random, double[][]... inputs) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			ByteArrayOutputStream state = new ByteArrayOutputStream();
+			DataOutputStream out = new DataOutputStream(state);
+			out.writeInt(version);
+			random.writeState(out);
+			out.close();
+			digest.update(state.toByteArray());
+
+			// The land cover, including the georeference
+			GeomGridField landCover = Forest.getInstance().getLandCover();
+			int[][] field = ((IntGrid2D)landCover.getGrid()).field;
+			ByteBuffer buffer = ByteBuffer.allocate(Math.max(field.length != 0 ? field[0].length * 4 : 0, 32));
+			buffer.putInt(field.length).putInt(field.length != 0 ? field[0].length : 0);
+			buffer.putDouble(landCover.getPixelWidth()).putDouble(landCover.getPixelHeight());
+			digest.update(buffer.array(), 0, buffer.position());
+			for (int[] column : field) {
+				buffer.clear();
+				buffer.asIntBuffer().put(column);
+				digest.update(buffer.array(), 0, column.length * 4);
+			}
+
+			// Remaining inputs
+			for (double[][] input : inputs) {
+				buffer = ByteBuffer.allocate(4);
+				digest.update(buffer.putInt(input.length).array());
+				for (double[] row : input) {
+					buffer = ByteBuffer.allocate(4 + row.length * 8);
+					buffer.putInt(row.length);
+					buffer.asDoubleBuffer().put(row);
+					digest.update(buffer.array());
+				}
+			}
+
+			StringBuilder key = new StringBuilder();
+			for (byte value : digest.digest()) {
+				key.append(String.format("%02x", value));
+			}
+			return key.toString();
+		} catch (NoSuchAlgorithmException ex) {
+			// Every Java platform is required to support SHA-256
+			throw new IllegalStateException(ex);
+		} catch (IOException ex) {
+			// Not possible when writing to memory
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	/**
+	 * Load the initial stands into the forest, along with the state of the random number generator.
+	 *
+	 * @param key The key of the cache entry.
+	 * @param random The random number generator to restore the state of.
+	 * @return True if the entry was loaded, false if it is not in the cache.
+	 */
+	public boolean load(String key, MersenneTwisterFast random) throws IOException {
+		File file = new File(directory, key + extension);
+		if (!file.exists()) {
+			return false;
+		}
+
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (in.readInt() != marker || in.readInt() != version) {
+				return false;
+			}
+
+			int width = in.readInt();
+			int height = in.readInt();
+			Forest forest = Forest.getInstance();
+			if (width != forest.getMapWidth() || height != forest.getMapHeight()) {
+				return false;
+			}
+
+			DoubleGrid2D dbh = new DoubleGrid2D(width, height);
+			IntGrid2D treeCount = new IntGrid2D(width, height);
+			IntGrid2D standAge = new IntGrid2D(width, height);
+			RasterIO.readDoubles(in, dbh.field);
+			RasterIO.readInts(in, treeCount.field);
+			RasterIO.readInts(in, standAge.field);
+			random.readState(in);
+
+			// Pass the stands along to the forest
+			GeomGridField landCover = forest.getLandCover();
+			GeomGridField standDiameter = new GeomGridField(dbh);
+			standDiameter.setPixelHeight(landCover.getPixelHeight());
+			standDiameter.setPixelWidth(landCover.getPixelWidth());
+			standDiameter.setMBR(landCover.getMBR());
+			forest.setStandAgeMap(standAge);
+			forest.setTreeCountMap(treeCount);
+			forest.setStandDiameterMap(standDiameter);
+		}
+		return true;
+	}
+
+	/**
+	 * Save the initial stands of the forest, along with the state of the random number generator.
+	 *
+	 * @param key The key of the cache entry.
+	 * @param random The random number generator, after generating the stands.
+	 */
+	public void save(String key, MersenneTwisterFast random) throws IOException {
+		File path = new File(directory);
+		path.mkdirs();
+
+		// Write to a temporary file first so that concurrent runs never see a partial entry
+		File temporary = File.createTempFile(key, ".tmp", path);
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary)))) {
+			Forest forest = Forest.getInstance();
+			out.writeInt(marker);
+			out.writeInt(version);
+			out.writeInt(forest.getMapWidth());
+			out.writeInt(forest.getMapHeight());
+			RasterIO.writeDoubles(out, ((DoubleGrid2D)forest.getStandDbhMap().getGrid()).field);
+			RasterIO.writeInts(out, forest.getTreeCountMap().field);
+			RasterIO.writeInts(out, ((IntGrid2D)forest.getStandAgeMap().getGrid()).field);
+			random.writeState(out);
+		}
+		if (!temporary.renameTo(new File(directory, key + extension))) {
+			temporary.delete();
+		}
+	}
+}
@@ -0,0 +1,320 @@
+package edu.mtu.environment;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import sim.field.grid.DoubleGrid2D;
+import sim.field.grid.IntGrid2D;
+
+/**
+ * This class maintains a small summary of the fully stocked stands in each parcel so that agents can
+ * determine if their parcel can meet a harvest threshold without examining every stand. The summary 
+ * contains the maximum DBH of the parcel and the count of fully stocked stands at or above each of the
+ * thresholds provided by the model. A list of the fully stocked stands sorted by DBH is built on demand to
+ * count stands for other DBH values, and the stands themselves are only gathered when they are requested.
+ * 
+ * The summaries are refreshed by the forest after the stocking is updated, and harvested parcels are 
+ * refreshed the next time they are queried.
+ */
+public class ParcelIndex {
+	
+	private static ParcelIndex instance = new ParcelIndex();
+	
+	private final int threadCount = Runtime.getRuntime().availableProcessors();
+	private final ExecutorService service = Executors.newFixedThreadPool(threadCount);
+	
+	private double[] thresholds = new double[0];
+	
+	// Parcel attributes, indexed by parcel
+	private Point[][] parcels;
+	private boolean[] dirty;
+	private double[] maximumDbh;
+	private int[][] counts;
+	private Point[][] sorted;
+	private double[][] sortedDbh;
+	
+	// Map of the parcel that owns each pixel, -1 if the pixel is not owned
+	private IntGrid2D owners;
+	
+	private List<Callable<Void>> updateThreads;
+	
+	/**
+	 * Constructor.
+	 */
+	private ParcelIndex() { }
+	
+	/**
+	 * Get an instance of the parcel index.
+	 */
+	public static ParcelIndex getInstance() {
+		return instance;
+	}
+	
+	/**
+	 * Get the number of fully stocked stands in the parcel whose DBH is at least the value provided.
+	 * 
+	 * @param parcel The index of the parcel.
+	 * @param dbh The minimum DBH of the stands, in cm.
+	 * @return The number of stands, this is O(1) when the DBH is one of the thresholds.
+	 */
+	public int getHarvestableCount(int parcel, double dbh) {
+		refresh(parcel);
+		if (dbh > maximumDbh[parcel]) {
+			return 0;
+		}
+		for (int ndx = 0; ndx < thresholds.length; ndx++) {
+			if (thresholds[ndx] == dbh) {
+				return counts[parcel][ndx];
+			}
+		}
+		return find(parcel, dbh);
+	}
+	
+	/**
+	 * Get the fully stocked stands in the parcel whose DBH is at least the value provided.
+	 * 
+	 * @param parcel The index of the parcel.
+	 * @param dbh The minimum DBH of the stands, in cm.
+	 * @return The points of the stands, in the same order as the parcel so that a harvest that is limited
+	 * 		   by capacity selects the same stands as a scan of the parcel.
+	 */
+	public Point[] getHarvestableStands(int parcel, double dbh) {
+		int count = getHarvestableCount(parcel, dbh);
+		if (count == 0) {
+			return new Point[0];
+		}
+		
+		DoubleGrid2D diameter = (DoubleGrid2D)Forest.getInstance().getStandDbhMap().getGrid();
+		IntGrid2D stocking = (IntGrid2D)Forest.getInstance().getStockingMap().getGrid();
+		List<Point> working = new ArrayList<Point>(count);
+		for (Point point : parcels[parcel]) {
+			if (stocking.get(point.x, point.y) >= StockingCondition.Full.getValue() && diameter.get(point.x, point.y) >= dbh) {
+				working.add(point);
+			}
+		}
+		return working.toArray(new Point[working.size()]);
+	}
+	
+	/**
+	 * Get the maximum DBH of the fully stocked stands in the parcel, in cm.
+	 */
+	public double getMaximumDbh(int parcel) {
+		refresh(parcel);
+		return maximumDbh[parcel];
+	}
+	
+	/**
+	 * Get the points in the parcel, may be null.
+	 */
+	public Point[] getParcel(int parcel) {
+		return parcels[parcel];
+	}
+	
+	/**
+	 * Get the number of parcels that are indexed.
+	 */
+	public int getParcelCount() {
+		return (parcels != null) ? parcels.length : 0;
+	}
+	
+	/**
+	 * Get the map of the parcel that owns each pixel, -1 if the pixel is not owned.
+	 */
+	public IntGrid2D getOwnershipMap() {
+		return owners;
+	}
+	
+	/**
+	 * Flag the summaries for all parcels as out of date.
+	 */
+	public void invalidate() {
+		if (parcels == null) {
+			return;
+		}
+		Arrays.fill(dirty, true);
+	}
+	
+	/**
+	 * Flag the summary for the parcel that owns the given pixel as out of date.
+	 */
+	public void invalidate(int x, int y) {
+		if (parcels == null) {
+			return;
+		}
+		int parcel = owners.get(x, y);
+		if (parcel != -1) {
+			dirty[parcel] = true;
+		}
+	}
+	
+	/**
+	 * Set the parcels that are to be indexed.
+	 * 
+	 * @param parcels The points in each parcel, indexed by parcel, null entries are ignored.
+	 * @param width The width of the map.
+	 * @param height The height of the map.
+	 */
+	public void setParcels(Point[][] parcels, int width, int height) {
+		this.parcels = parcels;
+		dirty = new boolean[parcels.length];
+		maximumDbh = new double[parcels.length];
+		counts = new int[parcels.length][thresholds.length];
+		sorted = new Point[parcels.length][];
+		sortedDbh = new double[parcels.length][];
+		
+		// Note the owner of each pixel
+		owners = new IntGrid2D(width, height, -1);
+		for (int ndx = 0; ndx < parcels.length; ndx++) {
+			if (parcels[ndx] == null) {
+				continue;
+			}
+			for (Point point : parcels[ndx]) {
+				owners.set(point.x, point.y, ndx);
+			}
+		}
+		
+		prepareThreads();
+	}
+	
+	/**
+	 * Get the DBH thresholds, in cm, that the count of stands are maintained for.
+	 */
+	public double[] getThresholds() {
+		return Arrays.copyOf(thresholds, thresholds.length);
+	}
+	
+	/**
+	 * Set the DBH thresholds, in cm, that the count of stands should be maintained for.
+	 * 
+	 * NOTE: This operation must be done prior to setting the parcels.
+	 */
+	public void setThresholds(double... values) {
+		thresholds = Arrays.copyOf(values, values.length);
+		Arrays.sort(thresholds);
+	}
+	
+	/**
+	 * Update the summaries for all of the parcels.
+	 * 
+	 * @throws InterruptedException Thrown when on of the threads are interrupted.
+	 */
+	public void update() throws InterruptedException {
+		if (parcels == null) {
+			return;
+		}
+		service.invokeAll(updateThreads);
+	}
+	
+	/**
+	 * Return the number of entries in the sorted list for the parcel whose DBH is at least the value provided.
+	 */
+	private int find(int parcel, double dbh) {
+		// Build the sorted list if needed
+		if (sorted[parcel] == null) {
+			sort(parcel);
+		}
+		
+		// Binary search for the first entry below the DBH in the descending list
+		double[] values = sortedDbh[parcel];
+		int low = 0, high = values.length;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (values[middle] >= dbh) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+	
+	/**
+	 * Prepare the threads that are used to update the summaries.
+	 */
+	private void prepareThreads() {
+		final int range = parcels.length / threadCount;
+		updateThreads = new ArrayList<Callable<Void>>();
+		for (int ndx = 0; ndx < threadCount; ndx++) {
+			final int start = ndx * range;
+			final int end = (ndx < threadCount - 1) ? (ndx + 1) * range : parcels.length;
+			updateThreads.add(new Callable<Void>() {
+				public Void call() throws Exception {
+					for (int parcel = start; parcel < end; parcel++) {
+						summarize(parcel);
+					}
+					return null;
+				}
+			});
+		}
+	}
+	
+	/**
+	 * Update the summary for the parcel if it is out of date.
+	 */
+	private void refresh(int parcel) {
+		if (dirty[parcel]) {
+			summarize(parcel);
+		}
+	}
+	
+	/**
+	 * Build the list of fully stocked stands in the parcel sorted by descending DBH.
+	 */
+	private void sort(int parcel) {
+		final DoubleGrid2D dbh = (DoubleGrid2D)Forest.getInstance().getStandDbhMap().getGrid();
+		IntGrid2D stocking = (IntGrid2D)Forest.getInstance().getStockingMap().getGrid();
+		
+		List<Point> working = new ArrayList<Point>();
+		for (Point point : parcels[parcel]) {
+			if (stocking.get(point.x, point.y) >= StockingCondition.Full.getValue()) {
+				working.add(point);
+			}
+		}
+		Point[] points = working.toArray(new Point[0]);
+		Arrays.sort(points, new Comparator<Point>() {
+			public int compare(Point one, Point two) {
+				return Double.compare(dbh.get(two.x, two.y), dbh.get(one.x, one.y));
+			}
+		});
+		
+		double[] values = new double[points.length];
+		for (int ndx = 0; ndx < points.length; ndx++) {
+			values[ndx] = dbh.get(points[ndx].x, points[ndx].y);
+		}
+		sortedDbh[parcel] = values;
+		sorted[parcel] = points;
+	}
+	
+	/**
+	 * Calculate the summary for the parcel and discard the sorted list.
+	 */
+	private void summarize(int parcel) {
+		sorted[parcel] = null;
+		sortedDbh[parcel] = null;
+		maximumDbh[parcel] = 0;
+		Arrays.fill(counts[parcel], 0);
+		dirty[parcel] = false;
+		if (parcels[parcel] == null) {
+			return;
+		}
+		
+		DoubleGrid2D dbh = (DoubleGrid2D)Forest.getInstance().getStandDbhMap().getGrid();
+		IntGrid2D stocking = (IntGrid2D)Forest.getInstance().getStockingMap().getGrid();
+		for (Point point : parcels[parcel]) {
+			if (stocking.get(point.x, point.y) < StockingCondition.Full.getValue()) {
+				continue;
+			}
+			double value = dbh.get(point.x, point.y);
+			maximumDbh[parcel] = Math.max(maximumDbh[parcel], value);
+			for (int ndx = 0; ndx < thresholds.length && thresholds[ndx] <= value; ndx++) {
+				counts[parcel][ndx]++;
+			}
+		}
+	}
+}
@@ -0,0 +1,226 @@
+package edu.mtu.environment;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * This class reads the time series written by the RasterSnapshotWriter. The index is read when the file
+ * is opened so any snapshot can be read by decoding from the nearest keyframe.
+ */
+public class RasterSnapshotReader {
+	
+	/**
+	 * The state of the woody pixels at a single step.
+	 */
+	public static class Snapshot {
+		private final long[] pixels;
+		private final int height;
+		
+		public final long step;
+		public final int[] age;
+		public final float[] dbh;
+		public final int[] stocking;
+		
+		private Snapshot(long step, long[] pixels, int height, int[][] values) {
+			this.step = step;
+			this.pixels = pixels;
+			this.height = height;
+			age = values[0].clone();
+			dbh = new float[pixels.length];
+			for (int ndx = 0; ndx < dbh.length; ndx++) {
+				dbh[ndx] = Float.intBitsToFloat(values[1][ndx]);
+			}
+			stocking = values[2].clone();
+		}
+		
+		/**
+		 * Get the position of the pixel in the value arrays, or -1 if it is not woody.
+		 */
+		public int find(int x, int y) {
+			int ndx = Arrays.binarySearch(pixels, (long)x * height + y);
+			return (ndx >= 0) ? ndx : -1;
+		}
+		
+		/**
+		 * Get the x coordinate of the pixel at the position in the value arrays.
+		 */
+		public int getX(int ndx) { return (int)(pixels[ndx] / height); }
+		
+		/**
+		 * Get the y coordinate of the pixel at the position in the value arrays.
+		 */
+		public int getY(int ndx) { return (int)(pixels[ndx] % height); }
+	}
+	
+	private final RandomAccessFile file;
+	private final int width;
+	private final int height;
+	private final long[] pixels;
+	
+	// Index of the snapshots
+	private final long[] steps;
+	private final long[] offsets;
+	private final boolean[] keyframes;
+	
+	/**
+	 * Open the file and read the header and index.
+	 */
+	public RasterSnapshotReader(String fileName) throws IOException {
+		file = new RandomAccessFile(fileName, "r");
+		if (file.readInt() != RasterSnapshotWriter.Marker || file.readInt() != RasterSnapshotWriter.Version) {
+			throw new IOException(fileName + " is not a raster snapshot file.");
+		}
+		width = file.readInt();
+		height = file.readInt();
+		pixels = new long[file.readInt()];
+		file.readInt();
+		
+		byte[] mask = readBlock();
+		int[] position = new int[] { 0 };
+		long last = 0;
+		for (int ndx = 0; ndx < pixels.length; ndx++) {
+			last += readVarlong(mask, position);
+			pixels[ndx] = last;
+		}
+		
+		// Read the index from the footer
+		file.seek(file.length() - 12);
+		long offset = file.readLong();
+		if (file.readInt() != RasterSnapshotWriter.Marker) {
+			throw new IOException(fileName + " is incomplete, the index is missing.");
+		}
+		file.seek(offset);
+		int count = file.readInt();
+		steps = new long[count];
+		offsets = new long[count];
+		keyframes = new boolean[count];
+		for (int ndx = 0; ndx < count; ndx++) {
+			steps[ndx] = file.readLong();
+			offsets[ndx] = file.readLong();
+			keyframes[ndx] = (file.readByte() == 1);
+		}
+	}
+	
+	/**
+	 * Close the file.
+	 */
+	public void close() throws IOException {
+		file.close();
+	}
+	
+	public int getHeight() { return height; }
+	
+	/**
+	 * Get the steps that have snapshots, in the order they were written.
+	 */
+	public long[] getSteps() { return steps.clone(); }
+	
+	public int getWidth() { return width; }
+	
+	/**
+	 * Read the snapshot for the given step.
+	 */
+	public Snapshot read(long step) throws IOException {
+		int target = -1;
+		for (int ndx = 0; ndx < steps.length; ndx++) {
+			if (steps[ndx] == step) {
+				target = ndx;
+				break;
+			}
+		}
+		if (target == -1) {
+			throw new IllegalArgumentException("There is no snapshot for step " + step);
+		}
+		
+		// Decode forward from the nearest keyframe
+		int start = target;
+		while (!keyframes[start]) {
+			start--;
+		}
+		int[][] values = new int[3][pixels.length];
+		for (int ndx = start; ndx <= target; ndx++) {
+			decode(ndx, values);
+		}
+		return new Snapshot(step, pixels, height, values);
+	}
+	
+	/**
+	 * Decode the snapshot, applying it to the values provided.
+	 */
+	private void decode(int snapshot, int[][] values) throws IOException {
+		file.seek(offsets[snapshot]);
+		file.readLong();
+		boolean keyframe = (file.readByte() == 1);
+		int blocks = file.readInt();
+		for (int block = 0; block < blocks; block++) {
+			int start = block * RasterSnapshotWriter.BlockPixels;
+			int end = Math.min(start + RasterSnapshotWriter.BlockPixels, pixels.length);
+			byte[] raw = readBlock();
+			int[] position = new int[] { 0 };
+			for (int field = 0; field < values.length; field++) {
+				for (int ndx = start; ndx < end; ndx++) {
+					int encoded = readVarint(raw, position);
+					int value = (encoded >>> 1) ^ -(encoded & 1);
+					values[field][ndx] = keyframe ? value : values[field][ndx] + value;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Read and decompress a block from the current position.
+	 */
+	private byte[] readBlock() throws IOException {
+		byte[] raw = new byte[file.readInt()];
+		byte[] compressed = new byte[file.readInt()];
+		file.readFully(compressed);
+		Inflater inflater = new Inflater();
+		try {
+			inflater.setInput(compressed);
+			int length = 0;
+			while (length < raw.length) {
+				length += inflater.inflate(raw, length, raw.length - length);
+				if (inflater.needsInput() && length < raw.length) {
+					throw new IOException("The block is truncated.");
+				}
+			}
+		} catch (DataFormatException ex) {
+			throw new IOException("The block is corrupt.", ex);
+		} finally {
+			inflater.end();
+		}
+		return raw;
+	}
+	
+	/**
+	 * Read an unsigned variable length long, advancing the position.
+	 */
+	private static long readVarlong(byte[] buffer, int[] position) {
+		long value = 0;
+		int shift = 0;
+		byte current;
+		do {
+			current = buffer[position[0]++];
+			value |= (long)(current & 0x7F) << shift;
+			shift += 7;
+		} while ((current & 0x80) != 0);
+		return value;
+	}
+	
+	/**
+	 * Read an unsigned variable length integer, advancing the position.
+	 */
+	private static int readVarint(byte[] buffer, int[] position) {
+		int value = 0, shift = 0;
+		byte current;
+		do {
+			current = buffer[position[0]++];
+			value |= (current & 0x7F) << shift;
+			shift += 7;
+		} while ((current & 0x80) != 0);
+		return value;
+	}
+}
@@ -0,0 +1,254 @@
+package edu.mtu.environment;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.Deflater;
+
+import sim.field.grid.DoubleGrid2D;
+import sim.field.grid.IntGrid2D;
+
+/**
+ * This class writes the age, DBH, and stocking of the woody pixels in the forest to a compact binary time
+ * series. The layout of the file is:
+ * 
+ * Header: marker, version, width, height, woody pixel count, keyframe interval, followed by the linear 
+ * indices (x * height + y, matching the layout of the grids) of the woody pixels as a deflated block of gaps.
+ * The indices are 64-bit so that maps with more than 2^31 pixels can be written.
+ * 
+ * Snapshots: step, keyframe flag, block count, and the blocks. Each block covers BlockPixels pixels and 
+ * contains the ages, DBH (as float bits), and stocking of the pixels, as zig-zag variable length integers 
+ * that are the difference from the previous snapshot, or the values themselves for a keyframe. Blocks are 
+ * deflated independently, and in parallel, and stored as the raw length, compressed length, and bytes.
+ * 
+ * Index: snapshot count followed by the step, file offset, and keyframe flag of each snapshot, with the 
+ * offset of the index and the marker as the footer.
+ */
+public class RasterSnapshotWriter {
+	
+	// Marker used in the header and footer of the file
+	public final static int Marker = 0x46535253;
+	public final static int Version = 2;
+	
+	// Number of pixels in each compressed block
+	public final static int BlockPixels = 1 << 16;
+	
+	// Default number of snapshots between keyframes
+	public final static int DefaultKeyframeInterval = 10;
+	
+	private final static int threadCount = Runtime.getRuntime().availableProcessors();
+	private final static ExecutorService service = Executors.newFixedThreadPool(threadCount);
+	
+	private final RandomAccessFile file;
+	private final int keyframeInterval;
+	private final int height;
+	private final long[] pixels;
+	
+	// Values for the current and previous snapshot, swapped after each write
+	private int[][] current;
+	private int[][] previous;
+	
+	private final List<long[]> index = new ArrayList<long[]>();
+	
+	/**
+	 * Create the file and write the header for the current forest.
+	 * 
+	 * @param fileName The file name and path.
+	 * @param keyframeInterval The number of snapshots between keyframes.
+	 */
+	public RasterSnapshotWriter(String fileName, int keyframeInterval) throws IOException {
+		this.keyframeInterval = keyframeInterval;
+		
+		// Find the woody pixels, the land cover does not change
+		Forest forest = Forest.getInstance();
+		int width = forest.getMapWidth();
+		height = forest.getMapHeight();
+		IntGrid2D landCover = (IntGrid2D)forest.getLandCover().getGrid();
+		int count = 0;
+		for (int ndx = 0; ndx < width; ndx++) {
+			for (int ndy = 0; ndy < height; ndy++) {
+				if (NlcdClassification.isWoodyBiomass(landCover.get(ndx, ndy))) {
+					count++;
+				}
+			}
+		}
+		pixels = new long[count];
+		count = 0;
+		for (int ndx = 0; ndx < width; ndx++) {
+			for (int ndy = 0; ndy < height; ndy++) {
+				if (NlcdClassification.isWoodyBiomass(landCover.get(ndx, ndy))) {
+					pixels[count++] = (long)ndx * height + ndy;
+				}
+			}
+		}
+		current = new int[3][pixels.length];
+		previous = new int[3][pixels.length];
+		
+		// Write the header
+		file = new RandomAccessFile(fileName, "rw");
+		file.setLength(0);
+		file.writeInt(Marker);
+		file.writeInt(Version);
+		file.writeInt(width);
+		file.writeInt(height);
+		file.writeInt(pixels.length);
+		file.writeInt(keyframeInterval);
+		
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		long last = 0;
+		for (long pixel : pixels) {
+			writeVarlong(buffer, pixel - last);
+			last = pixel;
+		}
+		writeBlock(buffer.toByteArray());
+	}
+	
+	/**
+	 * Write the index and footer, and close the file.
+	 */
+	public void close() throws IOException {
+		long offset = file.getFilePointer();
+		file.writeInt(index.size());
+		for (long[] entry : index) {
+			file.writeLong(entry[0]);
+			file.writeLong(entry[1]);
+			file.writeByte((int)entry[2]);
+		}
+		file.writeLong(offset);
+		file.writeInt(Marker);
+		file.getFD().sync();
+		file.close();
+	}
+	
+	/**
+	 * Capture the current state of the forest and append it as a snapshot.
+	 * 
+	 * @param step The time step of the snapshot.
+	 */
+	public void write(long step) throws IOException, InterruptedException {
+		// Capture the state of the woody pixels
+		Forest forest = Forest.getInstance();
+		IntGrid2D age = (IntGrid2D)forest.getStandAgeMap().getGrid();
+		DoubleGrid2D dbh = (DoubleGrid2D)forest.getStandDbhMap().getGrid();
+		IntGrid2D stocking = (IntGrid2D)forest.getStockingMap().getGrid();
+		for (int ndx = 0; ndx < pixels.length; ndx++) {
+			int x = (int)(pixels[ndx] / height), y = (int)(pixels[ndx] % height);
+			current[0][ndx] = age.get(x, y);
+			current[1][ndx] = Float.floatToIntBits((float)dbh.get(x, y));
+			current[2][ndx] = stocking.get(x, y);
+		}
+		
+		// Encode and compress the blocks in parallel
+		final boolean keyframe = (index.size() % keyframeInterval == 0);
+		List<Callable<byte[]>> blocks = new ArrayList<Callable<byte[]>>();
+		for (int start = 0; start < pixels.length; start += BlockPixels) {
+			final int first = start;
+			final int last = Math.min(start + BlockPixels, pixels.length);
+			blocks.add(new Callable<byte[]>() {
+				public byte[] call() throws Exception {
+					return encode(first, last, keyframe);
+				}
+			});
+		}
+		List<Future<byte[]>> results = service.invokeAll(blocks);
+		
+		// Write the snapshot
+		index.add(new long[] { step, file.getFilePointer(), keyframe ? 1 : 0 });
+		file.writeLong(step);
+		file.writeByte(keyframe ? 1 : 0);
+		file.writeInt(results.size());
+		try {
+			for (Future<byte[]> result : results) {
+				file.write(result.get());
+			}
+		} catch (ExecutionException ex) {
+			throw new IOException("Unable to compress the snapshot.", ex.getCause());
+		}
+		
+		// The current values are the basis of the next snapshot
+		int[][] swap = previous;
+		previous = current;
+		current = swap;
+	}
+	
+	/**
+	 * Compress the bytes provided and return them prefixed with the raw and compressed lengths.
+	 */
+	static byte[] compress(byte[] raw) {
+		Deflater deflater = new Deflater();
+		deflater.setInput(raw);
+		deflater.finish();
+		ByteArrayOutputStream output = new ByteArrayOutputStream(raw.length / 4 + 16);
+		byte[] buffer = new byte[8192];
+		while (!deflater.finished()) {
+			int length = deflater.deflate(buffer);
+			output.write(buffer, 0, length);
+		}
+		deflater.end();
+		
+		byte[] compressed = output.toByteArray();
+		byte[] block = new byte[compressed.length + 8];
+		writeInt(block, 0, raw.length);
+		writeInt(block, 4, compressed.length);
+		System.arraycopy(compressed, 0, block, 8, compressed.length);
+		return block;
+	}
+	
+	/**
+	 * Encode the pixels in the range as the differences from the previous snapshot, or as the values for
+	 * a keyframe, and compress them.
+	 */
+	private byte[] encode(int start, int end, boolean keyframe) {
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream((end - start) * 3);
+		for (int field = 0; field < current.length; field++) {
+			for (int ndx = start; ndx < end; ndx++) {
+				int value = keyframe ? current[field][ndx] : current[field][ndx] - previous[field][ndx];
+				writeVarint(buffer, (value << 1) ^ (value >> 31));
+			}
+		}
+		return compress(buffer.toByteArray());
+	}
+	
+	/**
+	 * Compress the bytes and write them to the file.
+	 */
+	private void writeBlock(byte[] raw) throws IOException {
+		file.write(compress(raw));
+	}
+	
+	private static void writeInt(byte[] buffer, int offset, int value) {
+		buffer[offset] = (byte)(value >>> 24);
+		buffer[offset + 1] = (byte)(value >>> 16);
+		buffer[offset + 2] = (byte)(value >>> 8);
+		buffer[offset + 3] = (byte)value;
+	}
+	
+	/**
+	 * Write the value as an unsigned variable length integer.
+	 */
+	private static void writeVarint(ByteArrayOutputStream buffer, int value) {
+		while ((value & ~0x7F) != 0) {
+			buffer.write((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		buffer.write(value);
+	}
+	
+	/**
+	 * Write the value as an unsigned variable length long.
+	 */
+	private static void writeVarlong(ByteArrayOutputStream buffer, long value) {
+		while ((value & ~0x7FL) != 0) {
+			buffer.write((int)(value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		buffer.write((int)value);
+	}
+}
@@ -1,11 +1,13 @@
 package edu.mtu.environment;
 
 import java.awt.Point;
+import java.io.Serializable;
 
 /**
  * This class allows the encapsulation of thinning plans.
  */
-public class StandThinning {
+@SuppressWarnings("serial")
+public class StandThinning implements Serializable {
 	public Point point;
 	public double percentage;
 	
@@ -0,0 +1,608 @@
+package edu.mtu.environment;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import ec.util.MersenneTwisterFast;
+import edu.mtu.utilities.Constants;
+import edu.mtu.utilities.ShapefileWriter;
+import sim.field.grid.IntGrid2D;
+
+/**
+ * This class generates deterministic synthetic landscapes, an NLCD land cover raster and matching parcel
+ * polygons, so that the model can be run at scales for which there is no data.
+ *
+ * The land cover is derived from fractal value noise that is a pure function of the seed and the pixel, so
+ * the raster can be generated in any order, in parallel, and streamed to disk. The noise is divided into
+ * the NLCD classes by quantiles so that the proportions of the classes are matched, with the classes ordered
+ * along a gradient (e.g., open water next to wetlands) so they clump in a plausible manner.
+ *
+ * The parcels are rectangles aligned to the pixels that are carved from fixed blocks of the landscape, with
+ * sizes drawn from a log-normal distribution. Since the parcels must tile the blocks the sizes are only
+ * approximately log-normal, the mean is within about ten percent for sigma up to one. Each block has its own
+ * random stream, so the parcels also do not depend upon the number of threads.
+ */
+public class SyntheticLandscape {
+
+	/**
+	 * Visitor for the parcels as they are generated.
+	 */
+	public interface ParcelVisitor {
+		/**
+		 * Visit the parcel with the given pixel bounds, y is measured from the top of the raster.
+		 */
+		void visit(long index, int x, int y, int width, int height) throws IOException;
+	}
+
+	// The land cover classes in gradient order, along with their default proportions which are
+	// approximately those of the western Upper Peninsula
+	private final static NlcdClassification[] defaultClasses = new NlcdClassification[] {
+			NlcdClassification.OpenWater,
+			NlcdClassification.EmergentHerbaceousWetlands,
+			NlcdClassification.WoodyWetlands,
+			NlcdClassification.EvergreenForest,
+			NlcdClassification.MixedForest,
+			NlcdClassification.DeciduousForest,
+			NlcdClassification.ShrubScrub,
+			NlcdClassification.Grassland,
+			NlcdClassification.Pasture,
+			NlcdClassification.Crops,
+			NlcdClassification.Barren,
+			NlcdClassification.Developed,
+			NlcdClassification.DevelopedLowIntensity,
+			NlcdClassification.DevelopedMediumIntensity,
+			NlcdClassification.DevelopedHighIntensity
+	};
+	private final static double[] defaultProportions = new double[] {
+			0.04, 0.02, 0.16, 0.08, 0.10, 0.40, 0.04, 0.02, 0.04, 0.01, 0.005, 0.05, 0.02, 0.01, 0.005
+	};
+
+	// Number of noise samples used to find the quantiles of the classes
+	private final static int calibrationSamples = 1 << 16;
+
+	// Size of the blocks of rows, and parcel blocks, that are generated by each task
+	private final static int rowBand = 64;
+	private final static int parcelBlock = 256;
+
+	private final static double persistence = 0.5;
+
+	private final static int threadCount = Runtime.getRuntime().availableProcessors();
+	private final static ExecutorService service = Executors.newFixedThreadPool(threadCount);
+
+	private final int width;
+	private final int height;
+	private final long seed;
+
+	private double cellSize = 30.0;
+	private double featureSize = 128.0;
+	private int octaves = 6;
+	private double originX = 0.0;
+	private double originY = 0.0;
+
+	private int[] classes;
+	private double[] proportions;
+	private double[] thresholds = null;
+
+	// Parcel sizes, in acres
+	private double parcelMean = 40.0;
+	private double parcelSigma = 1.0;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param width The width of the landscape, in pixels.
+	 * @param height The height of the landscape, in pixels.
+	 * @param seed The seed, the same seed and settings always produce the same landscape.
+	 */
+	public SyntheticLandscape(int width, int height, long seed) {
+		if (width <= 0 || height <= 0) {
+			throw new IllegalArgumentException("The landscape must be at least one pixel.");
+		}
+		this.width = width;
+		this.height = height;
+		this.seed = seed;
+		setProportions(defaultClasses, defaultProportions);
+	}
+
+	/**
+	 * Get the NLCD land cover class of the given pixel, y is measured from the top of the raster.
+	 */
+	public int getCover(int x, int y) {
+		return classify(noise(x, y));
+	}
+
+	/**
+	 * Get the area of a pixel, in acres.
+	 */
+	public double getAcresPerPixel() {
+		return (cellSize * cellSize) / Constants.acreInSquareMeters;
+	}
+
+	public double getCellSize() { return cellSize; }
+
+	public int getHeight() { return height; }
+
+	public int getWidth() { return width; }
+
+	/**
+	 * Set the size of the pixels, in meters.
+	 */
+	public void setCellSize(double value) {
+		cellSize = value;
+	}
+
+	/**
+	 * Set the typical size of the clumps of land cover, in pixels, and the number of octaves of
+	 * detail below that size.
+	 */
+	public void setClumping(double featureSize, int octaves) {
+		if (featureSize < 1 || octaves < 1) {
+			throw new IllegalArgumentException("The feature size and octaves must be at least one.");
+		}
+		this.featureSize = featureSize;
+		this.octaves = octaves;
+		thresholds = null;
+	}
+
+	/**
+	 * Set the coordinates of the lower left corner of the landscape.
+	 */
+	public void setOrigin(double x, double y) {
+		originX = x;
+		originY = y;
+	}
+
+	/**
+	 * Set the distribution of the parcel sizes.
+	 *
+	 * @param mean The mean size of the parcels, in acres.
+	 * @param sigma The standard deviation of the logarithm of the parcel sizes.
+	 */
+	public void setParcelSize(double mean, double sigma) {
+		if (mean <= 0 || sigma < 0) {
+			throw new IllegalArgumentException("The parcel mean must be positive and sigma cannot be negative.");
+		}
+		parcelMean = mean;
+		parcelSigma = sigma;
+	}
+
+	/**
+	 * Set the land cover classes and their proportions, the classes clump in the order given.
+	 */
+	public void setProportions(NlcdClassification[] classes, double[] proportions) {
+		if (classes.length == 0 || classes.length != proportions.length) {
+			throw new IllegalArgumentException("There must be one proportion for each class.");
+		}
+		double total = 0;
+		for (double proportion : proportions) {
+			if (proportion < 0) {
+				throw new IllegalArgumentException("The proportions cannot be negative.");
+			}
+			total += proportion;
+		}
+		if (total == 0) {
+			throw new IllegalArgumentException("At least one proportion must be positive.");
+		}
+
+		this.classes = new int[classes.length];
+		this.proportions = new double[classes.length];
+		for (int ndx = 0; ndx < classes.length; ndx++) {
+			this.classes[ndx] = classes[ndx].getValue();
+			this.proportions[ndx] = proportions[ndx] / total;
+		}
+		thresholds = null;
+	}
+
+	/**
+	 * Scale the proportions so that the woody biomass classes make up the given fraction of the landscape,
+	 * the relative proportions of the remaining classes are unchanged.
+	 */
+	public void setWoodyFraction(double value) {
+		if (value < 0 || value > 1) {
+			throw new IllegalArgumentException("The woody fraction must be between zero and one.");
+		}
+		double woody = 0;
+		for (int ndx = 0; ndx < classes.length; ndx++) {
+			if (NlcdClassification.isWoodyBiomass(classes[ndx])) {
+				woody += proportions[ndx];
+			}
+		}
+		if ((woody == 0 && value > 0) || (woody == 1 && value < 1)) {
+			throw new IllegalArgumentException("The classes cannot be scaled to the woody fraction.");
+		}
+		for (int ndx = 0; ndx < classes.length; ndx++) {
+			if (NlcdClassification.isWoodyBiomass(classes[ndx])) {
+				proportions[ndx] = (woody > 0) ? proportions[ndx] * value / woody : 0;
+			} else {
+				proportions[ndx] = (woody < 1) ? proportions[ndx] * (1 - value) / (1 - woody) : 0;
+			}
+		}
+		thresholds = null;
+	}
+
+	/**
+	 * Generate the land cover in memory, indexed as [x][y] with y measured from the top.
+	 */
+	public IntGrid2D generateLandCover() throws InterruptedException {
+		calibrate();
+		final IntGrid2D grid = new IntGrid2D(width, height);
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+		for (int ndx = 0; ndx < height; ndx += rowBand) {
+			final int start = ndx;
+			tasks.add(new Callable<Void>() {
+				public Void call() {
+					double[] noise = new double[width];
+					for (int ndy = start; ndy < Math.min(start + rowBand, height); ndy++) {
+						noiseRow(ndy, noise);
+						for (int x = 0; x < width; x++) {
+							grid.field[x][ndy] = classify(noise[x]);
+						}
+					}
+					return null;
+				}
+			});
+		}
+		service.invokeAll(tasks);
+		return grid;
+	}
+
+	/**
+	 * Generate the parcels, the visitor is called from the current thread in the order of the index.
+	 *
+	 * @return The number of parcels generated.
+	 */
+	public long generateParcels(ParcelVisitor visitor) throws IOException, InterruptedException {
+		// Work through the blocks one band at a time to limit the parcels held in memory
+		final double meanPixels = parcelMean / getAcresPerPixel();
+		int blocksWide = (width + parcelBlock - 1) / parcelBlock;
+		long index = 0;
+		for (int ndy = 0; ndy < height; ndy += parcelBlock) {
+			List<Callable<int[]>> tasks = new ArrayList<Callable<int[]>>();
+			for (int ndx = 0; ndx < width; ndx += parcelBlock) {
+				final int x = ndx, y = ndy;
+				final int block = (ndy / parcelBlock) * blocksWide + (ndx / parcelBlock);
+				tasks.add(new Callable<int[]>() {
+					public int[] call() {
+						return splitBlock(x, y, block, meanPixels);
+					}
+				});
+			}
+			for (Future<int[]> result : service.invokeAll(tasks)) {
+				int[] parcels = get(result);
+				for (int ndx = 0; ndx < parcels.length; ndx += 4) {
+					visitor.visit(index++, parcels[ndx], parcels[ndx + 1], parcels[ndx + 2], parcels[ndx + 3]);
+				}
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * Write the land cover to an ArcInfo ASCII grid that can be read by the model, the rows are generated
+	 * in parallel and streamed to disk.
+	 */
+	public void writeLandCover(String fileName) throws IOException, InterruptedException {
+		calibrate();
+		try (OutputStream out = new BufferedOutputStream(new FileOutputStream(fileName), 1 << 16)) {
+			String header = String.format("ncols %d\nnrows %d\nxllcorner %s\nyllcorner %s\ncellsize %s\nNODATA_value 0\n",
+					width, height, Double.toString(originX), Double.toString(originY), Double.toString(cellSize));
+			out.write(header.getBytes());
+
+			// Keep a bounded number of bands in flight, writing them in order
+			Deque<Future<byte[]>> pending = new ArrayDeque<Future<byte[]>>();
+			for (int ndx = 0; ndx < height; ndx += rowBand) {
+				final int start = ndx;
+				pending.add(service.submit(new Callable<byte[]>() {
+					public byte[] call() {
+						return formatRows(start, Math.min(start + rowBand, height));
+					}
+				}));
+				if (pending.size() >= threadCount * 2) {
+					out.write(get(pending.remove()));
+				}
+			}
+			while (!pending.isEmpty()) {
+				out.write(get(pending.remove()));
+			}
+		}
+	}
+
+	/**
+	 * Write the parcels to a shapefile that can be read by the model, the ID of each parcel is its index.
+	 *
+	 * @return The number of parcels written.
+	 */
+	public long writeParcels(String fileName) throws IOException, InterruptedException {
+		final ShapefileWriter writer = new ShapefileWriter(fileName);
+		try {
+			return generateParcels(new ParcelVisitor() {
+				public void visit(long index, int x, int y, int columns, int rows) throws IOException {
+					double minX = originX + x * cellSize;
+					double maxY = originY + (height - y) * cellSize;
+					writer.writeRectangle(minX, maxY - rows * cellSize, minX + columns * cellSize, maxY, index);
+				}
+			});
+		} finally {
+			writer.close();
+		}
+	}
+
+	/**
+	 * Find the noise values that divide the classes by sampling the noise.
+	 */
+	private synchronized void calibrate() {
+		if (thresholds != null) {
+			return;
+		}
+		MersenneTwisterFast random = new MersenneTwisterFast(seed);
+		double[] samples = new double[calibrationSamples];
+		for (int ndx = 0; ndx < samples.length; ndx++) {
+			samples[ndx] = noise(random.nextInt(width), random.nextInt(height));
+		}
+		Arrays.sort(samples);
+
+		double[] working = new double[classes.length];
+		double cumulative = 0;
+		for (int ndx = 0; ndx < classes.length; ndx++) {
+			cumulative += proportions[ndx];
+			int sample = (int)Math.min(Math.round(cumulative * samples.length), samples.length);
+			working[ndx] = (sample == 0) ? Double.NEGATIVE_INFINITY : samples[sample - 1];
+		}
+		
+		// Values beyond the samples belong to the last class that is present
+		for (int ndx = classes.length - 1; ndx >= 0; ndx--) {
+			if (proportions[ndx] > 0) {
+				working[ndx] = Double.POSITIVE_INFINITY;
+				break;
+			}
+		}
+		thresholds = working;
+	}
+
+	/**
+	 * Get the class for the given noise value.
+	 */
+	private int classify(double value) {
+		if (thresholds == null) {
+			calibrate();
+		}
+		int ndx = 0;
+		while (value > thresholds[ndx] || proportions[ndx] == 0) {
+			ndx++;
+		}
+		return classes[ndx];
+	}
+
+	/**
+	 * Format the given rows of the land cover as text.
+	 */
+	private byte[] formatRows(int start, int end) {
+		double[] noise = new double[width];
+		byte[] buffer = new byte[(end - start) * width * 3];
+		int position = 0;
+		for (int ndy = start; ndy < end; ndy++) {
+			noiseRow(ndy, noise);
+			for (int ndx = 0; ndx < width; ndx++) {
+				// NLCD classes are always two digits
+				int value = classify(noise[ndx]);
+				buffer[position++] = (byte)('0' + value / 10);
+				buffer[position++] = (byte)('0' + value % 10);
+				buffer[position++] = (byte)((ndx == width - 1) ? '\n' : ' ');
+			}
+		}
+		return buffer;
+	}
+
+	/**
+	 * Split the given block into parcels, returned as x, y, width, and height quadruples.
+	 */
+	private int[] splitBlock(int x, int y, int block, double meanPixels) {
+		MersenneTwisterFast random = new MersenneTwisterFast(new int[] { (int)(seed >>> 32), (int)seed, block });
+		double mu = Math.log(meanPixels) - (parcelSigma * parcelSigma) / 2;
+
+		// Depth first so the parcels of a block are neighbors in the index
+		int[] parcels = new int[64];
+		int count = 0;
+		Deque<int[]> pending = new ArrayDeque<int[]>();
+		pending.push(new int[] { x, y, Math.min(parcelBlock, width - x), Math.min(parcelBlock, height - y) });
+		while (!pending.isEmpty()) {
+			int[] parcel = pending.pop();
+			int area = parcel[2] * parcel[3];
+			double target = Math.exp(mu + parcelSigma * random.nextGaussian());
+			if (area <= 1.5 * target || area == 1) {
+				parcels = append(parcels, count, parcel);
+				count += 4;
+				continue;
+			}
+
+			// Carve a parcel of the target size off the end of the longest side, unless it would be too narrow
+			int side = (parcel[2] >= parcel[3]) ? 2 : 3;
+			int across = parcel[5 - side];
+			int cut = (int)Math.round(target / across);
+			boolean carved = (cut >= 1 && across <= 4 * cut);
+			if (!carved) {
+				// Otherwise cut the longest side between a quarter and three quarters of the way along
+				cut = 1 + (int)((parcel[side] - 1) * (0.25 + 0.5 * random.nextDouble()));
+				cut = Math.min(cut, parcel[side] - 1);
+			}
+			int[] remainder = parcel.clone();
+			parcel[side] = cut;
+			remainder[side - 2] += cut;
+			remainder[side] -= cut;
+			pending.push(remainder);
+			if (carved) {
+				parcels = append(parcels, count, parcel);
+				count += 4;
+			} else {
+				pending.push(parcel);
+			}
+		}
+		return Arrays.copyOf(parcels, count);
+	}
+
+	/**
+	 * Append the parcel to the packed array, growing it if need be.
+	 */
+	private static int[] append(int[] parcels, int count, int[] parcel) {
+		if (count + 4 > parcels.length) {
+			parcels = Arrays.copyOf(parcels, parcels.length * 2);
+		}
+		System.arraycopy(parcel, 0, parcels, count, 4);
+		return parcels;
+	}
+
+	/**
+	 * Get the value of the noise at the given pixel.
+	 */
+	private double noise(int x, int y) {
+		double value = 0;
+		double amplitude = 1.0;
+		for (int octave = 0; octave < octaves; octave++) {
+			double period = getPeriod(octave);
+			double fy = y / period, fx = x / period;
+			long iy = (long)Math.floor(fy), ix = (long)Math.floor(fx);
+			double ty = smooth(fy - iy);
+			double left = column(octave, ix, iy, ty);
+			double right = column(octave, ix + 1, iy, ty);
+			value += amplitude * (left + (right - left) * smooth(fx - ix));
+			amplitude *= persistence;
+		}
+		return value;
+	}
+
+	/**
+	 * Get the value of the noise for a row of pixels, this is equivalent to calling noise for each pixel
+	 * but the lattice values are only calculated once for each cell of the lattice.
+	 */
+	private void noiseRow(int y, double[] row) {
+		Arrays.fill(row, 0);
+		double amplitude = 1.0;
+		for (int octave = 0; octave < octaves; octave++) {
+			double period = getPeriod(octave);
+			double fy = y / period;
+			long iy = (long)Math.floor(fy);
+			double ty = smooth(fy - iy);
+			long current = Long.MIN_VALUE;
+			double left = 0, right = 0;
+			for (int ndx = 0; ndx < row.length; ndx++) {
+				double fx = ndx / period;
+				long ix = (long)Math.floor(fx);
+				if (ix != current) {
+					left = (ix == current + 1) ? right : column(octave, ix, iy, ty);
+					right = column(octave, ix + 1, iy, ty);
+					current = ix;
+				}
+				row[ndx] += amplitude * (left + (right - left) * smooth(fx - ix));
+			}
+			amplitude *= persistence;
+		}
+	}
+
+	/**
+	 * Interpolate the lattice vertically at the given column.
+	 */
+	private double column(int octave, long ix, long iy, double ty) {
+		double top = lattice(octave, ix, iy);
+		return top + (lattice(octave, ix, iy + 1) - top) * ty;
+	}
+
+	/**
+	 * Get the period of the lattice for the octave, in pixels.
+	 */
+	private double getPeriod(int octave) {
+		return Math.max(featureSize / (1L << octave), 1.0);
+	}
+
+	/**
+	 * Get the value of the lattice at the given point, between zero and one.
+	 */
+	private double lattice(int octave, long ix, long iy) {
+		long hash = seed ^ (octave * 0x9E3779B97F4A7C15L) ^ (ix * 0xC2B2AE3D27D4EB4FL) ^ (iy * 0x165667B19E3779F9L);
+		hash = (hash ^ (hash >>> 33)) * 0xFF51AFD7ED558CCDL;
+		hash = (hash ^ (hash >>> 33)) * 0xC4CEB9FE1A85EC53L;
+		hash ^= hash >>> 33;
+		return (hash >>> 11) * 0x1.0p-53;
+	}
+
+	/**
+	 * Smooth the interpolation between lattice points.
+	 */
+	private static double smooth(double value) {
+		return value * value * (3 - 2 * value);
+	}
+
+	/**
+	 * Get the result of a task, rethrowing any exception.
+	 */
+	private static <T> T get(Future<T> result) throws InterruptedException {
+		try {
+			return result.get();
+		} catch (ExecutionException ex) {
+			throw new RuntimeException(ex.getCause());
+		}
+	}
+
+	/**
+	 * Generate a synthetic landscape from the command line. The land cover and parcels are written to the
+	 * output directory as nlcd.asc and parcels.shp.
+	 */
+	public static void main(String[] args) {
+		int width = 1000, height = 1000;
+		long seed = System.currentTimeMillis();
+		String directory = "synthetic";
+		Double woody = null;
+		double featureSize = 128.0, parcelMean = 40.0, parcelSigma = 1.0, cellSize = 30.0;
+		int octaves = 6;
+		for (int ndx = 0; ndx < args.length - 1; ndx++) {
+			switch (args[ndx]) {
+			case "-size": width = height = Integer.parseInt(args[ndx + 1]); break;
+			case "-width": width = Integer.parseInt(args[ndx + 1]); break;
+			case "-height": height = Integer.parseInt(args[ndx + 1]); break;
+			case "-seed": seed = Long.parseLong(args[ndx + 1]); break;
+			case "-cellsize": cellSize = Double.parseDouble(args[ndx + 1]); break;
+			case "-feature": featureSize = Double.parseDouble(args[ndx + 1]); break;
+			case "-octaves": octaves = Integer.parseInt(args[ndx + 1]); break;
+			case "-woody": woody = Double.parseDouble(args[ndx + 1]); break;
+			case "-parcel-mean": parcelMean = Double.parseDouble(args[ndx + 1]); break;
+			case "-parcel-sigma": parcelSigma = Double.parseDouble(args[ndx + 1]); break;
+			case "-out": directory = args[ndx + 1]; break;
+			}
+		}
+
+		try {
+			SyntheticLandscape landscape = new SyntheticLandscape(width, height, seed);
+			landscape.setCellSize(cellSize);
+			landscape.setClumping(featureSize, octaves);
+			landscape.setParcelSize(parcelMean, parcelSigma);
+			if (woody != null) {
+				landscape.setWoodyFraction(woody);
+			}
+
+			new File(directory).mkdirs();
+			System.out.println("Generating " + width + " x " + height + " landscape, seed " + seed);
+			landscape.writeLandCover(new File(directory, "nlcd.asc").getPath());
+			long parcels = landscape.writeParcels(new File(directory, "parcels.shp").getPath());
+			System.out.println("Wrote " + parcels + " parcels to " + directory);
+		} catch (IOException ex) {
+			System.err.println("Unhandled IOException: " + ex.toString());
+			System.exit(-1);
+		} catch (InterruptedException ex) {
+			System.err.println("Thread interrupted while generating the landscape: " + ex);
+			System.exit(-1);
+		}
+		System.exit(0);
+	}
+}
@@ -0,0 +1,132 @@
+package edu.mtu.environment;
+
+import java.util.Arrays;
+
+/**
+ * A copy-on-write tiled raster of ints, see TiledRaster.
+ */
+public class TiledIntRaster extends TiledRaster {
+	
+	private int[][] tiles;
+	
+	/**
+	 * Constructor, all pixels are zero.
+	 */
+	public TiledIntRaster(int width, int height) {
+		super(width, height);
+		tiles = new int[tilesWide * tilesHigh][];
+	}
+	
+	/**
+	 * Create a copy of the raster, the tiles are shared until either raster writes to them.
+	 */
+	public TiledIntRaster copy() {
+		TiledIntRaster copy = new TiledIntRaster(width, height);
+		System.arraycopy(tiles, 0, copy.tiles, 0, tiles.length);
+		share();
+		copy.share();
+		return copy;
+	}
+	
+	/**
+	 * Get the value of the pixel.
+	 */
+	public int get(int x, int y) {
+		int[] tile = tiles[tile(x, y)];
+		return (tile == null) ? 0 : tile[offset(x, y)];
+	}
+	
+	/**
+	 * Set the value of the pixel, copying its tile if it is shared.
+	 */
+	public void set(int x, int y, int value) {
+		int ndx = tile(x, y);
+		if (tiles[ndx] == null) {
+			if (value == 0) {
+				return;
+			}
+			tiles[ndx] = new int[TileSize * TileSize];
+			shared[ndx] = false;
+		} else if (shared[ndx]) {
+			tiles[ndx] = tiles[ndx].clone();
+			shared[ndx] = false;
+		}
+		tiles[ndx][offset(x, y)] = value;
+	}
+	
+	/**
+	 * Update the raster to match the grid provided, tiles that have not changed continue to be shared.
+	 * 
+	 * @param field The MASON grid field, indexed [x][y], to load.
+	 */
+	public void load(int[][] field) {
+		for (int ndx = 0; ndx < tiles.length; ndx++) {
+			int startX = tileX(ndx), endX = Math.min(startX + TileSize, width);
+			int startY = tileY(ndx), endY = Math.min(startY + TileSize, height);
+			int[] tile = tiles[ndx];
+			
+			// Find the first pixel that differs, if any
+			int diffX = endX, diffY = startY;
+			search:
+			for (int x = startX; x < endX; x++) {
+				for (int y = startY; y < endY; y++) {
+					int value = (tile == null) ? 0 : tile[offset(x, y)];
+					if (field[x][y] != value) {
+						diffX = x;
+						diffY = y;
+						break search;
+					}
+				}
+			}
+			if (diffX == endX) {
+				continue;
+			}
+			
+			// Take ownership of the tile and copy the remainder of it
+			if (tile == null || shared[ndx]) {
+				tile = (tile == null) ? new int[TileSize * TileSize] : tile.clone();
+				tiles[ndx] = tile;
+				shared[ndx] = false;
+			}
+			for (int x = diffX; x < endX; x++) {
+				for (int y = (x == diffX) ? diffY : startY; y < endY; y++) {
+					tile[offset(x, y)] = field[x][y];
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Write the raster to the grid provided.
+	 * 
+	 * @param field The MASON grid field, indexed [x][y], to write to.
+	 */
+	public void store(int[][] field) {
+		for (int ndx = 0; ndx < tiles.length; ndx++) {
+			int startX = tileX(ndx), endX = Math.min(startX + TileSize, width);
+			int startY = tileY(ndx), endY = Math.min(startY + TileSize, height);
+			int[] tile = tiles[ndx];
+			for (int x = startX; x < endX; x++) {
+				if (tile == null) {
+					Arrays.fill(field[x], startY, endY, 0);
+					continue;
+				}
+				System.arraycopy(tile, offset(x, startY), field[x], startY, endY - startY);
+			}
+		}
+	}
+	
+	@Override
+	public int getAllocatedTiles() {
+		int count = 0;
+		for (int[] tile : tiles) {
+			count += (tile != null) ? 1 : 0;
+		}
+		return count;
+	}
+	
+	@Override
+	protected boolean isAllocated(int tile) {
+		return tiles[tile] != null;
+	}
+}
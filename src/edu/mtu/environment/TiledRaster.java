@@ -0,0 +1,106 @@
+package edu.mtu.environment;
+
+import java.util.Arrays;
+
+/**
+ * This class provides the bookkeeping for rasters that are stored as square tiles which are shared 
+ * between copies until one of the copies writes to them (i.e., copy-on-write). Tiles that only hold the 
+ * default value are not allocated at all. 
+ * 
+ * Tiles are laid out column by column to match the MASON grids, and copies are not safe for concurrent 
+ * writes to the same tile.
+ */
+public abstract class TiledRaster {
+	
+	// The tiles are TileSize x TileSize pixels
+	public final static int TileSize = 64;
+	protected final static int shift = 6;
+	protected final static int mask = TileSize - 1;
+	
+	protected final int width;
+	protected final int height;
+	protected final int tilesHigh;
+	protected final int tilesWide;
+	
+	// Flag for each tile that indicates that it may be shared with another copy
+	protected boolean[] shared;
+	
+	/**
+	 * Constructor.
+	 */
+	protected TiledRaster(int width, int height) {
+		this.width = width;
+		this.height = height;
+		tilesWide = (width + mask) >> shift;
+		tilesHigh = (height + mask) >> shift;
+		shared = new boolean[tilesWide * tilesHigh];
+	}
+	
+	/**
+	 * Get the number of tiles that are allocated by this raster, shared or not.
+	 */
+	public abstract int getAllocatedTiles();
+	
+	/**
+	 * Get the height of the raster.
+	 */
+	public int getHeight() { return height; }
+	
+	/**
+	 * Get the number of tiles that have been copied or allocated since this raster was copied.
+	 */
+	public int getOwnedTiles() {
+		int count = 0;
+		for (int ndx = 0; ndx < shared.length; ndx++) {
+			if (!shared[ndx] && isAllocated(ndx)) {
+				count++;
+			}
+		}
+		return count;
+	}
+		
+	/**
+	 * Get the width of the raster.
+	 */
+	public int getWidth() { return width; }
+	
+	/**
+	 * Check to see if the tile has been allocated.
+	 */
+	protected abstract boolean isAllocated(int tile);
+	
+	/**
+	 * Mark every tile as shared, called on both the original and the copy when a copy is made.
+	 */
+	protected void share() {
+		Arrays.fill(shared, true);
+	}
+	
+	/**
+	 * Get the index of the tile that contains the pixel.
+	 */
+	protected int tile(int x, int y) {
+		return (x >> shift) * tilesHigh + (y >> shift);
+	}
+	
+	/**
+	 * Get the offset of the pixel within its tile.
+	 */
+	protected static int offset(int x, int y) {
+		return ((x & mask) << shift) + (y & mask);
+	}
+	
+	/**
+	 * Get the first column of the tile.
+	 */
+	protected int tileX(int tile) {
+		return (tile / tilesHigh) << shift;
+	}
+	
+	/**
+	 * Get the first row of the tile.
+	 */
+	protected int tileY(int tile) {
+		return (tile % tilesHigh) << shift;
+	}
+}
@@ -0,0 +1,91 @@
+package edu.mtu.measures;
+
+import edu.mtu.environment.ParcelIndex;
+import edu.mtu.environment.Stand;
+
+/**
+ * This reducer groups a value by the parcel that owns each stand using the ownership map of the 
+ * parcel index, stands that are not owned by a parcel are ignored.
+ */
+public abstract class AgentReducer extends ForestReducer<double[][]> {
+	
+	private double[] sums = new double[0];
+	private int[] counts = new int[0];
+	
+	/**
+	 * Get the value of the stand to be grouped.
+	 */
+	protected abstract double value(Stand stand);
+	
+	@Override
+	public void accumulate(double[][] partial, Stand stand, int parcel) {
+		if (parcel == -1) {
+			return;
+		}
+		partial[0][parcel] += value(stand);
+		partial[1][parcel]++;
+	}
+	
+	@Override
+	public double[][] createPartial() {
+		return new double[2][sums.length];
+	}
+	
+	/**
+	 * Get the number of stands in the parcel.
+	 */
+	public int getCount(int parcel) {
+		return counts[parcel];
+	}
+	
+	/**
+	 * Get the mean of the value for the parcel, or zero if there are no stands.
+	 */
+	public double getMean(int parcel) {
+		return (counts[parcel] != 0) ? sums[parcel] / counts[parcel] : 0;
+	}
+	
+	/**
+	 * Get the mean of the value across all of the stands that are owned by a parcel.
+	 */
+	public double getMean() {
+		long count = 0;
+		for (int value : counts) {
+			count += value;
+		}
+		return (count != 0) ? getSum() / count : 0;
+	}
+	
+	/**
+	 * Get the sum of the value for the parcel.
+	 */
+	public double getSum(int parcel) {
+		return sums[parcel];
+	}
+	
+	/**
+	 * Get the sum of the value across all of the parcels.
+	 */
+	public double getSum() {
+		double result = 0;
+		for (double value : sums) {
+			result += value;
+		}
+		return result;
+	}
+	
+	@Override
+	public void merge(double[][] partial) {
+		for (int ndx = 0; ndx < sums.length; ndx++) {
+			sums[ndx] += partial[0][ndx];
+			counts[ndx] += (int)partial[1][ndx];
+		}
+	}
+	
+	@Override
+	public void reset() {
+		int parcels = ParcelIndex.getInstance().getParcelCount();
+		sums = new double[parcels];
+		counts = new int[parcels];
+	}
+}
@@ -0,0 +1,278 @@
+package edu.mtu.measures;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import edu.mtu.environment.Forest;
+import edu.mtu.environment.NlcdClassification;
+import edu.mtu.environment.ParcelIndex;
+import edu.mtu.environment.Species;
+import edu.mtu.environment.Stand;
+import sim.field.grid.DoubleGrid2D;
+import sim.field.grid.IntGrid2D;
+
+/**
+ * This class keeps running totals of the biomass in the forest, globally, by parcel, and by NLCD code. 
+ * The totals are updated with the change in biomass as the forest grows, is harvested, or is thinned
+ * so that they do not need to be recalculated from the whole map every time step.
+ * 
+ * Pixels are attributed to the parcel that owns them in the ownership map of the parcel index, so a pixel
+ * that is shared by more than one parcel is only counted once.
+ * 
+ * When auditing is enabled the totals are cross-checked against a full recalculation each time the 
+ * growth deltas are committed.
+ */
+public class BiomassLedger {
+	
+	// Relative difference permitted between the ledger and a full recalculation
+	private final static double tolerance = 1E-6;
+	
+	private static BiomassLedger instance = new BiomassLedger();
+	
+	private boolean audit = false;
+	
+	// Running totals, in kg (dry weight)
+	private double total;
+	private double[] agents;
+	private double[] nlcd;
+	
+	// Pending changes for each of the growth threads
+	private Delta[] deltas = new Delta[0];
+	
+	private IntGrid2D owners;
+	
+	/**
+	 * Pending changes from a single thread.
+	 */
+	private static class Delta {
+		double total;
+		ParcelDeltas agents;
+		double[] nlcd = new double[NlcdClassification.HighestValue + 1];
+	}
+	
+	/**
+	 * Constructor.
+	 */
+	private BiomassLedger() { }
+	
+	/**
+	 * Get an instance of the ledger.
+	 */
+	public static BiomassLedger getInstance() {
+		return instance;
+	}
+	
+	/**
+	 * Calculate the biomass of the stand provided.
+	 * 
+	 * @return The biomass of the stand in kg (dry weight).
+	 */
+	public static double calculateBiomass(Stand stand) {
+		return calculateBiomass(stand.dominateSpecies, stand.arithmeticMeanDiameter, stand.numberOfTrees);
+	}
+	
+	/**
+	 * Calculate the biomass of a stand of the given species.
+	 * 
+	 * @param species The dominate species of the stand, may be null.
+	 * @param dbh The arithmetic mean DBH of the stand, in cm.
+	 * @param count The number of trees in the stand.
+	 * @return The biomass of the stand in kg (dry weight).
+	 */
+	public static double calculateBiomass(Species species, double dbh, int count) {
+		if (species == null) {
+			return 0;
+		}
+		return species.getAboveGroundBiomass(dbh) * count;
+	}
+	
+	/**
+	 * Apply a change in biomass at the given pixel directly to the totals. 
+	 * 
+	 * NOTE: This should only be used from the simulation thread.
+	 */
+	public void adjust(int x, int y, int code, double delta) {
+		if (agents == null) {
+			return;
+		}
+		total += delta;
+		nlcd[code] += delta;
+		int parcel = owners.get(x, y);
+		if (parcel != -1) {
+			agents[parcel] += delta;
+		}
+	}
+	
+	/**
+	 * Compare the totals against a full recalculation of the forest.
+	 * 
+	 * @return True if the ledger agrees with the recalculation, false otherwise.
+	 */
+	public boolean audit() throws InterruptedException {
+		SumReducer forest = new SumReducer() {
+			protected double value(Stand stand) {
+				return calculateBiomass(stand);
+			}
+		};
+		AgentReducer parcels = new AgentReducer() {
+			protected double value(Stand stand) {
+				return calculateBiomass(stand);
+			}
+		};
+		ForestMetrics.getInstance().calculate(forest, parcels);
+		
+		boolean valid = compare("global", total, forest.getSum());
+		for (int parcel = 0; parcel < agents.length; parcel++) {
+			valid &= compare("parcel " + parcel, agents[parcel], parcels.getSum(parcel));
+		}
+		return valid;
+	}
+	
+	/**
+	 * Apply the pending changes from the growth threads to the totals, if auditing is enabled the 
+	 * totals are then checked and rebuilt if they have drifted.
+	 */
+	public void commit() throws InterruptedException {
+		if (agents == null) {
+			return;
+		}
+		for (Delta delta : deltas) {
+			total += delta.total;
+			delta.total = 0;
+			for (int ndx = 0; ndx < nlcd.length; ndx++) {
+				nlcd[ndx] += delta.nlcd[ndx];
+				delta.nlcd[ndx] = 0;
+			}
+			delta.agents.commit(agents);
+		}
+		
+		if (audit && !audit()) {
+			rebuild();
+		}
+	}
+	
+	/**
+	 * Get the biomass of the parcel, in kg (dry weight).
+	 */
+	public double getAgentBiomass(int parcel) {
+		return agents[parcel];
+	}
+	
+	/**
+	 * Get the biomass of the stands with the given NLCD code, in kg (dry weight).
+	 */
+	public double getNlcdBiomass(int code) {
+		return nlcd[code];
+	}
+	
+	/**
+	 * Get the biomass of each species in the forest, in kg (dry weight).
+	 */
+	public Map<String, Double> getSpeciesBiomass() {
+		Map<String, Double> results = new HashMap<String, Double>();
+		for (int code = 0; code < nlcd.length; code++) {
+			Species species = Forest.getInstance().getGrowthModel().getSpecies(code);
+			if (species == null) {
+				continue;
+			}
+			Double value = results.get(species.getName());
+			results.put(species.getName(), (value != null ? value : 0) + nlcd[code]);
+		}
+		return results;
+	}
+	
+	/**
+	 * Get the total biomass of the parcels, in kg (dry weight).
+	 */
+	public double getTotalAgentBiomass() {
+		double result = 0;
+		for (double value : agents) {
+			result += value;
+		}
+		return result;
+	}
+	
+	/**
+	 * Get the total biomass of the forest, in kg (dry weight).
+	 */
+	public double getTotalBiomass() {
+		return total;
+	}
+	
+	/**
+	 * Prepare the pending changes for the given number of growth threads.
+	 */
+	public void prepare(int threads) {
+		deltas = new Delta[threads];
+		for (int ndx = 0; ndx < threads; ndx++) {
+			deltas[ndx] = new Delta();
+			if (agents != null) {
+				deltas[ndx].agents = new ParcelDeltas(1, agents.length);
+			}
+		}
+	}
+	
+	/**
+	 * Rebuild the totals from the current state of the forest, the parcel index must be prepared first.
+	 */
+	public void rebuild() {
+		Forest forest = Forest.getInstance();
+		owners = ParcelIndex.getInstance().getOwnershipMap();
+		total = 0;
+		agents = new double[ParcelIndex.getInstance().getParcelCount()];
+		nlcd = new double[NlcdClassification.HighestValue + 1];
+		prepare(deltas.length);
+		
+		IntGrid2D landCover = (IntGrid2D)forest.getLandCover().getGrid();
+		DoubleGrid2D dbh = (DoubleGrid2D)forest.getStandDbhMap().getGrid();
+		IntGrid2D treeCount = forest.getTreeCountMap();
+		for (int ndx = 0; ndx < forest.getMapWidth(); ndx++) {
+			for (int ndy = 0; ndy < forest.getMapHeight(); ndy++) {
+				int code = landCover.get(ndx, ndy);
+				Species species = forest.getGrowthModel().getSpecies(code);
+				adjust(ndx, ndy, code, calculateBiomass(species, dbh.get(ndx, ndy), treeCount.get(ndx, ndy)));
+			}
+		}
+	}
+	
+	/**
+	 * Record a change in biomass at the given pixel from a growth thread.
+	 * 
+	 * @param thread The index of the growth thread.
+	 * @param x The x coordinate of the pixel.
+	 * @param y The y coordinate of the pixel.
+	 * @param code The NLCD code of the pixel.
+	 * @param delta The change in biomass, in kg (dry weight).
+	 */
+	public void record(int thread, int x, int y, int code, double delta) {
+		if (agents == null) {
+			return;
+		}
+		Delta pending = deltas[thread];
+		pending.total += delta;
+		pending.nlcd[code] += delta;
+		int parcel = owners.get(x, y);
+		if (parcel != -1) {
+			pending.agents.add(0, parcel, delta);
+		}
+	}
+	
+	/**
+	 * Set the flag to indicate if the ledger should be audited after each commit.
+	 */
+	public void setAudit(boolean value) {
+		audit = value;
+	}
+	
+	/**
+	 * Compare the value from the ledger with the expected value, and report any difference.
+	 */
+	private boolean compare(String label, double ledger, double expected) {
+		double difference = Math.abs(ledger - expected);
+		if (difference <= tolerance * Math.max(1.0, Math.abs(expected))) {
+			return true;
+		}
+		System.err.println("WARNING: biomass ledger for " + label + " is " + ledger + " kg, expected " + expected + " kg.");
+		return false;
+	}
+}
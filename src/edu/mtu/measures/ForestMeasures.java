@@ -17,25 +17,34 @@ import edu.mtu.steppables.ParcelAgent;
 public class ForestMeasures {
 	
 	/**
-	 * Calculate the average stocking of parcels held by the parcel agents.
+	 * Calculate the average stocking of parcels held by the parcel agents, the stocking of all of the 
+	 * stands is calculated in a single parallel scan of the forest.
 	 * 
 	 * @param agents A list of agents to get the average agent stocking for.
 	 * @return Average stocking for the agents.
+	 * @throws InterruptedException Thrown when on of the threads are interrupted.
 	 */
-	public static double calculateAveragAgentStocking(List<ParcelAgent> agents) {
+	public static double calculateAveragAgentStocking(List<ParcelAgent> agents) throws InterruptedException {
 		if (agents == null || agents.size() == 0) {
 			return 0;
 		}
 		
+		AgentReducer stocking = new AgentReducer() {
+			protected double value(Stand stand) {
+				return Forest.getInstance().calculateStandStocking(stand.point.x, stand.point.y);
+			}
+		};
+		ForestMetrics.getInstance().calculate(stocking);
+		
+		// Pixels shared with a neighboring parcel are counted once, for the parcel that owns them
 		double sum = 0;
 		int count = 0;
 		for (ParcelAgent agent : agents) {
-			for (java.awt.Point point : agent.getParcel()) {
-				sum += Forest.getInstance().calculateStandStocking(point.x, point.y);
-				count++;
-			}
+			int parcel = agent.getGeometry().getIndex();
+			sum += stocking.getSum(parcel);
+			count += stocking.getCount(parcel);
 		}
-		return sum / count; 
+		return (count != 0) ? sum / count : 0; 
 	}
 	
 	/**
@@ -1,8 +1,6 @@
 package edu.mtu.measures;
 
-import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
@@ -11,21 +9,21 @@ import edu.mtu.steppables.ParcelAgent;
 
 /**
  * This class contains various forest measures that have been optimized to run in parallel.
+ * 
+ * Note that the partial sums are confined to the thread that calculates them, and that the measures can be
+ * made reproducible so that the results do not depend upon the number of threads.
  */
 public class ForestMeasuresParallel {
+	
+	// Block sizes used when the measures are reproducible
+	private final static int agentBlock = 64;
+	private final static int rowBlock = 16;
 		
 	private static ForestMeasuresParallel instance = new ForestMeasuresParallel();
 	
 	private final int threadCount = Runtime.getRuntime().availableProcessors();
 	private final ExecutorService service = Executors.newFixedThreadPool(threadCount);
-	
-	private List<Callable<Void>> agentThreads;
-	private List<Callable<Void>> biomassThreads;
-	
-	private int agentCount;
-	private ParcelAgent[] agents;
-	
-	private volatile double[] sums;
+	private final ParallelReduction reduction = new ParallelReduction(service, threadCount);
 	
 	/**
 	 * Calculate the biomass for all forests.
@@ -33,12 +31,11 @@ public class ForestMeasuresParallel {
 	 * @return The total biomass in kg (dry weight).
 	 */
 	public static synchronized double calculateBiomass() throws InterruptedException {
-		// Map
-		instance.sums = new double[instance.threadCount];
-		instance.service.invokeAll(instance.biomassThreads);
-				
-		// Reduce
-		return instance.sum();
+		return instance.reduction.sum(Forest.getInstance().getMapHeight(), rowBlock, new ParallelReduction.Kernel() {
+			public double sum(int start, int end) {
+				return sumBiomass(start, end);
+			}
+		});
 	}
 	
 	/**
@@ -48,105 +45,57 @@ public class ForestMeasuresParallel {
 	 * @return The total biomass in kg (dry weight).
 	 */
 	public static synchronized double calculateBiomass(List<ParcelAgent> agents) throws InterruptedException {
-		// Prepare
-		instance.prepareAgentThreads(agents);
-				
-		// Map
-		instance.sums = new double[instance.threadCount];
-		instance.agents = agents.toArray(new ParcelAgent[0]);
-		instance.service.invokeAll(instance.agentThreads);
-		
-		// Reduce
-		instance.agents = null;
-		return instance.sum();
+		final ParcelAgent[] working = agents.toArray(new ParcelAgent[0]);
+		return instance.reduction.sum(working.length, agentBlock, new ParallelReduction.Kernel() {
+			public double sum(int start, int end) {
+				return sumAgentBiomass(working, start, end);
+			}
+		});
 	}
 	
 	/**
 	 * Constructor.
 	 */
-	private ForestMeasuresParallel() {
-		prepareBiomassThreads();
-	}
-	
-	/**
-	 * Prepare the threads that are used to calculate biomass for the agents.
-	 */
-	private void prepareAgentThreads(List<ParcelAgent> agents) {
-		// Are the threads we currently have valid for the data supplied?
-		if (agentThreads != null && agentCount == agents.size()) {
-			return;
-		}
-		
-		// Note the number of agents since the array will go away
-		agentCount = agents.size();
-		
-		// Prepare the threads
-		int range = agents.size() / threadCount;
-		agentThreads = new ArrayList<Callable<Void>>();
-		for (int ndx = 0; ndx < threadCount; ndx++) {
-			final int start = ndx * range;
-			final int end = (ndx < threadCount - 1) ? (ndx + 1) *  range : agents.size();
-			final int index = ndx;
-			agentThreads.add(new Callable<Void>() {
-				public Void call() throws Exception {
-					sumAgentBiomass(start, end, index);
-					return null;
-				}
-			});
-		}
-	}
+	private ForestMeasuresParallel() { }
 	
 	/**
-	 * Prepare the threads that are used to calculate biomass for the entire environment.
+	 * True if the measures are independent of the number of threads, false otherwise.
 	 */
-	private void prepareBiomassThreads() {
-		int height = Forest.getInstance().getMapHeight();
-		int range = height / threadCount;
-		biomassThreads = new ArrayList<Callable<Void>>();
-		for (int ndx = 0; ndx < threadCount; ndx++) {
-			final int start = ndx * range;
-			final int end = (ndx < threadCount - 1) ? (ndx + 1) * range : height;
-			final int index = ndx;
-			biomassThreads.add(new Callable<Void>() {
-				public Void call() throws Exception {
-					sumBiomass(start, end, index);
-					return null;
-				}	
-			});
-		}
+	public static boolean isReproducible() {
+		return instance.reduction.isReproducible();
 	}
 	
 	/**
-	 * Sum the results of the operation.
+	 * Set the flag to indicate if the measures should be independent of the number of threads.
 	 */
-	private double sum() {
-		double result = 0;
-		for (double value : sums) {
-			result += value;
-		}
-		return result;
+	public static synchronized void setReproducible(boolean value) {
+		instance.reduction.setReproducible(value);
 	}
 		
 	/**
-	 * Calculate the sum of the biomass for agent parcels in the portion provided it and write it to the given array index.
+	 * Calculate the sum of the biomass for agent parcels in the portion provided.
 	 */
-	private void sumAgentBiomass(int start, int end, int index) {
+	private static double sumAgentBiomass(ParcelAgent[] agents, int start, int end) {
+		double sum = 0;
 		for (int ndx = start; ndx < end; ndx++) {
 			if (agents[ndx] == null) {
 				continue;
 			}
-			sums[ndx] += ForestMeasures.calculateStandBiomass(agents[ndx].getParcel());
+			sum += ForestMeasures.calculateStandBiomass(agents[ndx].getParcel());
 		}
+		return sum;
 	}
 	
 	/**
-	 * Calculate the sum of biomass in the portion provided and write it to the given array index.
+	 * Calculate the sum of biomass in the portion of rows provided.
 	 */
-	private void sumBiomass(int start, int end, int index) {
+	private static double sumBiomass(int start, int end) {
+		double sum = 0;
 		for (int ndx = 0; ndx < Forest.getInstance().getMapWidth(); ndx++) {
 			for (int ndy = start; ndy < end; ndy++) {
-				sums[index] += ForestMeasures.calculateBiomass(ndx, ndy);
+				sum += ForestMeasures.calculateBiomass(ndx, ndy);
 			}
 		}
+		return sum;
 	}
 }
@@ -0,0 +1,192 @@
+package edu.mtu.measures;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import edu.mtu.environment.Forest;
+import edu.mtu.environment.NlcdClassification;
+import edu.mtu.environment.ParcelIndex;
+import edu.mtu.environment.Stand;
+import sim.field.grid.DoubleGrid2D;
+import sim.field.grid.IntGrid2D;
+
+/**
+ * This class calculates any number of registered reductions over the woody stands of the forest in a 
+ * single parallel scan, rather than each measure scanning the forest on its own.
+ */
+public class ForestMetrics {
+	
+	private static ForestMetrics instance = new ForestMetrics();
+	
+	private final int threadCount = Runtime.getRuntime().availableProcessors();
+	private final ExecutorService service = Executors.newFixedThreadPool(threadCount);
+	
+	private List<ForestReducer<?>> reducers = new ArrayList<ForestReducer<?>>();
+	private List<ForestReducer<?>> working;
+	private List<Callable<Void>> scanThreads;
+	private int scanHeight = -1;
+	
+	// Partial states, indexed by [thread][reducer]
+	private Object[][] partials;
+	
+	/**
+	 * Constructor.
+	 */
+	private ForestMetrics() { }
+	
+	/**
+	 * Get an instance of the forest metrics.
+	 */
+	public static ForestMetrics getInstance() {
+		return instance;
+	}
+	
+	/**
+	 * Scan the forest and calculate all of the registered reductions.
+	 * 
+	 * @throws InterruptedException Thrown when on of the threads are interrupted.
+	 */
+	public synchronized void calculate() throws InterruptedException {
+		reduce(reducers);
+	}
+	
+	/**
+	 * Scan the forest and calculate only the reductions provided, they do not need to be registered.
+	 * 
+	 * @throws InterruptedException Thrown when on of the threads are interrupted.
+	 */
+	public synchronized void calculate(ForestReducer<?>... reducers) throws InterruptedException {
+		reduce(Arrays.asList(reducers));
+	}
+	
+	/**
+	 * Register a reducer to be calculated by the scan.
+	 */
+	public synchronized void register(ForestReducer<?> reducer) {
+		reducers.add(reducer);
+	}
+	
+	/**
+	 * Remove a reducer from the scan.
+	 */
+	public synchronized void unregister(ForestReducer<?> reducer) {
+		reducers.remove(reducer);
+	}
+	
+	/**
+	 * Scan the forest and calculate the reductions provided.
+	 */
+	private void reduce(List<ForestReducer<?>> reducers) throws InterruptedException {
+		// Prepare the threads if the map has changed
+		int height = Forest.getInstance().getMapHeight();
+		if (scanThreads == null || scanHeight != height) {
+			prepareThreads(height);
+		}
+		
+		// Prepare the reducers, the partial states are created by the threads
+		working = reducers;
+		partials = new Object[threadCount][];
+		for (ForestReducer<?> reducer : working) {
+			reducer.reset();
+		}
+		
+		// Map
+		service.invokeAll(scanThreads);
+		
+		// Reduce, in thread order
+		for (int thread = 0; thread < threadCount; thread++) {
+			for (int ndx = 0; ndx < working.size(); ndx++) {
+				merge(working.get(ndx), partials[thread][ndx]);
+			}
+		}
+		partials = null;
+		working = null;
+	}
+	
+	/**
+	 * Accumulate the stand using the reducer provided.
+	 */
+	@SuppressWarnings("unchecked")
+	private static <P> void accumulate(ForestReducer<P> reducer, Object partial, Stand stand, int parcel) {
+		reducer.accumulate((P)partial, stand, parcel);
+	}
+	
+	/**
+	 * Merge the partial state using the reducer provided.
+	 */
+	@SuppressWarnings("unchecked")
+	private static <P> void merge(ForestReducer<P> reducer, Object partial) {
+		reducer.merge((P)partial);
+	}
+	
+	/**
+	 * Prepare the threads that are used to scan the forest.
+	 */
+	private void prepareThreads(int height) {
+		int range = height / threadCount;
+		scanThreads = new ArrayList<Callable<Void>>();
+		for (int ndx = 0; ndx < threadCount; ndx++) {
+			final int start = ndx * range;
+			final int end = (ndx < threadCount - 1) ? (ndx + 1) * range : height;
+			final int thread = ndx;
+			scanThreads.add(new Callable<Void>() {
+				public Void call() throws Exception {
+					scan(start, end, thread);
+					return null;
+				}
+			});
+		}
+		scanHeight = height;
+	}
+	
+	/**
+	 * Scan the portion of the forest provided, accumulating into the partial states of the thread.
+	 */
+	private void scan(int start, int end, int thread) {
+		Forest forest = Forest.getInstance();
+		IntGrid2D landCover = (IntGrid2D)forest.getLandCover().getGrid();
+		DoubleGrid2D dbh = (DoubleGrid2D)forest.getStandDbhMap().getGrid();
+		IntGrid2D stocking = (IntGrid2D)forest.getStockingMap().getGrid();
+		IntGrid2D treeCount = forest.getTreeCountMap();
+		IntGrid2D standAge = (IntGrid2D)forest.getStandAgeMap().getGrid();
+		IntGrid2D owners = ParcelIndex.getInstance().getOwnershipMap();
+		
+		// Create the partial states in this thread so they are not allocated next to those of other threads
+		Object[] partial = new Object[working.size()];
+		for (int reducer = 0; reducer < partial.length; reducer++) {
+			partial[reducer] = working.get(reducer).createPartial();
+		}
+		partials[thread] = partial;
+		
+		// The stand is reused for each pixel to avoid allocating one per pixel 
+		Stand stand = new Stand();
+		stand.point = new Point();
+		
+		for (int ndx = 0; ndx < forest.getMapWidth(); ndx++) {
+			for (int ndy = start; ndy < end; ndy++) {
+				int nlcd = landCover.get(ndx, ndy);
+				if (!NlcdClassification.isWoodyBiomass(nlcd)) {
+					continue;
+				}
+				
+				stand.point.setLocation(ndx, ndy);
+				stand.nlcd = nlcd;
+				stand.arithmeticMeanDiameter = dbh.get(ndx, ndy);
+				stand.stocking = stocking.get(ndx, ndy);
+				stand.numberOfTrees = treeCount.get(ndx, ndy);
+				stand.age = standAge.get(ndx, ndy);
+				stand.dominateSpecies = forest.getGrowthModel().getSpecies(nlcd);
+				int parcel = (owners != null) ? owners.get(ndx, ndy) : -1;
+				
+				for (int reducer = 0; reducer < partial.length; reducer++) {
+					accumulate(working.get(reducer), partial[reducer], stand, parcel);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,37 @@
+package edu.mtu.measures;
+
+import edu.mtu.environment.Stand;
+
+/**
+ * This class defines a reduction that is calculated by ForestMetrics during a single scan of the forest. 
+ * Each thread accumulates into its own partial state, and the partial states are then merged into the 
+ * result in thread order so the result is deterministic for a given number of threads.
+ * 
+ * @param <P> The type of the partial state.
+ */
+public abstract class ForestReducer<P> {
+	
+	/**
+	 * Accumulate the stand into the partial state provided.
+	 * 
+	 * @param partial The partial state of the thread.
+	 * @param stand The stand being scanned, note this object is reused between calls.
+	 * @param parcel The index of the parcel that owns the stand, or -1 if it is not owned.
+	 */
+	public abstract void accumulate(P partial, Stand stand, int parcel);
+	
+	/**
+	 * Create the partial state to be used by a single thread.
+	 */
+	public abstract P createPartial();
+	
+	/**
+	 * Merge the partial state provided into the result.
+	 */
+	public abstract void merge(P partial);
+	
+	/**
+	 * Clear the result in preparation for a new scan.
+	 */
+	public abstract void reset();
+}
@@ -0,0 +1,72 @@
+package edu.mtu.measures;
+
+import edu.mtu.environment.Stand;
+
+/**
+ * This reducer calculates a histogram of a value across the woody stands in the forest. Values that
+ * fall outside of the range of the histogram are counted in the first or last bin.
+ */
+public abstract class HistogramReducer extends ForestReducer<long[]> {
+	
+	private final double minimum;
+	private final double width;
+	private final long[] counts;
+	
+	/**
+	 * Constructor.
+	 * 
+	 * @param minimum The lower bound of the first bin.
+	 * @param width The width of each bin.
+	 * @param bins The number of bins.
+	 */
+	public HistogramReducer(double minimum, double width, int bins) {
+		this.minimum = minimum;
+		this.width = width;
+		counts = new long[bins];
+	}
+	
+	/**
+	 * Get the value of the stand to be binned.
+	 */
+	protected abstract double value(Stand stand);
+	
+	@Override
+	public void accumulate(long[] partial, Stand stand, int parcel) {
+		int bin = (int)Math.floor((value(stand) - minimum) / width);
+		bin = Math.max(0, Math.min(bin, partial.length - 1));
+		partial[bin]++;
+	}
+	
+	@Override
+	public long[] createPartial() {
+		return new long[counts.length];
+	}
+	
+	/**
+	 * Get the counts for each of the bins.
+	 */
+	public long[] getCounts() {
+		return counts;
+	}
+	
+	/**
+	 * Get the lower bound of the given bin.
+	 */
+	public double getLowerBound(int bin) {
+		return minimum + bin * width;
+	}
+	
+	@Override
+	public void merge(long[] partial) {
+		for (int ndx = 0; ndx < counts.length; ndx++) {
+			counts[ndx] += partial[ndx];
+		}
+	}
+	
+	@Override
+	public void reset() {
+		for (int ndx = 0; ndx < counts.length; ndx++) {
+			counts[ndx] = 0;
+		}
+	}
+}
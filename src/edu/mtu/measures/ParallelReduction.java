@@ -0,0 +1,99 @@
+package edu.mtu.measures;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * This class performs a parallel sum over a range of indices. Each task sums its portion of the range
+ * into a local value that is returned to the caller, so no accumulator is shared between the threads,
+ * and the partial sums are then combined in task order.
+ * 
+ * When reproducible, the range is split into blocks of a fixed size instead of one portion per thread 
+ * so the order of the floating point operations does not depend upon the number of threads.
+ */
+public class ParallelReduction {
+	
+	/**
+	 * The kernel that calculates the sum for a portion of the range.
+	 */
+	public interface Kernel {
+		/**
+		 * Calculate the sum for the indices from start (inclusive) to end (exclusive).
+		 */
+		double sum(int start, int end);
+	}
+	
+	private final ExecutorService service;
+	private final int threadCount;
+	
+	private boolean reproducible = false;
+	
+	/**
+	 * Constructor.
+	 * 
+	 * @param service The executor to run the tasks on.
+	 * @param threadCount The number of threads used by the executor.
+	 */
+	public ParallelReduction(ExecutorService service, int threadCount) {
+		this.service = service;
+		this.threadCount = threadCount;
+	}
+	
+	/**
+	 * True if the sum is independent of the number of threads, false otherwise.
+	 */
+	public boolean isReproducible() {
+		return reproducible;
+	}
+	
+	/**
+	 * Set the flag to indicate if the sum should be independent of the number of threads.
+	 */
+	public void setReproducible(boolean value) {
+		reproducible = value;
+	}
+	
+	/**
+	 * Calculate the sum of the kernel over the range provided.
+	 * 
+	 * @param size The size of the range, the indices are from zero (inclusive) to size (exclusive).
+	 * @param blockSize The size of the blocks to use when reproducible.
+	 * @param kernel The kernel to calculate the sum for a portion of the range.
+	 * @return The sum of the partial sums, in task order.
+	 */
+	public double sum(int size, int blockSize, final Kernel kernel) throws InterruptedException {
+		// Determine how the range is to be split
+		int tasks = reproducible ? (size + blockSize - 1) / blockSize : threadCount;
+		int range = reproducible ? blockSize : size / threadCount;
+		
+		// Prepare the tasks, the last task takes any remainder
+		List<Callable<Double>> callables = new ArrayList<Callable<Double>>(tasks);
+		for (int ndx = 0; ndx < tasks; ndx++) {
+			final int start = ndx * range;
+			final int end = (ndx < tasks - 1) ? (ndx + 1) * range : size;
+			callables.add(new Callable<Double>() {
+				public Double call() throws Exception {
+					return kernel.sum(start, end);
+				}
+			});
+		}
+		
+		// Map
+		List<Future<Double>> results = service.invokeAll(callables);
+		
+		// Reduce
+		double sum = 0;
+		try {
+			for (Future<Double> result : results) {
+				sum += result.get();
+			}
+		} catch (ExecutionException ex) {
+			throw new RuntimeException("An error occurred in a reduction task.", ex.getCause());
+		}
+		return sum;
+	}
+}
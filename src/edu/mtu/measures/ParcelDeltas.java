@@ -0,0 +1,64 @@
+package edu.mtu.measures;
+
+/**
+ * This class holds the pending changes to one or more per-parcel fields from a single thread. The parcels
+ * that are changed are noted as they are first touched, so that committing the changes is proportional
+ * to the parcels the thread touched rather than to the number of parcels in the model.
+ */
+class ParcelDeltas {
+
+	// Pending changes, indexed by field then parcel
+	private final double[][] values;
+
+	// Parcels that have pending changes
+	private final boolean[] marked;
+	private final int[] touched;
+	private int count;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param fields The number of fields that are tracked.
+	 * @param parcels The number of parcels in the model.
+	 */
+	public ParcelDeltas(int fields, int parcels) {
+		values = new double[fields][parcels];
+		marked = new boolean[parcels];
+		touched = new int[parcels];
+	}
+
+	/**
+	 * Add the change to the field of the parcel.
+	 */
+	public void add(int field, int parcel, double value) {
+		if (!marked[parcel]) {
+			marked[parcel] = true;
+			touched[count++] = parcel;
+		}
+		values[field][parcel] += value;
+	}
+
+	/**
+	 * Apply the pending changes to the totals provided and clear them.
+	 *
+	 * @param totals The totals for each field, indexed by field then parcel.
+	 */
+	public void commit(double[]... totals) {
+		for (int ndx = 0; ndx < count; ndx++) {
+			int parcel = touched[ndx];
+			for (int field = 0; field < values.length; field++) {
+				totals[field][parcel] += values[field][parcel];
+				values[field][parcel] = 0;
+			}
+			marked[parcel] = false;
+		}
+		count = 0;
+	}
+
+	/**
+	 * Get the number of parcels with pending changes.
+	 */
+	public int getTouched() {
+		return count;
+	}
+}
@@ -0,0 +1,202 @@
+package edu.mtu.measures;
+
+import edu.mtu.environment.Forest;
+import edu.mtu.environment.ParcelIndex;
+import sim.field.grid.DoubleGrid2D;
+import sim.field.grid.IntGrid2D;
+
+/**
+ * This class keeps running sums of the stand age, DBH, stocking, and tree count for each parcel. The sums 
+ * are updated with the changes made by the forest as it grows, is harvested, thinned, or restocked so that 
+ * the parcel averages are available without scanning the pixels of the parcel. Biomass is provided by 
+ * the BiomassLedger.
+ * 
+ * Pixels are attributed to the parcel that owns them in the ownership map of the parcel index.
+ */
+public class ParcelSummaries {
+	
+	// Indices of the sums
+	private final static int Age = 0;
+	private final static int Dbh = 1;
+	private final static int Stocking = 2;
+	private final static int Trees = 3;
+	private final static int Fields = 4;
+	
+	private static ParcelSummaries instance = new ParcelSummaries();
+	
+	// Number of pixels and the running sums for each parcel
+	private int[] pixels;
+	private double[][] sums;
+	
+	// Pending changes for each of the forest threads
+	private ParcelDeltas[] deltas = new ParcelDeltas[0];
+	
+	private IntGrid2D owners;
+	
+	/**
+	 * Constructor.
+	 */
+	private ParcelSummaries() { }
+	
+	/**
+	 * Get an instance of the parcel summaries.
+	 */
+	public static ParcelSummaries getInstance() {
+		return instance;
+	}
+	
+	/**
+	 * Apply a change at the given pixel directly to the sums. 
+	 * 
+	 * NOTE: This should only be used from the simulation thread.
+	 */
+	public void adjust(int x, int y, double age, double dbh, double trees) {
+		if (sums == null) {
+			return;
+		}
+		int parcel = owners.get(x, y);
+		if (parcel != -1) {
+			sums[Age][parcel] += age;
+			sums[Dbh][parcel] += dbh;
+			sums[Trees][parcel] += trees;
+		}
+	}
+	
+	/**
+	 * Apply the pending changes from the forest threads to the sums.
+	 */
+	public void commit() {
+		if (sums == null) {
+			return;
+		}
+		for (ParcelDeltas delta : deltas) {
+			delta.commit(sums);
+		}
+	}
+	
+	/**
+	 * Get the average age of the stands in the parcel.
+	 */
+	public double getAverageAge(int parcel) {
+		return average(Age, parcel);
+	}
+	
+	/**
+	 * Get the average DBH of the stands in the parcel, in cm.
+	 */
+	public double getAverageDbh(int parcel) {
+		return average(Dbh, parcel);
+	}
+	
+	/**
+	 * Get the average stocking condition of the stands in the parcel.
+	 */
+	public double getAverageStocking(int parcel) {
+		return average(Stocking, parcel);
+	}
+	
+	/**
+	 * Get the biomass of the parcel, in kg (dry weight).
+	 */
+	public double getBiomass(int parcel) {
+		return BiomassLedger.getInstance().getAgentBiomass(parcel);
+	}
+	
+	/**
+	 * Get the number of pixels owned by the parcel.
+	 */
+	public int getPixelCount(int parcel) {
+		return pixels[parcel];
+	}
+	
+	/**
+	 * Get the number of trees in the parcel.
+	 */
+	public long getTreeCount(int parcel) {
+		return Math.round(sums[Trees][parcel]);
+	}
+	
+	/**
+	 * Prepare the pending changes for the given number of forest threads.
+	 */
+	public void prepare(int threads) {
+		int parcels = (pixels != null) ? pixels.length : 0;
+		deltas = new ParcelDeltas[threads];
+		for (int ndx = 0; ndx < threads; ndx++) {
+			deltas[ndx] = new ParcelDeltas(Fields, parcels);
+		}
+	}
+	
+	/**
+	 * Record a change in the stand at the given pixel from a growth thread.
+	 * 
+	 * @param thread The index of the thread.
+	 * @param x The x coordinate of the pixel.
+	 * @param y The y coordinate of the pixel.
+	 * @param age The change in the stand age.
+	 * @param dbh The change in the stand DBH, in cm.
+	 * @param trees The change in the number of trees.
+	 */
+	public void record(int thread, int x, int y, double age, double dbh, double trees) {
+		if (sums == null) {
+			return;
+		}
+		int parcel = owners.get(x, y);
+		if (parcel != -1) {
+			ParcelDeltas delta = deltas[thread];
+			delta.add(Age, parcel, age);
+			delta.add(Dbh, parcel, dbh);
+			delta.add(Trees, parcel, trees);
+		}
+	}
+	
+	/**
+	 * Record a change in the stocking condition at the given pixel from a stocking thread.
+	 */
+	public void recordStocking(int thread, int x, int y, double stocking) {
+		if (sums == null) {
+			return;
+		}
+		int parcel = owners.get(x, y);
+		if (parcel != -1) {
+			deltas[thread].add(Stocking, parcel, stocking);
+		}
+	}
+	
+	/**
+	 * Rebuild the sums from the current state of the forest, the parcel index must be prepared first.
+	 */
+	public void rebuild() {
+		Forest forest = Forest.getInstance();
+		owners = ParcelIndex.getInstance().getOwnershipMap();
+		int parcels = ParcelIndex.getInstance().getParcelCount();
+		pixels = new int[parcels];
+		sums = new double[Fields][parcels];
+		prepare(deltas.length);
+		
+		DoubleGrid2D dbh = (DoubleGrid2D)forest.getStandDbhMap().getGrid();
+		IntGrid2D stocking = (IntGrid2D)forest.getStockingMap().getGrid();
+		IntGrid2D age = (IntGrid2D)forest.getStandAgeMap().getGrid();
+		IntGrid2D trees = forest.getTreeCountMap();
+		for (int ndx = 0; ndx < forest.getMapWidth(); ndx++) {
+			for (int ndy = 0; ndy < forest.getMapHeight(); ndy++) {
+				int parcel = owners.get(ndx, ndy);
+				if (parcel == -1) {
+					continue;
+				}
+				pixels[parcel]++;
+				sums[Age][parcel] += age.get(ndx, ndy);
+				sums[Dbh][parcel] += dbh.get(ndx, ndy);
+				sums[Stocking][parcel] += stocking.get(ndx, ndy);
+				sums[Trees][parcel] += trees.get(ndx, ndy);
+			}
+		}
+	}
+	
+	/**
+	 * Get the average of the field for the parcel, or zero if the parcel has no pixels.
+	 */
+	private double average(int field, int parcel) {
+		return (pixels[parcel] != 0) ? sums[field][parcel] / pixels[parcel] : 0;
+	}
+}
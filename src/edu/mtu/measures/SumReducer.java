@@ -0,0 +1,61 @@
+package edu.mtu.measures;
+
+import edu.mtu.environment.Stand;
+
+/**
+ * This reducer calculates the sum and mean of a value across the woody stands in the forest.
+ */
+public abstract class SumReducer extends ForestReducer<double[]> {
+	
+	private double sum;
+	private long count;
+	
+	/**
+	 * Get the value of the stand to be summed.
+	 */
+	protected abstract double value(Stand stand);
+	
+	@Override
+	public void accumulate(double[] partial, Stand stand, int parcel) {
+		partial[0] += value(stand);
+		partial[1]++;
+	}
+	
+	@Override
+	public double[] createPartial() {
+		return new double[2];
+	}
+	
+	/**
+	 * Get the number of stands included in the sum.
+	 */
+	public long getCount() {
+		return count;
+	}
+	
+	/**
+	 * Get the mean of the value, or zero if there are no stands.
+	 */
+	public double getMean() {
+		return (count != 0) ? sum / count : 0;
+	}
+	
+	/**
+	 * Get the sum of the value.
+	 */
+	public double getSum() {
+		return sum;
+	}
+	
+	@Override
+	public void merge(double[] partial) {
+		sum += partial[0];
+		count += (long)partial[1];
+	}
+	
+	@Override
+	public void reset() {
+		sum = 0;
+		count = 0;
+	}
+}
@@ -1,9 +1,12 @@
 package edu.mtu.policy;
 
+import java.io.Serializable;
+
 /**
  * This interface defines operations needed by ForestSim to manage a policy.
  */
-public abstract class PolicyBase {
+@SuppressWarnings("serial")
+public abstract class PolicyBase implements Serializable {
 
 	private Boolean isIntroduced = false;
 	
@@ -2,13 +2,18 @@ package edu.mtu.simulation;
 
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
+import javax.management.JMException;
+
 import com.vividsolutions.jts.geom.Envelope;
 import com.vividsolutions.jts.geom.Geometry;
 import com.vividsolutions.jts.geom.Point;
@@ -17,14 +22,23 @@ import ec.util.MersenneTwisterFast;
 import edu.mtu.environment.Forest;
 import edu.mtu.environment.GrowthModel;
 import edu.mtu.environment.NlcdClassification;
+import edu.mtu.environment.ParcelIndex;
+import edu.mtu.measures.BiomassLedger;
+import edu.mtu.measures.ForestMeasuresParallel;
+import edu.mtu.measures.ParcelSummaries;
 import edu.mtu.policy.PolicyBase;
 import edu.mtu.simulation.parameters.ParameterBase;
+import edu.mtu.simulation.profiling.CsvProfilerSink;
+import edu.mtu.simulation.profiling.JmxProfilerSink;
+import edu.mtu.simulation.profiling.ProfileCategory;
+import edu.mtu.simulation.profiling.StepProfiler;
 import edu.mtu.steppables.AggregationStep;
 import edu.mtu.steppables.Environment;
 import edu.mtu.steppables.LandUseGeomWrapper;
 import edu.mtu.steppables.ParcelAgent;
 import edu.mtu.steppables.marketplace.HarvesterAgent;
 import edu.mtu.steppables.marketplace.Marketplace;
+import sim.engine.Schedule;
 import sim.engine.SimState;
 import sim.field.geo.GeomGridField;
 import sim.field.geo.GeomGridField.GridDataType;
@@ -41,8 +55,8 @@ public abstract class ForestSim extends SimState {
 	// Array of all agents active in the simulation
 	private ParcelAgent[] agents;
 			
-	// Geometry representing current land cover at high resolution
-	private GeomGridField coverLayer;
+	// Geometry representing current land cover at high resolution, restored from the forest on a checkpoint
+	private transient GeomGridField coverLayer;
 	
 	// Geometry assigned to assigned to agents to geo-locate their parcel
 	private GeomVectorField parcelLayer;
@@ -51,6 +65,24 @@ public abstract class ForestSim extends SimState {
 	private String coverFile;
 	private String outputDirectory;
 	private String parcelFile;	
+	
+	// The aggregation step, retained so the score card can be reattached after a checkpoint
+	private AggregationStep aggregation;
+	
+	// Flag to indicate the steppables were scheduled for the step profiler
+	private boolean profiled;
+	
+	// Score card used in place of the model's when the simulation is part of a scenario fork
+	private transient Scorecard scorecardOverride;
+	
+	// Flag to indicate the forest is captured separately, so it is left out of the checkpoint
+	private transient boolean excludeForest;
+	
+	// Listener for the phases of start, used to time them
+	private transient StartupListener startupListener;
+	
+	// Flag to indicate the model has finished, so finishing it again has no effect
+	private transient boolean finished;
 
 	/**
 	 * Create an economic agent for use by the simulation.
@@ -229,6 +261,11 @@ public abstract class ForestSim extends SimState {
 	 */
 	public String getParcelFilePath() { return parcelFile; }
 	
+	/**
+	 * Returns true if the model has finished, false otherwise.
+	 */
+	public boolean isFinished() { return finished; }
+	
 	/**
 	 * Get the random number generator that is used by the simulation.
 	 */
@@ -249,6 +286,21 @@ public abstract class ForestSim extends SimState {
 	 */
 	public void setParcelFilePath(String value) { parcelFile = value; } 
 	
+	/**
+	 * Set the flag to leave the forest out of checkpoints, for use by ScenarioFork only.
+	 */
+	void setExcludeForest(boolean value) { excludeForest = value; }
+	
+	/**
+	 * Set the score card to use in place of the model's, for use by ScenarioFork only.
+	 */
+	void setScorecardOverride(Scorecard value) { scorecardOverride = value; }
+	
+	/**
+	 * Set the listener to notify as each phase of start is completed.
+	 */
+	public void setStartupListener(StartupListener value) { startupListener = value; }
+	
 	/**
 	 * Set the parcel agents being used by the model, note that this is only intended
 	 * for use with overriding createParcelAgents since doing this wrong will break
@@ -256,31 +308,48 @@ public abstract class ForestSim extends SimState {
 	 */
 	protected void setParcelAgents(ParcelAgent[] value) { agents = value; }
 	
+	/**
+	 * Set the land cover used to locate the pixels of the parcels, note that this is 
+	 * only intended for use when the agents are created without calling start.
+	 */
+	protected void setCoverLayer(GeomGridField value) { coverLayer = value; }
+	
 	/**
 	 * Prepare the model to be run.
 	 */
 	public void start() {
 		super.start();
+		finished = false;
 
 		// Hold off on getting these since a user may edit them
 		coverFile = getDefaultCoverFile();
 		outputDirectory = getDefaultOutputDirectory();
 		parcelFile = getDefaultParcelFile();
+		phaseCompleted("startup");
 		
 		// Import all the GIS layers used in the simulation
 		importVectorLayers();
 		importRasterLayers();
+		phaseCompleted("import");
 		
 		// Inform the model that it should prepare itself
 		initialize();
+		ForestMeasuresParallel.setReproducible(getBaseParameters().getReproducibleMeasures());
+		prepareProfiler(false);
+		phaseCompleted("initialize");
 				
 		try {
 			// Create the forest model
 			Forest.getInstance().calculateInitialStands(coverLayer, getGrowthModel());	
+			phaseCompleted("forest");
 			
 			// Create the agents and assign one agent to each parcel
 			createParcelAgents();
 			
+			// Index the parcels that are held by the agents
+			indexParcels();
+			phaseCompleted("agents");
+			
 		} catch (InterruptedException ex) {
 			System.err.println("An error occurred generating the forest: " + ex);
 			System.exit(-1);
@@ -290,10 +359,11 @@ public abstract class ForestSim extends SimState {
 		}
 				
 		// Check to see how the marketplace is configured
+		StepProfiler profiler = StepProfiler.getInstance();
 		if (useAggregateHarvester()) {
 			// This is an aggregation model, only the one harvester is needed
 			HarvesterAgent harvester = HarvesterAgent.getInstance();
-			schedule.scheduleRepeating(harvester);
+			schedule.scheduleRepeating(profiler.wrap(ProfileCategory.HARVESTER, harvester));
 		} else {
 			try {
 				// This is a marketplace model, defer agent initialization to the modeler
@@ -310,34 +380,158 @@ public abstract class ForestSim extends SimState {
 				
 		// Create the environment agent
 		Environment enviorment = new Environment();
-		schedule.scheduleRepeating(enviorment);
+		schedule.scheduleRepeating(profiler.wrap(ProfileCategory.ENVIRONMENT, enviorment));
 		
 		// Schedule the aggregation step with a score card if one is provided
-		AggregationStep aggregation = new AggregationStep();
-		Scorecard scoreCard = getScoreCard();
+		aggregation = new AggregationStep();
+		Scorecard scoreCard = (scorecardOverride != null) ? scorecardOverride : getScoreCard();
 		if (scoreCard != null) {
 			scoreCard.processInitialization(this);
-			aggregation.setScorecard(getScoreCard());
+			aggregation.setScorecard(scoreCard);
+		}
+		schedule.scheduleRepeating(profiler.wrap(ProfileCategory.AGGREGATION, aggregation));
+		
+		// The profiler completes each step after everything else has run
+		profiled = profiler.isEnabled();
+		if (profiled) {
+			schedule.scheduleRepeating(Schedule.EPOCH, StepProfiler.StepEndOrdering, profiler.getStepEnd());
 		}
-		schedule.scheduleRepeating(aggregation);
 
 		// Align the MBRs so layers line up in the display
 		Envelope globalMBR = parcelLayer.getMBR();
 		globalMBR.expandToInclude(coverLayer.getMBR());
 		parcelLayer.setMBR(globalMBR);
 		coverLayer.setMBR(globalMBR);
+		phaseCompleted("schedule");
 		
 		// Advise garbage collection before the model starts
 		System.gc();		
 	}
 	
 	/**
-	 * Update the global geography with that of the given agent.
+	 * Finish the model, the step profiler is flushed and its sinks are closed. Note that the time of the
+	 * final step of the aggregation does not include the finalization of the score card. A model that is
+	 * stopped before the final time step has its score card finalized at the last step that was completed,
+	 * and only the first call has any effect.
+	 */
+	@Override
+	public void finish() {
+		if (finished) {
+			return;
+		}
+		finished = true;
+		if (aggregation != null) {
+			aggregation.complete(this, schedule.getSteps());
+		}
+		super.finish();
+		StepProfiler.getInstance().finish();
+	}
+	
+	/**
+	 * Prepare the model to resume from a checkpoint, the forest and singletons have already been restored 
+	 * by the time this is called so only the derived state needs to be rebuilt.
+	 */
+	@Override
+	public void awakeFromCheckpoint() {
+		super.awakeFromCheckpoint();
+		
+		coverLayer = Forest.getInstance().getLandCover();
+		ForestMeasuresParallel.setReproducible(getBaseParameters().getReproducibleMeasures());
+		
+		// The timed steppables are part of the schedule, so only the sinks need to be reattached
+		prepareProfiler(true);
+		if (StepProfiler.getInstance().isEnabled() && !profiled) {
+			System.err.println("WARNING: the model was started without the step profiler, no steps will be profiled.");
+		}
+		
+		try {
+			indexParcels();
+		} catch (InterruptedException ex) {
+			System.err.println("An error occurred restoring the forest: " + ex);
+			System.exit(-1);
+		}
+		
+		// A forked scenario continues with the score card that was initialized for it
+		if (scorecardOverride != null) {
+			aggregation.setScorecard(scorecardOverride);
+			return;
+		}
+		
+		// Output is appended to from the current step onward
+		Scorecard scoreCard = getScoreCard();
+		if (scoreCard != null) {
+			scoreCard.processInitialization(this);
+			aggregation.setScorecard(scoreCard);
+		}
+	}
+	
+	/**
+	 * Read the state of any singletons used by the model from the checkpoint, models that extend this 
+	 * method must read their singletons after calling it.
+	 */
+	protected void readSingletons(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		HarvesterAgent.setInstance((HarvesterAgent)in.readObject());
+		Marketplace.setInstance((Marketplace)in.readObject());
+		ParcelIndex.getInstance().setThresholds((double[])in.readObject());
+	}
+	
+	/**
+	 * Write the state of any singletons used by the model to the checkpoint, models that extend this 
+	 * method must write their singletons after calling it.
+	 */
+	protected void writeSingletons(ObjectOutputStream out) throws IOException {
+		out.writeObject(HarvesterAgent.getInstance());
+		out.writeObject(Marketplace.getInstance());
+		out.writeObject(ParcelIndex.getInstance().getThresholds());
+	}
+	
+	/**
+	 * Restore the singletons and the forest, whose rasters follow the serialized state as raw blocks.
+	 */
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		readSingletons(in);
+		GrowthModel growthModel = (GrowthModel)in.readObject();
+		if (in.readBoolean()) {
+			Forest.getInstance().restore(in, growthModel);
+		} else {
+			Forest.getInstance().setGrowthModel(growthModel);
+		}
+	}
+	
+	/**
+	 * Write the singletons and the forest along with the state, the rasters are written as raw blocks
+	 * rather than serialized so that large forests can be checkpointed and restored quickly.
+	 */
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		out.defaultWriteObject();
+		writeSingletons(out);
+		out.writeObject(Forest.getInstance().getGrowthModel());
+		out.writeBoolean(!excludeForest);
+		if (!excludeForest) {
+			Forest.getInstance().checkpoint(out);
+		}
+	}
+	
+	/**
+	 * Push any changed parcel attributes to the geometries of the parcel layer, consumers of the 
+	 * attributes (e.g., exports, UI) should call this before reading them. 
+	 */
+	public void synchronizeParcelAttributes() {
+		for (ParcelAgent agent : agents) {
+			if (agent != null) {
+				agent.updateShapefile();
+			}
+		}
+	}
+	
+	/**
+	 * Update the global geography with that of the given agent, note that the attributes are not pushed 
+	 * to the geometry until synchronizeParcelAttributes is called.
 	 * 
 	 * @param agent The agent whose geography has been updated.
 	 */
 	public void updateAgentGeography(ParcelAgent agent) {
-		agent.getGeometry().updateShpaefile();
 		int index = agent.getGeometry().getIndex();
 		parcelLayer.getGeometries().objs[index] = agent.getGeometry();
 	}
@@ -403,7 +597,6 @@ public abstract class ForestSim extends SimState {
 			 agent = createEcosystemsAgent(random, lu);
 		}
 		agent.createCoverPoints(xPos, yPos);
-		agent.getGeometry().updateShpaefile();
 		return agent;
 	}
 
@@ -473,9 +666,12 @@ public abstract class ForestSim extends SimState {
 			// Update the global geometry with the agents updates
 			geometries.objs[ndx] = agent.getGeometry();
 			
-			// Schedule the agent
+			// Schedule the agent, the first step is deferred until the agent is phased in
 			working.add(agent);
-			schedule.scheduleRepeating(agent);
+			long start = agent.calculatePhaseInStep(new MersenneTwisterFast(seed() + ndx));
+			if (start != Long.MAX_VALUE) {
+				schedule.scheduleRepeating(start, StepProfiler.getInstance().wrap(ProfileCategory.AGENTS, agent));
+			}
 		}
 		
 		// Reconcile the working list of agents with the actual list
@@ -495,6 +691,63 @@ public abstract class ForestSim extends SimState {
 		}
 	}
 	
+	/**
+	 * Index the parcels of the agents so the summaries and biomass can be maintained by the forest.
+	 */
+	private void indexParcels() throws InterruptedException {
+		java.awt.Point[][] parcels = new java.awt.Point[agents.length][];
+		for (ParcelAgent agent : agents) {
+			if (agent == null) {
+				continue;
+			}
+			parcels[agent.getGeometry().getIndex()] = agent.getParcel();
+		}
+		
+		Forest forest = Forest.getInstance();
+		ParcelIndex.getInstance().setParcels(parcels, forest.getMapWidth(), forest.getMapHeight());
+		ParcelIndex.getInstance().update();
+		
+		// The biomass ledger and parcel summaries depend upon the parcels, so they can now be prepared
+		BiomassLedger.getInstance().setAudit(getBaseParameters().getAuditBiomass());
+		BiomassLedger.getInstance().rebuild();
+		ParcelSummaries.getInstance().rebuild();
+	}
+	
+	/**
+	 * Prepare the step profiler with the sinks given by the parameters, profiling is disabled if there are none.
+	 * 
+	 * @param resume True if the model is resuming from a checkpoint, so the profile is appended to.
+	 */
+	private void prepareProfiler(boolean resume) {
+		StepProfiler profiler = StepProfiler.getInstance();
+		profiler.reset();
+		for (String sink : getBaseParameters().getStepProfile().split(",")) {
+			try {
+				switch (sink.trim().toLowerCase()) {
+				case "": break;
+				case "csv": profiler.addSink(new CsvProfilerSink(outputDirectory, resume)); break;
+				case "jmx": profiler.addSink(new JmxProfilerSink()); break;
+				default: System.err.println("WARNING: unknown step profile sink, " + sink.trim());
+				}
+			} catch (IOException ex) {
+				System.err.println("Unhandled IOException: " + ex.toString());
+				System.exit(-1);
+			} catch (JMException ex) {
+				System.err.println("Unable to register the step profiler: " + ex);
+				System.exit(-1);
+			}
+		}
+	}
+	
+	/**
+	 * Notify the listener, if any, that a phase of start has been completed.
+	 */
+	private void phaseCompleted(String phase) {
+		if (startupListener != null) {
+			startupListener.phaseCompleted(phase);
+		}
+	}
+	
 	/**
 	 * We expect this method to be over-ridden by the model if it is called, 
 	 * just throw an exception to let the modeler know we were called.
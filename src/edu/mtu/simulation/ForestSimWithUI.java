@@ -83,6 +83,16 @@ public class ForestSimWithUI extends GUIState {
 		setupPortrayals();
 	}
 	
+	/**
+	 * Step the model and push the changed parcel attributes so they can be inspected.
+	 */
+	@Override
+	public boolean step() {
+		boolean result = super.step();
+		((ForestSim)state).synchronizeParcelAttributes();
+		return result;
+	}
+	
 	/**
 	 * Add the basic portrayals.
 	 */
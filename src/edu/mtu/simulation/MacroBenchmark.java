@@ -0,0 +1,303 @@
+package edu.mtu.simulation;
+
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * This class runs a model headless for a fixed number of steps and reports the wall time of each phase of
+ * start and of each step, the steps per second, the peak heap, and the allocation rate. The results can be
+ * saved as a baseline, and later runs compared against it so that regressions in throughput fail the run.
+ *
+ * Metrics are compared in the direction that is worse, rates (per second) must not drop and everything else
+ * must not grow, by more than the tolerance. Times that are too short to measure reliably are not compared.
+ */
+public class MacroBenchmark {
+
+	// Exit code used when a regression is found
+	public final static int RegressionExitCode = 1;
+
+	// Default tolerance for regressions, as a fraction of the baseline
+	private final static double defaultTolerance = 0.10;
+
+	// Time metrics below this value, in ms, are not compared
+	private final static double minimumTime = 10.0;
+
+	private final static double nanoToMilli = 1e-6;
+	private final static double bytesToMegabytes = 1.0 / (1024 * 1024);
+
+	private final ForestSim model;
+	private final int steps;
+
+	private Map<String, Double> metrics = new LinkedHashMap<String, Double>();
+	private double[] stepTimes;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param model A model that has not been started.
+	 * @param steps The number of steps to run, the run ends early if the model does.
+	 */
+	public MacroBenchmark(ForestSim model, int steps) {
+		this.model = model;
+		this.steps = steps;
+	}
+
+	/**
+	 * Get the metrics of the run, in the order they were recorded.
+	 */
+	public Map<String, Double> getMetrics() { return metrics; }
+
+	/**
+	 * Get the wall time of each step, in ms.
+	 */
+	public double[] getStepTimes() { return stepTimes; }
+
+	/**
+	 * Run the model, recording the metrics.
+	 */
+	public void run() {
+		resetPeakHeap();
+		long allocated = getAllocatedBytes();
+		final long started = System.nanoTime();
+
+		// Time the phases of start
+		final long[] last = new long[] { started };
+		model.setStartupListener(new StartupListener() {
+			public void phaseCompleted(String phase) {
+				long now = System.nanoTime();
+				metrics.put("phase." + phase + ".ms", (now - last[0]) * nanoToMilli);
+				last[0] = now;
+			}
+		});
+		model.start();
+		long now = System.nanoTime();
+		metrics.put("phase.gc.ms", (now - last[0]) * nanoToMilli);
+		metrics.put("start.ms", (now - started) * nanoToMilli);
+		model.setStartupListener(null);
+
+		// Time each of the steps
+		double[] times = new double[steps];
+		int count = 0;
+		long stepping = System.nanoTime();
+		while (count < steps && !model.isFinished()) {
+			long start = System.nanoTime();
+			boolean running = model.schedule.step(model);
+			times[count++] = (System.nanoTime() - start) * nanoToMilli;
+			if (!running) {
+				break;
+			}
+		}
+		long finished = System.nanoTime();
+		
+		// A model that reached its final time step has already finished, otherwise the score card is finalized
+		if (!model.isFinished()) {
+			model.finish();
+		}
+		stepTimes = Arrays.copyOf(times, count);
+
+		// Summarize the steps
+		double[] sorted = stepTimes.clone();
+		Arrays.sort(sorted);
+		double total = (finished - stepping) * nanoToMilli;
+		metrics.put("steps", (double)count);
+		metrics.put("step.mean.ms", (count != 0) ? total / count : 0.0);
+		metrics.put("step.min.ms", (count != 0) ? sorted[0] : 0.0);
+		metrics.put("step.median.ms", (count != 0) ? sorted[count / 2] : 0.0);
+		metrics.put("step.max.ms", (count != 0) ? sorted[count - 1] : 0.0);
+		metrics.put("steps.per.second", (total != 0) ? count / (total / 1000.0) : 0.0);
+
+		// Memory use over the whole run
+		double seconds = (finished - started) * nanoToMilli / 1000.0;
+		metrics.put("heap.peak.mb", getPeakHeap() * bytesToMegabytes);
+		if (allocated >= 0) {
+			metrics.put("allocation.mb.per.second", (getAllocatedBytes() - allocated) * bytesToMegabytes / seconds);
+		}
+	}
+
+	/**
+	 * Compare the metrics against the baseline, printing any regressions.
+	 *
+	 * @param baseline The baseline metrics.
+	 * @param tolerance The fraction by which a metric may be worse than the baseline.
+	 * @return True if no regressions were found, false otherwise.
+	 */
+	public boolean compare(Map<String, Double> baseline, double tolerance) {
+		boolean passed = true;
+		System.out.println(String.format("%-28s %14s %14s %9s", "Metric", "Baseline", "Current", "Change"));
+		for (String key : metrics.keySet()) {
+			if (!baseline.containsKey(key) || key.equals("steps")) {
+				continue;
+			}
+			double expected = baseline.get(key);
+			double actual = metrics.get(key);
+			double change = (expected != 0) ? (actual - expected) / expected : 0.0;
+
+			// Rates should not drop, everything else should not grow
+			boolean higherIsBetter = key.endsWith("per.second") && !key.startsWith("allocation");
+			double worse = higherIsBetter ? -change : change;
+			boolean measurable = !key.endsWith(".ms") || Math.max(expected, actual) >= minimumTime;
+			boolean regressed = measurable && worse > tolerance;
+			System.out.println(String.format("%-28s %14.3f %14.3f %+8.1f%%%s", key, expected, actual, change * 100,
+					regressed ? "  REGRESSION" : ""));
+			passed &= !regressed;
+		}
+		if (!passed) {
+			System.err.println("REGRESSION: one or more metrics are more than " + (tolerance * 100) + "% worse than the baseline.");
+		}
+		return passed;
+	}
+
+	/**
+	 * Print the metrics of the run.
+	 */
+	public void print() {
+		for (Map.Entry<String, Double> entry : metrics.entrySet()) {
+			System.out.println(String.format("%-28s %14.3f", entry.getKey(), entry.getValue()));
+		}
+	}
+
+	/**
+	 * Write the metrics to the given file, the time of each step is included if requested.
+	 */
+	public void write(String fileName, boolean includeSteps) throws IOException {
+		Properties properties = new Properties();
+		for (Map.Entry<String, Double> entry : metrics.entrySet()) {
+			properties.setProperty(entry.getKey(), Double.toString(entry.getValue()));
+		}
+		if (includeSteps) {
+			for (int ndx = 0; ndx < stepTimes.length; ndx++) {
+				properties.setProperty(String.format("step.%04d.ms", ndx + 1), Double.toString(stepTimes[ndx]));
+			}
+		}
+		try (OutputStream out = new FileOutputStream(fileName)) {
+			properties.store(out, "ForestSim macro benchmark, " + model.getClass().getName() + ", seed " + model.seed());
+		}
+	}
+
+	/**
+	 * Read the metrics from a baseline file.
+	 */
+	public static Map<String, Double> read(String fileName) throws IOException {
+		Properties properties = new Properties();
+		try (InputStream in = new FileInputStream(fileName)) {
+			properties.load(in);
+		}
+		Map<String, Double> metrics = new LinkedHashMap<String, Double>();
+		for (String key : properties.stringPropertyNames()) {
+			metrics.put(key, Double.parseDouble(properties.getProperty(key)));
+		}
+		return metrics;
+	}
+
+	/**
+	 * Bootstrapped loader for running the benchmark from the command line. Accepts -seed, -steps (default 50),
+	 * -report to write the metrics and step times, -save-baseline to write the baseline, and -baseline with
+	 * an optional -tolerance (default 0.10) to compare against it, and -profile to enable the step profiler
+	 * with the given sinks (ex., csv). The process exits with RegressionExitCode if a regression is found.
+	 *
+	 * @param model The model that extends ForestSim to benchmark.
+	 * @param args The arguments to be passed to the model.
+	 */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	public static void load(Class model, String[] args) {
+		long seed = System.currentTimeMillis();
+		int steps = 50;
+		double tolerance = defaultTolerance;
+		String baseline = null, report = null, save = null, profile = null;
+		for (int ndx = 0; ndx < args.length - 1; ndx++) {
+			switch (args[ndx]) {
+			case "-seed": seed = Long.parseLong(args[ndx + 1]); break;
+			case "-steps": steps = Integer.parseInt(args[ndx + 1]); break;
+			case "-tolerance": tolerance = Double.parseDouble(args[ndx + 1]); break;
+			case "-baseline": baseline = args[ndx + 1]; break;
+			case "-report": report = args[ndx + 1]; break;
+			case "-save-baseline": save = args[ndx + 1]; break;
+			case "-profile": profile = args[ndx + 1]; break;
+			}
+		}
+
+		boolean passed = true;
+		try {
+			System.out.println("Benchmarking " + model.getSimpleName() + " for " + steps + " steps, seed " + seed);
+			ForestSim state = (ForestSim)model.getConstructor(long.class).newInstance(seed);
+			if (profile != null) {
+				state.getBaseParameters().setStepProfile(profile);
+			}
+			MacroBenchmark benchmark = new MacroBenchmark(state, steps);
+			benchmark.run();
+			benchmark.print();
+
+			if (report != null) {
+				benchmark.write(report, true);
+			}
+			if (save != null) {
+				benchmark.write(save, false);
+			}
+			if (baseline != null) {
+				passed = benchmark.compare(read(baseline), tolerance);
+			}
+		} catch (ReflectiveOperationException ex) {
+			System.err.println("Unable to create the model: " + ex);
+			System.exit(-1);
+		} catch (IOException ex) {
+			System.err.println("Unhandled IOException: " + ex.toString());
+			System.exit(-1);
+		}
+		System.exit(passed ? 0 : RegressionExitCode);
+	}
+
+	/**
+	 * Get the bytes allocated by all live threads, or -1 if this is not supported by the JVM. Threads that 
+	 * exit during the run are not counted, but the thread pools used by the model are long lived.
+	 */
+	private static long getAllocatedBytes() {
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+			return -1;
+		}
+		com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean)threads;
+		if (!bean.isThreadAllocatedMemorySupported() || !bean.isThreadAllocatedMemoryEnabled()) {
+			return -1;
+		}
+		long total = 0;
+		for (long bytes : bean.getThreadAllocatedBytes(bean.getAllThreadIds())) {
+			total += Math.max(bytes, 0);
+		}
+		return total;
+	}
+
+	/**
+	 * Get the sum of the peak usage of the heap memory pools since they were last reset.
+	 */
+	private static long getPeakHeap() {
+		long peak = 0;
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP) {
+				peak += pool.getPeakUsage().getUsed();
+			}
+		}
+		return peak;
+	}
+
+	/**
+	 * Reset the peak usage of the heap memory pools.
+	 */
+	private static void resetPeakHeap() {
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP) {
+				pool.resetPeakUsage();
+			}
+		}
+	}
+}
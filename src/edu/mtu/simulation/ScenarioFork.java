@@ -0,0 +1,169 @@
+package edu.mtu.simulation;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.mtu.environment.Forest;
+import edu.mtu.environment.ForestState;
+
+/**
+ * This class runs several policy scenarios that share the same trajectory up to the activation of the
+ * policy. The shared trajectory is simulated once per seed, the full state of the simulation is captured
+ * in memory at the activation step, and each scenario is branched from a copy of that state. The forest is
+ * captured as a ForestState, the remainder of the simulation is serialized.
+ *
+ * Since the forest and marketplace are singletons the branches are run one after another.
+ */
+public class ScenarioFork {
+
+	/**
+	 * A scenario that can be branched from the shared trajectory.
+	 */
+	public interface Scenario {
+		/**
+		 * Create the score card for the scenario, it records the shared trajectory as well as the branch.
+		 */
+		Scorecard createScorecard();
+
+		/**
+		 * Apply the scenario (e.g., select the policy and output directory) to a copy of the shared state.
+		 */
+		void apply(ForestSim state);
+	}
+
+	/**
+	 * Bootstrapped loader for running forked scenarios from the command line, accepts the -seed and -repeat
+	 * arguments in the same manner as ForestSim.load.
+	 *
+	 * @param model The model that extends ForestSim to run the shared trajectory with.
+	 * @param scenarios The scenarios to branch from the shared trajectory.
+	 * @param args The arguments to be passed to the model.
+	 */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	public static void load(Class model, List<Scenario> scenarios, String[] args) {
+		long seed = System.currentTimeMillis();
+		int repeat = 1;
+		for (int ndx = 0; ndx < args.length - 1; ndx++) {
+			if (args[ndx].equals("-seed")) {
+				seed = Long.parseLong(args[ndx + 1]);
+			} else if (args[ndx].equals("-repeat")) {
+				repeat = Integer.parseInt(args[ndx + 1]);
+			}
+		}
+
+		try {
+			for (int job = 0; job < repeat; job++) {
+				System.out.println("Job " + job + ": forking " + scenarios.size() + " scenarios, seed " + (seed + job));
+				ForestSim trunk = (ForestSim)model.getConstructor(long.class).newInstance(seed + job);
+				run(trunk, scenarios);
+			}
+		} catch (ClassNotFoundException ex) {
+			System.err.println("An error occurred restoring the shared state: " + ex);
+			System.exit(-1);
+		} catch (ReflectiveOperationException ex) {
+			System.err.println("Unable to create the model: " + ex);
+			System.exit(-1);
+		} catch (IOException ex) {
+			System.err.println("Unhandled IOException: " + ex.toString());
+			System.exit(-1);
+		}
+		System.exit(0);
+	}
+
+	/**
+	 * Run the scenarios from the shared trajectory of the model provided.
+	 *
+	 * @param trunk A model that has not been started, it is used to run the shared trajectory.
+	 * @param scenarios The scenarios to branch from the shared trajectory.
+	 */
+	public static void run(ForestSim trunk, List<Scenario> scenarios) throws IOException, ClassNotFoundException {
+		// Every scenario records the shared trajectory
+		List<Scorecard> scorecards = new ArrayList<Scorecard>();
+		for (Scenario scenario : scenarios) {
+			scorecards.add(scenario.createScorecard());
+		}
+		trunk.setScorecardOverride(new SharedScorecard(scorecards));
+		trunk.start();
+
+		// Run up to, but not including, the step the policy is introduced in
+		long fork = trunk.getBaseParameters().getPolicyActiviationStep() - 1;
+		while (trunk.schedule.getSteps() < fork) {
+			if (!trunk.schedule.step(trunk)) {
+				// The simulation ended before the policy, so every scenario is already complete
+				return;
+			}
+		}
+		// The forest is held as copy-on-write tiles, so it is not duplicated in the serialized state
+		ForestState forest = Forest.getInstance().capture(null);
+		trunk.setExcludeForest(true);
+		byte[] shared = capture(trunk);
+		trunk = null;
+
+		// Branch each of the scenarios in turn
+		for (int ndx = 0; ndx < scenarios.size(); ndx++) {
+			ForestSim branch = restore(shared);
+			Forest.getInstance().restore(forest);
+			scenarios.get(ndx).apply(branch);
+			branch.setScorecardOverride(scorecards.get(ndx));
+			branch.awakeFromCheckpoint();
+			while (branch.schedule.step(branch)) { }
+		}
+	}
+
+	/**
+	 * Capture the full state of the simulation in memory.
+	 */
+	private static byte[] capture(ForestSim state) throws IOException {
+		state.preCheckpoint();
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(buffer);
+		out.writeObject(state);
+		out.close();
+		state.postCheckpoint();
+		return buffer.toByteArray();
+	}
+
+	/**
+	 * Restore a copy of the simulation from memory, the singletons and forest are restored as well.
+	 */
+	private static ForestSim restore(byte[] shared) throws IOException, ClassNotFoundException {
+		ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(shared));
+		ForestSim state = (ForestSim)in.readObject();
+		in.close();
+		return state;
+	}
+
+	/**
+	 * Score card that passes the shared trajectory to the score card of each scenario.
+	 */
+	private static class SharedScorecard implements Scorecard {
+		private List<Scorecard> scorecards;
+
+		public SharedScorecard(List<Scorecard> scorecards) {
+			this.scorecards = scorecards;
+		}
+
+		public void processInitialization(ForestSim state) {
+			for (Scorecard scorecard : scorecards) {
+				scorecard.processInitialization(state);
+			}
+		}
+
+		public void processTimeStep(ForestSim state) {
+			for (Scorecard scorecard : scorecards) {
+				scorecard.processTimeStep(state);
+			}
+		}
+
+		public void processFinalization(ForestSim state) {
+			for (Scorecard scorecard : scorecards) {
+				scorecard.processFinalization(state);
+			}
+		}
+	}
+}
@@ -0,0 +1,148 @@
+package edu.mtu.simulation;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import edu.mtu.simulation.profiling.FlightEvents;
+import edu.mtu.steppables.ParcelAgent;
+import edu.mtu.utilities.Compression;
+import sim.field.geo.GeomVectorField;
+import sim.io.geo.ShapeFileExporter;
+import sim.util.Bag;
+import sim.util.geo.MasonGeometry;
+
+/**
+ * This class exports snapshots of the parcel layer as shape files on a background thread. 
+ * 
+ * When a snapshot is captured the attributes of each parcel are copied into a compact array on the 
+ * simulation thread, the shape file is then written from a private copy of the parcel layer so the 
+ * simulation can continue while the export is running. 
+ */
+public class SnapshotExporter {
+	
+	// Fields that are written for each parcel, in the order they are captured
+	public final static String[] Fields = { "TYPE", "AGE", "DBH", "STOCKING", "AWARE", "ENROLLED" };
+	
+	private final static String[] shapeFileExtensions = { ".dbf", ".prj", ".shp", ".shx" };
+	
+	private final ExecutorService service = Executors.newSingleThreadExecutor();
+	
+	// Private copy of the parcel layer, only used by the export thread
+	private final GeomVectorField parcels;
+	private final MasonGeometry[] geometries;
+	private final int compressionLevel;
+	
+	private Future<?> pending = null;
+	
+	/**
+	 * Constructor, prepares the copy of the parcel layer.
+	 * 
+	 * @param state The simulation that the snapshots are to be taken from.
+	 * @param compressionLevel The gzip level to compress the shape files with, or Compression.None.
+	 */
+	public SnapshotExporter(ForestSim state, int compressionLevel) {
+		this.compressionLevel = compressionLevel;
+		
+		// The geometry and the imported attributes of the parcels do not change, so they are copied once
+		GeomVectorField layer = state.getParcelLayer();
+		Bag source = layer.getGeometries();
+		parcels = new GeomVectorField(layer.getFieldWidth(), layer.getFieldHeight());
+		geometries = new MasonGeometry[source.numObjs];
+		for (int ndx = 0; ndx < source.numObjs; ndx++) {
+			MasonGeometry original = (MasonGeometry)source.objs[ndx];
+			geometries[ndx] = new MasonGeometry(original.getGeometry());
+			geometries[ndx].addAttributes(original.getAttributes());
+			parcels.addGeometry(geometries[ndx]);
+		}
+		parcels.setMBR(layer.getMBR());
+	}
+	
+	/**
+	 * Capture the attributes of the parcels and export them to the file in the background, this will block 
+	 * if the previous snapshot has not been written yet.
+	 * 
+	 * @param state The simulation to take the snapshot of.
+	 * @param fileName The file name and path, without an extension.
+	 */
+	public void capture(ForestSim state, final String fileName) throws IOException {
+		// Parcels without an agent have no type and the remaining attributes are zero 
+		final double[] values = new double[geometries.length * Fields.length];
+		for (int ndx = 0; ndx < geometries.length; ndx++) {
+			values[ndx * Fields.length] = -1;
+		}
+		for (ParcelAgent agent : state.getParcelAgents()) {
+			agent.captureAttributes(values, agent.getGeometry().getIndex() * Fields.length);
+		}
+		
+		await();
+		pending = service.submit(new Callable<Void>() {
+			public Void call() throws Exception {
+				export(values, fileName);
+				return null;
+			}
+		});
+	}
+	
+	/**
+	 * Wait for the last snapshot to be written and stop the export thread.
+	 */
+	public void close() throws IOException {
+		try {
+			await();
+		} finally {
+			service.shutdown();
+		}
+	}
+	
+	/**
+	 * Wait for the last snapshot to be written.
+	 */
+	public void await() throws IOException {
+		if (pending == null) {
+			return;
+		}
+		try {
+			pending.get();
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while exporting the snapshot.", ex);
+		} catch (ExecutionException ex) {
+			throw new IOException("Unable to export the snapshot.", ex.getCause());
+		} finally {
+			pending = null;
+		}
+	}
+	
+	/**
+	 * Apply the captured attributes to the copy of the parcel layer and write it to disk.
+	 */
+	private void export(double[] values, String fileName) throws IOException {
+		Object event = FlightEvents.GisExport.begin();
+		for (int ndx = 0; ndx < geometries.length; ndx++) {
+			int offset = ndx * Fields.length;
+			geometries[ndx].addIntegerAttribute(Fields[0], (int)values[offset]);
+			geometries[ndx].addDoubleAttribute(Fields[1], values[offset + 1]);
+			geometries[ndx].addDoubleAttribute(Fields[2], values[offset + 2]);
+			geometries[ndx].addDoubleAttribute(Fields[3], values[offset + 3]);
+			geometries[ndx].addIntegerAttribute(Fields[4], (int)values[offset + 4]);
+			geometries[ndx].addIntegerAttribute(Fields[5], (int)values[offset + 5]);
+		}
+		ShapeFileExporter.write(fileName, parcels);
+		
+		if (compressionLevel != Compression.None) {
+			for (String extension : shapeFileExtensions) {
+				if (new File(fileName + extension).exists()) {
+					Compression.compressFile(fileName + extension, compressionLevel);
+				}
+			}
+		}
+		if (event != null) {
+			FlightEvents.GisExport.commit(event, fileName);
+		}
+	}
+}
@@ -0,0 +1,11 @@
+package edu.mtu.simulation;
+
+/**
+ * This interface is notified as each phase of starting the model is completed.
+ */
+public interface StartupListener {
+	/**
+	 * Called when the given phase of start (e.g., import, forest, agents) has been completed.
+	 */
+	public void phaseCompleted(String phase);
+}
@@ -1,9 +1,12 @@
 package edu.mtu.simulation.parameters;
 
+import java.io.Serializable;
+
 /**
  * Expose various basic parameters that ForestSim uses. 
  */
-public class ParameterBase {
+@SuppressWarnings("serial")
+public class ParameterBase implements Serializable {
 
 	// Display width and height
 	private int gridWidth = 1000;
@@ -15,10 +18,38 @@ public class ParameterBase {
 	// Helper flag, not used by ForestSim but useful for scorecards
 	private boolean writeGis = false;
 	
+	// Helper flag, not used by ForestSim but scorecards should write binary results columns when set
+	private boolean writeColumns = true;
+	
+	// Flag to indicate if the biomass ledger should be checked against a full recalculation each step
+	private boolean auditBiomass = false;
+	
+	// Flag to indicate if parallel measures should be independent of the number of threads
+	private boolean reproducibleMeasures = false;
+	
+	// Helper value, not used by ForestSim but the gzip level scorecards should use for output, zero for none
+	private int compressionLevel = 0;
+	
+	// Number of steps between raster snapshots of the forest, zero to disable them
+	private int rasterSnapshotInterval = 0;
+	
+	// Helper value, directory growth models should cache the initial stands in, empty to disable the cache
+	private String standCacheDirectory = "";
+	
+	// Comma separated sinks for the step profiler (csv, jmx), empty to disable profiling
+	private String stepProfile = "";
+	
 	private int finalTimeStep;					// Time step that the simulation is allowed to run to
 	private int policyActivationTimeStep;		// Time step at which the policy is introduced
 	private double economicAgentPercentage;		// Percentage of economic agents to be created
 			
+	/**
+	 * Return the interval for the compressionLevel
+	 */
+	public Object domCompressionLevel() {
+		return new sim.util.Interval(0, 9);
+	}
+	
 	/**
 	 * Return the interval for the economicAgentPercentage
 	 */
@@ -33,6 +64,16 @@ public class ParameterBase {
 		return new sim.util.Interval(0.0, 1.0);
 	}
 	
+	/**
+	 * Get the flag that indicates the biomass ledger should be audited, default false.
+	 */
+	public boolean getAuditBiomass() { return auditBiomass; }
+	
+	/**
+	 * Get the gzip level to use for output, default zero (uncompressed).
+	 */
+	public int getCompressionLevel() { return compressionLevel; }
+	
 	/**
 	 * Get the percentage of agents, as a double, that are economic optimizers.
 	 */
@@ -62,11 +103,36 @@ public class ParameterBase {
 	 */
 	public boolean getWarningsAsErrors() { return warningsAsErrors; }
 	
+	/**
+	 * Flag to indicate if binary results columns should be written, default true.
+	 */
+	public boolean getWriteColumns() { return writeColumns; }
+	
 	/**
 	 * Flag to indicate if GIS files should be written, default false.
 	 */
 	public boolean getWriteGis() { return writeGis; }
 	
+	/**
+	 * Get the number of steps between raster snapshots of the forest, default zero (disabled).
+	 */
+	public int getRasterSnapshotInterval() { return rasterSnapshotInterval; }
+	
+	/**
+	 * Get the directory to cache the initial stands in, default empty (disabled).
+	 */
+	public String getStandCacheDirectory() { return standCacheDirectory; }
+	
+	/**
+	 * Get the sinks for the step profiler, default empty (disabled).
+	 */
+	public String getStepProfile() { return stepProfile; }
+	
+	/**
+	 * Get the flag that indicates parallel measures should be reproducible, default false.
+	 */
+	public boolean getReproducibleMeasures() { return reproducibleMeasures; }
+	
 	/**
 	 * Get the time step at which the policy should be introduced.
 	 */
@@ -74,6 +140,11 @@ public class ParameterBase {
 		return policyActivationTimeStep;
 	}
 	
+	/**
+	 * Set the flag to audit the biomass ledger.
+	 */
+	public void setAuditBiomass(boolean value) { auditBiomass = value; }
+	
 	/**
 	 * Set the target percentage of agents, as a double, that are economic optimizers.
 	 */
@@ -90,6 +161,31 @@ public class ParameterBase {
 		finalTimeStep = value;
 	}
 	
+	/**
+	 * Set the gzip level to use for output, zero for uncompressed.
+	 */
+	public void setCompressionLevel(int value) { compressionLevel = value; }
+	
+	/**
+	 * Set the number of steps between raster snapshots of the forest, zero to disable them.
+	 */
+	public void setRasterSnapshotInterval(int value) { rasterSnapshotInterval = value; }
+	
+	/**
+	 * Set the directory to cache the initial stands in, empty to disable the cache.
+	 */
+	public void setStandCacheDirectory(String value) { standCacheDirectory = value; }
+	
+	/**
+	 * Set the sinks for the step profiler as a comma separated list of csv and jmx, empty to disable it.
+	 */
+	public void setStepProfile(String value) { stepProfile = value; }
+	
+	/**
+	 * Set the flag to make parallel measures reproducible.
+	 */
+	public void setReproducibleMeasures(boolean value) { reproducibleMeasures = value; }
+	
 	/**
 	 * Set the time step at which the policy should be introduced.
 	 */
@@ -112,6 +208,11 @@ public class ParameterBase {
 	 */
 	public void setWarningsAsErrors(boolean value) { warningsAsErrors = value; }
 	
+	/**
+	 * Set the flag to indicate if binary results columns should be written.
+	 */
+	public void setWriteColumns(boolean value) { writeColumns = value; }
+	
 	/**
 	 * Set the flag to indicate if GIS files should be written.
 	 */
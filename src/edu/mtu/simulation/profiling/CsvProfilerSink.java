@@ -0,0 +1,96 @@
+package edu.mtu.simulation.profiling;
+
+import java.io.File;
+import java.io.IOException;
+
+import edu.mtu.utilities.BufferedCsvWriter;
+
+/**
+ * This sink writes the time of each category per step to profile.csv in the output directory, and when 
+ * the simulation finishes the minimum, mean, maximum, and percentiles of each category to profileSummary.csv.
+ */
+public class CsvProfilerSink implements ProfilerSink {
+	
+	private final static String profileFile = "profile.csv";
+	private final static String summaryFile = "profileSummary.csv";
+	
+	private final static double[] percentiles = new double[] { 50, 90, 99 };
+	
+	private String directory;
+	private BufferedCsvWriter writer;
+	
+	/**
+	 * Constructor.
+	 * 
+	 * @param directory The directory to write the files to, it is created if it does not exist.
+	 */
+	public CsvProfilerSink(String directory) throws IOException {
+		this(directory, false);
+	}
+	
+	/**
+	 * Constructor.
+	 * 
+	 * @param directory The directory to write the files to, it is created if it does not exist.
+	 * @param append True if the steps should be appended to an existing profile (ex., when resuming from a 
+	 * 			checkpoint), false otherwise. The summary only covers the steps profiled by this sink.
+	 */
+	public CsvProfilerSink(String directory, boolean append) throws IOException {
+		this.directory = directory;
+		new File(directory).mkdirs();
+		
+		File file = new File(directory, profileFile);
+		boolean header = !(append && file.exists());
+		writer = new BufferedCsvWriter(file.getPath(), !header);
+		if (header) {
+			writer.write("Step");
+			for (ProfileCategory category : ProfileCategory.values()) {
+				writer.write(category.getName());
+			}
+		}
+	}
+	
+	public void stepCompleted(StepProfiler profiler, long step) {
+		try {
+			writer.newLine();
+			writer.write((int)step);
+			for (ProfileCategory category : ProfileCategory.values()) {
+				writer.write(profiler.getLast(category));
+			}
+		} catch (IOException ex) {
+			System.err.println("Unhandled IOException: " + ex.toString());
+			System.exit(-1);
+		}
+	}
+	
+	public void close(StepProfiler profiler) {
+		try {
+			writer.close();
+			
+			BufferedCsvWriter summary = new BufferedCsvWriter(new File(directory, summaryFile).getPath(), false);
+			summary.write("Category");
+			summary.write("Steps");
+			summary.write("Minimum");
+			summary.write("Mean");
+			summary.write("Maximum");
+			for (double percentile : percentiles) {
+				summary.write("P" + (int)percentile);
+			}
+			for (ProfileCategory category : ProfileCategory.values()) {
+				summary.newLine();
+				summary.write(category.getName());
+				summary.write(profiler.getSteps());
+				summary.write(profiler.getMinimum(category));
+				summary.write(profiler.getMean(category));
+				summary.write(profiler.getMaximum(category));
+				for (double percentile : percentiles) {
+					summary.write(profiler.getPercentile(category, percentile));
+				}
+			}
+			summary.close();
+		} catch (IOException ex) {
+			System.err.println("Unhandled IOException: " + ex.toString());
+			System.exit(-1);
+		}
+	}
+}
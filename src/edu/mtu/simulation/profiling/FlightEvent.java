@@ -0,0 +1,183 @@
+package edu.mtu.simulation.profiling;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class defines a custom Java Flight Recorder event that can be committed from code that targets Java 7.
+ *
+ * The event type is created at runtime through jdk.jfr.EventFactory when the JVM provides it (Java 11 or
+ * later), otherwise the event is disabled and begin returns null. Events are only created while a recording
+ * has the event type enabled, so when nothing is recording the cost is one check per event, for example:
+ *
+ * <pre>
+ * Object event = FlightEvents.Harvest.begin();
+ * ...
+ * if (event != null) {
+ *     FlightEvents.Harvest.commit(event, parcel, pixels, biomass);
+ * }
+ * </pre>
+ */
+public class FlightEvent {
+
+	// Category that all of the events are shown under in a recording
+	private final static String[] category = new String[] { "ForestSim" };
+
+	// Handles to the flight recorder, null if it is not supported
+	private static Constructor<?> annotationConstructor;
+	private static Constructor<?> valueConstructor;
+	private static MethodHandle createFactory;
+	private static MethodHandle newEvent;
+	private static MethodHandle getEventType;
+	private static MethodHandle isEnabled;
+	private static MethodHandle begin;
+	private static MethodHandle commit;
+	private static MethodHandle set;
+
+	static {
+		try {
+			Class<?> annotationElement = Class.forName("jdk.jfr.AnnotationElement");
+			Class<?> valueDescriptor = Class.forName("jdk.jfr.ValueDescriptor");
+			Class<?> eventFactory = Class.forName("jdk.jfr.EventFactory");
+			Class<?> eventType = Class.forName("jdk.jfr.EventType");
+			Class<?> event = Class.forName("jdk.jfr.Event");
+
+			annotationConstructor = annotationElement.getConstructor(Class.class, Object.class);
+			valueConstructor = valueDescriptor.getConstructor(Class.class, String.class, List.class);
+
+			MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+			createFactory = lookup.findStatic(eventFactory, "create", MethodType.methodType(eventFactory, List.class, List.class));
+			newEvent = lookup.findVirtual(eventFactory, "newEvent", MethodType.methodType(event));
+			getEventType = lookup.findVirtual(eventFactory, "getEventType", MethodType.methodType(eventType));
+			isEnabled = lookup.findVirtual(eventType, "isEnabled", MethodType.methodType(boolean.class));
+			begin = lookup.findVirtual(event, "begin", MethodType.methodType(void.class));
+			commit = lookup.findVirtual(event, "commit", MethodType.methodType(void.class));
+			set = lookup.findVirtual(event, "set", MethodType.methodType(void.class, int.class, Object.class));
+		} catch (ReflectiveOperationException ex) {
+			// The flight recorder is not available, all events are disabled
+			createFactory = null;
+		}
+	}
+
+	private final String name;
+	private final Class<?>[] types;
+
+	private Object factory;
+	private Object eventType;
+
+	/**
+	 * Constructor, registers the event type with the flight recorder if it is available.
+	 *
+	 * @param name The unique name of the event, ex., edu.mtu.ForestGrow
+	 * @param label The label of the event that is shown in a recording.
+	 * @param description The description of the event.
+	 * @param fields The names of the fields of the event.
+	 * @param types The types of the fields, either long, double, boolean, or String.
+	 */
+	public FlightEvent(String name, String label, String description, String[] fields, Class<?>[] types) {
+		this.name = name;
+		this.types = types;
+		if (createFactory == null) {
+			return;
+		}
+
+		try {
+			List<Object> annotations = new ArrayList<Object>();
+			annotations.add(annotation("jdk.jfr.Name", name));
+			annotations.add(annotation("jdk.jfr.Label", label));
+			annotations.add(annotation("jdk.jfr.Description", description));
+			annotations.add(annotation("jdk.jfr.Category", category));
+
+			List<Object> values = new ArrayList<Object>();
+			for (int ndx = 0; ndx < fields.length; ndx++) {
+				values.add(valueConstructor.newInstance(types[ndx], fields[ndx], new ArrayList<Object>()));
+			}
+
+			factory = createFactory.invoke(annotations, values);
+			eventType = getEventType.invoke(factory);
+		} catch (Throwable ex) {
+			System.err.println("WARNING: unable to register the flight recorder event " + name + ", " + ex);
+			factory = null;
+		}
+	}
+
+	/**
+	 * Begin timing the event.
+	 *
+	 * @return The event to commit, or null if the event is not being recorded.
+	 */
+	public Object begin() {
+		if (factory == null) {
+			return null;
+		}
+		try {
+			if (!(boolean)isEnabled.invoke(eventType)) {
+				return null;
+			}
+			Object event = newEvent.invoke(factory);
+			begin.invoke(event);
+			return event;
+		} catch (Throwable ex) {
+			disable(ex);
+			return null;
+		}
+	}
+
+	/**
+	 * Set the fields of the event and commit it to the recording, the duration is from begin until now.
+	 *
+	 * @param event The event returned by begin, nothing is done if it is null.
+	 * @param values The values of the fields, in the order they were defined.
+	 */
+	public void commit(Object event, Object... values) {
+		if (event == null || factory == null) {
+			return;
+		}
+		try {
+			for (int ndx = 0; ndx < values.length; ndx++) {
+				set.invoke(event, ndx, convert(types[ndx], values[ndx]));
+			}
+			commit.invoke(event);
+		} catch (Throwable ex) {
+			disable(ex);
+		}
+	}
+
+	/**
+	 * Check to see if the flight recorder is available in this JVM.
+	 */
+	public static boolean isSupported() {
+		return createFactory != null;
+	}
+
+	/**
+	 * Create an annotation element with the value.
+	 */
+	private static Object annotation(String type, Object value) throws ReflectiveOperationException {
+		return annotationConstructor.newInstance(Class.forName(type), value);
+	}
+
+	/**
+	 * Convert the value to the type of the field, numbers may be passed as any primitive.
+	 */
+	private static Object convert(Class<?> type, Object value) {
+		if (type == long.class) {
+			return ((Number)value).longValue();
+		} else if (type == double.class) {
+			return ((Number)value).doubleValue();
+		}
+		return value;
+	}
+
+	/**
+	 * Disable the event after an unexpected error so it is only reported once.
+	 */
+	private void disable(Throwable ex) {
+		System.err.println("WARNING: disabling the flight recorder event " + name + ", " + ex);
+		factory = null;
+	}
+}
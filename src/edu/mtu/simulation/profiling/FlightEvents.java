@@ -0,0 +1,58 @@
+package edu.mtu.simulation.profiling;
+
+/**
+ * The Java Flight Recorder events that are committed by ForestSim, they are shown under the ForestSim
+ * category of a recording. Start a recording with -XX:StartFlightRecording on Java 11 or later.
+ */
+public final class FlightEvents {
+	
+	/**
+	 * One tile (band of rows) of the forest being grown by a worker thread.
+	 */
+	public final static FlightEvent ForestGrow = new FlightEvent("edu.mtu.ForestGrow", "Forest Grow", 
+			"Growth of a tile of the forest", 
+			new String[] { "thread", "startRow", "endRow" },
+			new Class<?>[] { long.class, long.class, long.class });
+	
+	/**
+	 * One tile (band of rows) of the forest stocking being updated by a worker thread.
+	 */
+	public final static FlightEvent ForestStocking = new FlightEvent("edu.mtu.ForestStocking", "Forest Stocking", 
+			"Update of the stocking of a tile of the forest", 
+			new String[] { "thread", "startRow", "endRow" },
+			new Class<?>[] { long.class, long.class, long.class });
+	
+	/**
+	 * One harvest (or thinning) request being executed by the harvester.
+	 */
+	public final static FlightEvent Harvest = new FlightEvent("edu.mtu.Harvest", "Harvest", 
+			"Execution of a harvest request for a parcel", 
+			new String[] { "parcel", "pixels", "thinning", "biomass" },
+			new Class<?>[] { long.class, long.class, boolean.class, double.class });
+	
+	/**
+	 * The score card being run for a time step, or being finalized.
+	 */
+	public final static FlightEvent ScorecardWrite = new FlightEvent("edu.mtu.ScorecardWrite", "Scorecard Write", 
+			"Processing of the score card for a time step", 
+			new String[] { "step", "final" },
+			new Class<?>[] { long.class, boolean.class });
+	
+	/**
+	 * A GIS file (shape file or raster snapshot) being written.
+	 */
+	public final static FlightEvent GisExport = new FlightEvent("edu.mtu.GisExport", "GIS Export", 
+			"Export of a GIS file", 
+			new String[] { "file" },
+			new Class<?>[] { String.class });
+	
+	/**
+	 * An agent projecting the value of its future harvests.
+	 */
+	public final static FlightEvent AgentProjection = new FlightEvent("edu.mtu.AgentProjection", "Agent Projection", 
+			"Projection of future harvests by an agent", 
+			new String[] { "parcel", "pixels", "harvestStep" },
+			new Class<?>[] { long.class, long.class, long.class });
+	
+	private FlightEvents() { }
+}
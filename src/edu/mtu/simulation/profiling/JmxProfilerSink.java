@@ -0,0 +1,83 @@
+package edu.mtu.simulation.profiling;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * This sink exposes the step profiler through JMX as edu.mtu.simulation:type=StepProfiler so a run can be
+ * monitored with a tool such as JConsole. The statistics are calculated when they are read, so nothing is
+ * done when a step completes.
+ */
+public class JmxProfilerSink implements ProfilerSink, StepProfilerMXBean {
+
+	private final static String objectName = "edu.mtu.simulation:type=StepProfiler";
+	
+	private ObjectName name;
+	
+	/**
+	 * Constructor, registers the bean with the platform server replacing any previous registration.
+	 */
+	public JmxProfilerSink() throws JMException {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		name = new ObjectName(objectName);
+		if (server.isRegistered(name)) {
+			server.unregisterMBean(name);
+		}
+		server.registerMBean(this, name);
+	}
+	
+	public void stepCompleted(StepProfiler profiler, long step) { }
+
+	/**
+	 * The bean remains registered after the simulation finishes so the final statistics can be read.
+	 */
+	public void close(StepProfiler profiler) { }
+	
+	public String[] getCategories() {
+		ProfileCategory[] categories = ProfileCategory.values();
+		String[] names = new String[categories.length];
+		for (int ndx = 0; ndx < categories.length; ndx++) {
+			names[ndx] = categories[ndx].getName();
+		}
+		return names;
+	}
+
+	public int getSteps() { return StepProfiler.getInstance().getSteps(); }
+	
+	public double[] getLast() {
+		double[] values = new double[ProfileCategory.values().length];
+		for (ProfileCategory category : ProfileCategory.values()) {
+			values[category.ordinal()] = StepProfiler.getInstance().getLast(category);
+		}
+		return values;
+	}
+
+	public double[] getMinimum() { return getPercentile(0); }
+	
+	public double[] getMean() {
+		double[] values = new double[ProfileCategory.values().length];
+		for (ProfileCategory category : ProfileCategory.values()) {
+			values[category.ordinal()] = StepProfiler.getInstance().getMean(category);
+		}
+		return values;
+	}
+
+	public double[] getMaximum() { return getPercentile(100); }
+	public double[] getP50() { return getPercentile(50); }
+	public double[] getP95() { return getPercentile(95); }
+	public double[] getP99() { return getPercentile(99); }
+	
+	/**
+	 * Get the percentile of each of the categories.
+	 */
+	private double[] getPercentile(double percentile) {
+		double[] values = new double[ProfileCategory.values().length];
+		for (ProfileCategory category : ProfileCategory.values()) {
+			values[category.ordinal()] = StepProfiler.getInstance().getPercentile(category, percentile);
+		}
+		return values;
+	}
+}
@@ -0,0 +1,19 @@
+package edu.mtu.simulation.profiling;
+
+/**
+ * The categories of steppables that are timed by the step profiler.
+ */
+public enum ProfileCategory {
+	ENVIRONMENT("Environment"),
+	AGENTS("Agents"),
+	HARVESTER("Harvester"),
+	AGGREGATION("Aggregation");
+	
+	private String name;
+	
+	private ProfileCategory(String name) {
+		this.name = name;
+	}
+	
+	public String getName() { return name; }
+}
@@ -0,0 +1,25 @@
+package edu.mtu.simulation.profiling;
+
+import sim.engine.SimState;
+import sim.engine.Steppable;
+
+/**
+ * Wrapper that times a steppable and records the time against its category.
+ */
+@SuppressWarnings("serial")
+class ProfiledSteppable implements Steppable {
+	
+	private final int category;
+	private final Steppable steppable;
+	
+	public ProfiledSteppable(ProfileCategory category, Steppable steppable) {
+		this.category = category.ordinal();
+		this.steppable = steppable;
+	}
+	
+	public void step(SimState state) {
+		long start = System.nanoTime();
+		steppable.step(state);
+		StepProfiler.getInstance().record(category, System.nanoTime() - start);
+	}
+}
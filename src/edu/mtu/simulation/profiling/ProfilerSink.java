@@ -0,0 +1,17 @@
+package edu.mtu.simulation.profiling;
+
+/**
+ * This interface receives the timings from the step profiler, it is called once at the end of each step
+ * rather than as the steppables are timed.
+ */
+public interface ProfilerSink {
+	/**
+	 * Called when a step has been completed, the timings of the step are available from the profiler.
+	 */
+	public void stepCompleted(StepProfiler profiler, long step);
+	
+	/**
+	 * Called when the simulation is finished, allows the sink to write a summary and clean up.
+	 */
+	public void close(StepProfiler profiler);
+}
@@ -0,0 +1,213 @@
+package edu.mtu.simulation.profiling;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import sim.engine.SimState;
+import sim.engine.Steppable;
+
+/**
+ * This singleton times the steppables in the schedule by category, each category is the total wall time of
+ * its steppables over one step. Timing on the hot path is only a nanoTime pair and an array update, the 
+ * sinks are called once per step when the step ends, and the statistics are calculated when they are asked
+ * for so they may be read from another thread (ex., JMX). When no sinks are registered the profiler is 
+ * disabled and steppables are scheduled unwrapped.
+ */
+public class StepProfiler {
+
+	// The ordering that the step end is scheduled with, after the default ordering used by the model
+	public final static int StepEndOrdering = 1;
+	
+	private final static int categories = ProfileCategory.values().length;
+	private final static double nanoToMilli = 1e-6;
+	
+	private static StepProfiler instance = new StepProfiler();
+	
+	private boolean finished;
+	private boolean pending;
+	private long[] current = new long[categories];
+	private long[][] history = new long[categories][64];
+	private int steps;
+	private long lastStep = -1;
+	private List<ProfilerSink> sinks = new ArrayList<ProfilerSink>();
+	
+	/**
+	 * Constructor.
+	 */
+	private StepProfiler() { }
+	
+	/**
+	 * Get the instance of the step profiler.
+	 */
+	public static StepProfiler getInstance() {
+		return instance;
+	}
+	
+	/**
+	 * Add the sink to the profiler, this enables profiling.
+	 */
+	public void addSink(ProfilerSink sink) {
+		sinks.add(sink);
+	}
+	
+	/**
+	 * Flush the step in progress and close the sinks, this is safe to call more than once.
+	 */
+	public synchronized void finish() {
+		if (finished) {
+			return;
+		}
+		finished = true;
+		if (pending) {
+			completeStep(lastStep + 1);
+		}
+		for (ProfilerSink sink : sinks) {
+			sink.close(this);
+		}
+	}
+	
+	/**
+	 * Get the steppable that completes each step, it should be scheduled with the StepEndOrdering.
+	 */
+	public Steppable getStepEnd() {
+		return new StepEnd();
+	}
+	
+	/**
+	 * Get the number of steps that have been profiled.
+	 */
+	public synchronized int getSteps() { return steps; }
+	
+	/**
+	 * Get the time of the category in the last step profiled, in ms.
+	 */
+	public synchronized double getLast(ProfileCategory category) {
+		return (steps != 0) ? history[category.ordinal()][steps - 1] * nanoToMilli : 0.0;
+	}
+	
+	/**
+	 * Get the maximum time of the category in one step, in ms.
+	 */
+	public double getMaximum(ProfileCategory category) {
+		return getPercentile(category, 100);
+	}
+	
+	/**
+	 * Get the mean time of the category per step, in ms.
+	 */
+	public synchronized double getMean(ProfileCategory category) {
+		if (steps == 0) {
+			return 0.0;
+		}
+		long total = 0;
+		long[] values = history[category.ordinal()];
+		for (int ndx = 0; ndx < steps; ndx++) {
+			total += values[ndx];
+		}
+		return (total * nanoToMilli) / steps;
+	}
+
+	/**
+	 * Get the minimum time of the category in one step, in ms.
+	 */
+	public double getMinimum(ProfileCategory category) {
+		return getPercentile(category, 0);
+	}
+	
+	/**
+	 * Get the given percentile of the time of the category in one step using the nearest rank, in ms.
+	 * 
+	 * @param percentile The percentile from zero to 100.
+	 */
+	public synchronized double getPercentile(ProfileCategory category, double percentile) {
+		if (steps == 0) {
+			return 0.0;
+		}
+		long[] sorted = Arrays.copyOf(history[category.ordinal()], steps);
+		Arrays.sort(sorted);
+		int rank = (int)Math.ceil(percentile / 100.0 * steps) - 1;
+		return sorted[Math.max(0, Math.min(rank, steps - 1))] * nanoToMilli;
+	}
+	
+	/**
+	 * Check to see if profiling is enabled.
+	 */
+	public boolean isEnabled() { return !sinks.isEmpty(); }
+	
+	/**
+	 * Close any sinks and discard the timings so the profiler can be used by a new run.
+	 */
+	public synchronized void reset() {
+		if (!finished) {
+			for (ProfilerSink sink : sinks) {
+				sink.close(this);
+			}
+		}
+		sinks.clear();
+		current = new long[categories];
+		history = new long[categories][64];
+		steps = 0;
+		lastStep = -1;
+		finished = false;
+		pending = false;
+	}
+	
+	/**
+	 * Wrap the steppable so that it is timed against the category, the steppable is returned unchanged if
+	 * profiling is not enabled.
+	 */
+	public Steppable wrap(ProfileCategory category, Steppable steppable) {
+		if (!isEnabled()) {
+			return steppable;
+		}
+		return new ProfiledSteppable(category, steppable);
+	}
+	
+	/**
+	 * Steppable that completes each step, it does not hold the profiler so it can be checkpointed along 
+	 * with the schedule.
+	 */
+	@SuppressWarnings("serial")
+	private static class StepEnd implements Steppable {
+		public void step(SimState state) {
+			StepProfiler.getInstance().completeStep(state.schedule.getSteps());
+		}
+	}
+	
+	/**
+	 * Add the time to the category for the current step, the schedule steps sequentially so this is not
+	 * synchronized.
+	 */
+	void record(int category, long nanos) {
+		current[category] += nanos;
+		pending = true;
+	}
+	
+	/**
+	 * Move the timings of the current step into the history and notify the sinks.
+	 */
+	synchronized void completeStep(long step) {
+		// The final step may have been flushed by finish already
+		if (step <= lastStep) {
+			return;
+		}
+		lastStep = step;
+		pending = false;
+		
+		if (steps == history[0].length) {
+			for (int ndx = 0; ndx < categories; ndx++) {
+				history[ndx] = Arrays.copyOf(history[ndx], steps * 2);
+			}
+		}
+		for (int ndx = 0; ndx < categories; ndx++) {
+			history[ndx][steps] = current[ndx];
+			current[ndx] = 0;
+		}
+		steps++;
+		
+		for (ProfilerSink sink : sinks) {
+			sink.stepCompleted(this, step);
+		}
+	}
+}
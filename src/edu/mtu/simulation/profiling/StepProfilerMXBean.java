@@ -0,0 +1,17 @@
+package edu.mtu.simulation.profiling;
+
+/**
+ * Management interface for the step profiler, all times are in ms and the arrays are in the same order as 
+ * the categories.
+ */
+public interface StepProfilerMXBean {
+	public String[] getCategories();
+	public int getSteps();
+	public double[] getLast();
+	public double[] getMinimum();
+	public double[] getMean();
+	public double[] getMaximum();
+	public double[] getP50();
+	public double[] getP95();
+	public double[] getP99();
+}
@@ -1,9 +1,13 @@
 package edu.mtu.steppables;
 
+import java.io.IOException;
+
+import edu.mtu.environment.RasterSnapshotWriter;
 import edu.mtu.policy.PolicyBase;
 import edu.mtu.simulation.ForestSim;
 import edu.mtu.simulation.Scorecard;
 import edu.mtu.simulation.parameters.ParameterBase;
+import edu.mtu.simulation.profiling.FlightEvents;
 import sim.engine.SimState;
 import sim.engine.Steppable;
 
@@ -14,8 +18,22 @@ import sim.engine.Steppable;
 @SuppressWarnings("serial")
 public class AggregationStep implements Steppable {
 
+	private final static String rasterFile = "%1$s/rasters%2$d.fsr";
+	private final static String resumedRasterFile = "%1$s/rasters%2$d-%3$d.fsr";
+	
 	private boolean policyIntroduced = false;
-	private Scorecard scorecard = null;
+	
+	// Flag to indicate the score card has been finalized
+	private boolean completed = false;
+	
+	// Flag to indicate the raster snapshots have been started, so a resumed model writes to a new file
+	private boolean rastersStarted = false;
+	
+	// The score card and snapshots are not checkpointed, they are reattached when the model resumes
+	private transient Scorecard scorecard = null;
+	private transient RasterSnapshotWriter rasters = null;
+	private transient String rasterFileName = null;
+	private transient long rasterStep = 0;
 	
 	public void step(SimState state) {
 		// What's our time-step?
@@ -24,9 +42,7 @@ public class AggregationStep implements Steppable {
 		
 		// Should we end the model?
 		if (step >= parameters.getFinalTimeStep()) {
-			if (scorecard != null) {
-				scorecard.processFinalization((ForestSim)state);
-			}
+			complete((ForestSim)state, step);
 			state.finish();
 			return;
 		} 
@@ -42,8 +58,36 @@ public class AggregationStep implements Steppable {
 			
 		// Run the scorecard, if provided
 		if (scorecard != null) {
+			Object event = FlightEvents.ScorecardWrite.begin();
 			scorecard.processTimeStep(((ForestSim)state));
+			if (event != null) {
+				FlightEvents.ScorecardWrite.commit(event, step, false);
+			}
 		}
+		
+		// Capture the forest rasters, if requested
+		writeRasters((ForestSim)state, step, false);
+	}
+	
+	/**
+	 * Finalize the score card and write the last raster snapshot. This is done when the final time step is 
+	 * reached, but may also be done when the model is stopped before then, in which case the step is the last 
+	 * one that was completed. Only the first call has any effect.
+	 */
+	public void complete(ForestSim state, long step) {
+		if (completed) {
+			return;
+		}
+		completed = true;
+		
+		if (scorecard != null) {
+			Object event = FlightEvents.ScorecardWrite.begin();
+			scorecard.processFinalization(state);
+			if (event != null) {
+				FlightEvents.ScorecardWrite.commit(event, step, true);
+			}
+		}
+		writeRasters(state, step, true);
 	}
 	
 	/**
@@ -52,4 +96,44 @@ public class AggregationStep implements Steppable {
 	public void setScorecard(Scorecard scorecard) {
 		this.scorecard = scorecard;
 	}
+	
+	/**
+	 * Write a raster snapshot of the forest if the interval has been reached, closing the file if this is 
+	 * the final step. The snapshots of a model that resumes from a checkpoint are written to a new file
+	 * suffixed with the step it resumed at, so the snapshots from before the checkpoint are preserved.
+	 */
+	private void writeRasters(ForestSim state, long step, boolean last) {
+		int interval = state.getBaseParameters().getRasterSnapshotInterval();
+		if (interval <= 0) {
+			return;
+		}
+		
+		try {
+			if (rasters == null) {
+				rasterFileName = rastersStarted ? 
+						String.format(resumedRasterFile, state.getOutputDirectory(), state.seed(), step) :
+						String.format(rasterFile, state.getOutputDirectory(), state.seed());
+				rasters = new RasterSnapshotWriter(rasterFileName, RasterSnapshotWriter.DefaultKeyframeInterval);
+				rastersStarted = true;
+			}
+			if ((step % interval == 0 || last) && step != rasterStep) {
+				Object event = FlightEvents.GisExport.begin();
+				rasters.write(step);
+				rasterStep = step;
+				if (event != null) {
+					FlightEvents.GisExport.commit(event, rasterFileName);
+				}
+			}
+			if (last) {
+				rasters.close();
+				rasters = null;
+			}
+		} catch (IOException ex) {
+			System.err.println("Unhandled IOException: " + ex.toString());
+			System.exit(-1);
+		} catch (InterruptedException ex) {
+			System.err.println("An error occurred writing the raster snapshot: " + ex);
+			System.exit(-1);
+		}
+	}
 }
@@ -12,6 +12,9 @@ public class LandUseGeomWrapper extends MasonGeometry {
 	private int enrolledInVip = 0;
 	private int index = -1;
 	private ParcelAgentType agentType;
+	
+	// Flag to indicate the attributes have changed since they were last pushed to the geometry
+	private boolean dirty = true;
 		
 	/**
 	 * Constructor.
@@ -25,6 +28,11 @@ public class LandUseGeomWrapper extends MasonGeometry {
 	 */
 	public ParcelAgentType getAgentType() { return agentType; }
 	
+	/**
+	 * Return true if the agent is aware of the VIP, false otherwise.
+	 */
+	public boolean getAwareOfVip() { return (awareOfVip == 1); }
+	
 	/**
 	 * Return true if the agent is enrolled in a VIP, false otherwise.
 	 */
@@ -34,36 +42,61 @@ public class LandUseGeomWrapper extends MasonGeometry {
 	 * Get the unique index of this agent in the simulation.
 	 */
 	public int getIndex() { return index; }
+	
+	/**
+	 * Return true if the attributes have changed since they were last pushed to the geometry.
+	 */
+	public boolean isDirty() { return dirty; }
 			
 	/**
 	 * Set the type of agent in the parcel.
 	 */
-	public void setAgentType(ParcelAgentType value) { agentType = value; }
+	public void setAgentType(ParcelAgentType value) { 
+		dirty |= (agentType != value);
+		agentType = value; 
+	}
 	
 	/**
 	 * Set the flag to indicate if the agent is aware of the VIP or not.
 	 */
-	public void setAwareOfVip(boolean value) { awareOfVip = (value) ? 1 : 0; }
+	public void setAwareOfVip(boolean value) { 
+		int flag = (value) ? 1 : 0;
+		dirty |= (awareOfVip != flag);
+		awareOfVip = flag; 
+	}
 	
 	/**
 	 * Set the average age of the forest.
 	 */
-	public void setAverageForestAge(double value) { averageForestAge = value; }
+	public void setAverageForestAge(double value) { 
+		dirty |= (averageForestAge != value);
+		averageForestAge = value; 
+	}
 	
 	/**
 	 * Set the average DBH of the forest.
 	 */
-	public void setAverageForestDbh(double value) { averageForestDbh = value; }
+	public void setAverageForestDbh(double value) { 
+		dirty |= (averageForestDbh != value);
+		averageForestDbh = value; 
+	}
 	
 	/**
 	 * Set the average forest stocking.
 	 */
-	public void setAverageForestStocking(double value) { averageStocking = value; }
+	public void setAverageForestStocking(double value) { 
+		dirty |= (averageStocking != value);
+		averageStocking = value; 
+	}
 	
 	/**
 	 * Set the flag to indicate if the agent is in a VIP or not. 
 	 */
-	public void setEnrolledInVip(boolean value) { enrolledInVip = (value) ? 1 : 0; }
+	public void setEnrolledInVip(boolean value) { 
+		int flag = (value) ? 1 : 0;
+		dirty |= (enrolledInVip != flag);
+		enrolledInVip = flag; 
+	}
 	
 	/**
 	 * Set the unique index of the agent in the simulation.
@@ -71,9 +104,15 @@ public class LandUseGeomWrapper extends MasonGeometry {
 	public void setIndex(int value) { index = value; }
 		
 	/**
-	 * Update the shape file with the agent's information.
+	 * Update the shape file with the agent's information, the attributes of the geometry are only 
+	 * written if they have changed since the last update.
 	 */
 	public void updateShpaefile() {
+		if (!dirty) {
+			return;
+		}
+		dirty = false;
+		
 		int type = (agentType != null) ? agentType.getValue() : -1;
 		addIntegerAttribute("TYPE", type);
 		
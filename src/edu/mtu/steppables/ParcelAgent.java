@@ -2,9 +2,11 @@ package edu.mtu.steppables;
 
 import java.awt.Point;
 
+import ec.util.MersenneTwisterFast;
 import edu.mtu.environment.Forest;
-import edu.mtu.measures.ForestMeasures;
+import edu.mtu.measures.ParcelSummaries;
 import edu.mtu.simulation.ForestSim;
+import edu.mtu.utilities.RandomDistribution;
 import sim.engine.SimState;
 import sim.engine.Steppable;
 import sim.util.IntBag;
@@ -26,6 +28,7 @@ public abstract class ParcelAgent implements Steppable {
 	// Land Tenure attributes, note the defaults assume immediate tenure
 	private boolean phasedIn = true;
 	private double phaseInRate = 1.0;
+	private long phaseInStep = 0;
 	
 	protected ForestSim state;
 
@@ -70,6 +73,13 @@ public abstract class ParcelAgent implements Steppable {
 		return phaseInRate;
 	}
 	
+	/**
+	 * Get the time step at which the agent is phased into the model.
+	 */
+	public long getPhaseInStep() {
+		return phaseInStep;
+	}
+	
 	/**
 	 * Get the geometry that this agent is responsible for.
 	 */
@@ -102,6 +112,24 @@ public abstract class ParcelAgent implements Steppable {
 		}
 	}
 	
+	/**
+	 * Sample the time step at which the agent will be phased into the model. Phasing in at 
+	 * the given rate each step is a geometric waiting time, so it is drawn once up front 
+	 * rather than once per step.
+	 * 
+	 * NOTE: This operation must be done prior to the first step.
+	 * 
+	 * @param random The random number generator to sample the phase-in time from.
+	 * @return The time step the agent should first be scheduled at, or Long.MAX_VALUE if it will never phase in.
+	 */
+	public long calculatePhaseInStep(MersenneTwisterFast random) {
+		if (hasRun) {
+			throw new IllegalAccessError("Land Tenure phase-in cannot be calculated once the agent steps!");
+		}
+		phaseInStep = phasedIn ? 0 : RandomDistribution.GeometricDistribution(phaseInRate, random);
+		return phaseInStep;
+	}
+	
 	/**
 	 * Set the agent land tenure phase-in rate and flag the agent has not being phased in.
 	 * 
@@ -122,9 +150,9 @@ public abstract class ParcelAgent implements Steppable {
 		// Accounting flag to disable operations once the model starts
 		hasRun = true;
 		
-		// To account for land tenure, phase agents into the model at the given rate
+		// To account for land tenure, agents are phased in once the sampled time step is reached
 		if (!phasedIn) {
-			if (phaseInRate < state.random.nextDouble()) {
+			if (state.schedule.getTime() < phaseInStep) {
 				return;
 			}
 			phasedIn = true;
@@ -135,18 +163,28 @@ public abstract class ParcelAgent implements Steppable {
 		doHarvestOperation();
 	}
 		
+	/**
+	 * Capture the agent's shape file attributes into the array provided, in the order of the fields of 
+	 * the SnapshotExporter.
+	 */
+	public void captureAttributes(double[] values, int offset) {
+		values[offset] = (landUseWrapper.getAgentType() != null) ? landUseWrapper.getAgentType().getValue() : -1;
+		ParcelSummaries summaries = ParcelSummaries.getInstance();
+		values[offset + 1] = summaries.getAverageAge(landUseWrapper.getIndex());
+		values[offset + 2] = summaries.getAverageDbh(landUseWrapper.getIndex());
+		values[offset + 3] = summaries.getAverageStocking(landUseWrapper.getIndex());
+		values[offset + 4] = landUseWrapper.getAwareOfVip() ? 1 : 0;
+		values[offset + 5] = landUseWrapper.getEnrolledInVip() ? 1 : 0;
+	}
+	
 	/**
 	 * Update the shape file to reflect the agent's attributes.
 	 */
 	public void updateShapefile() {
-		double value = ForestMeasures.calculateParcelAge(parcel);
-		landUseWrapper.setAverageForestAge(value);
-		
-		value = ForestMeasures.calculateParcelDbh(parcel);
-		landUseWrapper.setAverageForestDbh(value);
-		
-		value = ForestMeasures.calculateParcelStocking(parcel);
-		landUseWrapper.setAverageForestStocking(value);
+		ParcelSummaries summaries = ParcelSummaries.getInstance();
+		landUseWrapper.setAverageForestAge(summaries.getAverageAge(landUseWrapper.getIndex()));
+		landUseWrapper.setAverageForestDbh(summaries.getAverageDbh(landUseWrapper.getIndex()));
+		landUseWrapper.setAverageForestStocking(summaries.getAverageStocking(landUseWrapper.getIndex()));
 		
 		landUseWrapper.updateShpaefile();
 	}
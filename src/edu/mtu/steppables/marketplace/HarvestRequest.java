@@ -1,6 +1,7 @@
 package edu.mtu.steppables.marketplace;
 
 import java.awt.Point;
+import java.io.Serializable;
 import java.util.List;
 
 import edu.mtu.environment.StandThinning;
@@ -9,7 +10,8 @@ import edu.mtu.steppables.ParcelAgent;
 /**
  * This class is used to wrap harvest requests for the marketplace.
  */
-public class HarvestRequest {
+@SuppressWarnings("serial")
+public class HarvestRequest implements Serializable {
 
 	// Common information
 	private ParcelAgent agent;
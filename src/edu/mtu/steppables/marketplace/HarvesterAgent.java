@@ -10,6 +10,7 @@ import edu.mtu.environment.Forest;
 import edu.mtu.environment.Stand;
 import edu.mtu.environment.StandThinning;
 import edu.mtu.simulation.ForestSim;
+import edu.mtu.simulation.profiling.FlightEvents;
 import edu.mtu.steppables.ParcelAgent;
 
 /**
@@ -83,6 +84,13 @@ public class HarvesterAgent extends HarvesterBase {
 		return instance;
 	}
 	
+	/**
+	 * For ForestSim only, replace the harvester with one restored from a checkpoint.
+	 */
+	public static void setInstance(HarvesterAgent value) {
+		instance = value;
+	}
+	
 	/**
 	 * Process the list of harvest requests and harvest the stands that result
 	 * in the most economic returns for the company. Note that this method is
@@ -109,11 +117,17 @@ public class HarvesterAgent extends HarvesterBase {
 			
 			// Are we thinning or harvesting?
 			HarvestRequest request = requests.remove(0);
+			Object event = FlightEvents.Harvest.begin();
 			if (request.isThinning()) {
 				result = forest.thin(request.getPlans());
 			} else {
 				result = forest.harvest(request.getStands());
 			}
+			if (event != null) {
+				int pixels = request.isThinning() ? request.getPlans().size() : request.getStands().length;
+				FlightEvents.Harvest.commit(event, request.getAgent().getGeometry().getIndex(), pixels, 
+						request.isThinning(), result.getValue1());
+			}
 			
 			// Harvest the biomass from the parcel, update the totals
 			stemBiomass += result.getValue0();
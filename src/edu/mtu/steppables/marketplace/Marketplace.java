@@ -1,5 +1,6 @@
 package edu.mtu.steppables.marketplace;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -12,7 +13,8 @@ import sim.engine.Steppable;
  * by other agents. For example, NIPF owners need to know how to get in touch
  * with the loggers.
  */
-public class Marketplace {
+@SuppressWarnings("serial")
+public class Marketplace implements Serializable {
 
 	private static Marketplace instance = new Marketplace();
 	
@@ -30,6 +32,11 @@ public class Marketplace {
 	 * @return
 	 */
 	public static Marketplace getInstance() { return instance; }
+	
+	/**
+	 * For ForestSim only, replace the marketplace with one restored from a checkpoint.
+	 */
+	public static void setInstance(Marketplace value) { instance = value; }
 
 	/**
 	 * Get the list of registered harvesters.
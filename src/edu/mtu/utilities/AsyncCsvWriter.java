@@ -0,0 +1,269 @@
+package edu.mtu.utilities;
+
+import java.io.IOException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * This class writes cells to a set of CSV files from a dedicated thread so that the simulation does not 
+ * wait on the disk. Cells are placed in a bounded queue of primitives, so queuing a cell does not allocate, 
+ * and the caller only blocks when the queue is full.
+ * 
+ * Operations are performed in the order they are queued, and closing the writer waits for the queue to 
+ * drain and forces each file to the storage device before it is closed. If the writer thread encounters an
+ * error the files are closed and the error is thrown by the next operation, operations after the writer
+ * is closed are rejected.
+ */
+public class AsyncCsvWriter {
+	
+	// Operations that may be queued
+	private final static byte WriteDouble = 0;
+	private final static byte WriteInt = 1;
+	private final static byte NewLine = 2;
+	private final static byte Flush = 3;
+	private final static byte Close = 4;
+	
+	// Default number of operations that may be queued
+	public final static int DefaultCapacity = 4096;
+	
+	private final BufferedCsvWriter[] writers;
+	
+	// The queue, as a ring buffer of primitives
+	private final byte[] operations;
+	private final int[] files;
+	private final double[] values;
+	private long head = 0;
+	private long tail = 0;
+	
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition notEmpty = lock.newCondition();
+	private final Condition notFull = lock.newCondition();
+	
+	private final Thread thread;
+	private volatile IOException error = null;
+	
+	// Guarded by the lock, closed is set by the caller and stopped once the writer thread exits
+	private boolean closed = false;
+	private boolean stopped = false;
+	
+	/**
+	 * Open the files for writing with the default capacity.
+	 * 
+	 * @param fileNames The file names and paths, the index of the file is used when writing.
+	 * @param append True if the files should be appended to, false otherwise.
+	 */
+	public AsyncCsvWriter(String[] fileNames, boolean append) throws IOException {
+		this(fileNames, append, DefaultCapacity);
+	}
+	
+	/**
+	 * Open the files for writing.
+	 * 
+	 * @param fileNames The file names and paths, the index of the file is used when writing.
+	 * @param append True if the files should be appended to, false otherwise.
+	 * @param capacity The number of operations that may be queued before the caller blocks.
+	 */
+	public AsyncCsvWriter(String[] fileNames, boolean append, int capacity) throws IOException {
+		this(fileNames, append, capacity, Compression.None);
+	}
+	
+	/**
+	 * Open the files for writing.
+	 * 
+	 * @param fileNames The file names and paths, the index of the file is used when writing.
+	 * @param append True if the files should be appended to, false otherwise.
+	 * @param capacity The number of operations that may be queued before the caller blocks.
+	 * @param level The gzip compression level, or Compression.None for plain text.
+	 */
+	public AsyncCsvWriter(String[] fileNames, boolean append, int capacity, int level) throws IOException {
+		writers = new BufferedCsvWriter[fileNames.length];
+		for (int ndx = 0; ndx < fileNames.length; ndx++) {
+			writers[ndx] = new BufferedCsvWriter(fileNames[ndx], append, level);
+		}
+		
+		operations = new byte[capacity];
+		files = new int[capacity];
+		values = new double[capacity];
+		
+		thread = new Thread(new Runnable() {
+			public void run() {
+				drain();
+			}
+		}, "AsyncCsvWriter");
+		thread.setDaemon(true);
+		thread.start();
+	}
+	
+	/**
+	 * Finalize the line of each file, wait for all queued operations to be written, force the files to the 
+	 * storage device, and close them.
+	 */
+	public void close() throws IOException {
+		lock.lock();
+		try {
+			if (closed) {
+				return;
+			}
+			closed = true;
+		} finally {
+			lock.unlock();
+		}
+		enqueue(Close, 0, 0);
+		try {
+			thread.join();
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while closing the files.", ex);
+		}
+		check();
+	}
+	
+	/**
+	 * Queue a flush of the buffers of all files.
+	 */
+	public void flush() throws IOException {
+		enqueue(Flush, 0, 0);
+	}
+	
+	/**
+	 * Queue the system defined new line operator for the file.
+	 */
+	public void newLine(int file) throws IOException {
+		enqueue(NewLine, file, 0);
+	}
+	
+	/**
+	 * Queue the indicated value to be written to the file as a cell.
+	 */
+	public void write(int file, int value) throws IOException {
+		enqueue(WriteInt, file, value);
+	}
+	
+	/**
+	 * Queue the indicated value to be written to the file as a cell.
+	 */
+	public void write(int file, double value) throws IOException {
+		enqueue(WriteDouble, file, value);
+	}
+	
+	/**
+	 * Throw any error encountered by the writer thread.
+	 */
+	private void check() throws IOException {
+		if (error != null) {
+			throw new IOException("Unable to write the CSV files.", error);
+		}
+	}
+	
+	/**
+	 * Process queued operations until the files are closed or an error occurs.
+	 */
+	private void drain() {
+		boolean running = true;
+		while (running) {
+			// Wait for operations to be queued
+			long start, end;
+			lock.lock();
+			try {
+				while (head == tail) {
+					notEmpty.awaitUninterruptibly();
+				}
+				start = head;
+				end = tail;
+			} finally {
+				lock.unlock();
+			}
+			
+			// Process the operations outside of the lock, the slots are not reused until the head advances
+			try {
+				for (long ndx = start; ndx < end && running; ndx++) {
+					int slot = (int)(ndx % operations.length);
+					running = process(operations[slot], files[slot], values[slot]);
+				}
+			} catch (IOException ex) {
+				error = ex;
+				running = false;
+				release();
+			}
+			
+			// Release the slots, discarding anything still queued if we are stopping
+			lock.lock();
+			try {
+				head = running ? end : tail;
+				stopped = !running;
+				notFull.signalAll();
+			} finally {
+				lock.unlock();
+			}
+		}
+	}
+	
+	/**
+	 * Place the operation in the queue, blocking if the queue is full.
+	 */
+	private void enqueue(byte operation, int file, double value) throws IOException {
+		lock.lock();
+		try {
+			while (tail - head == operations.length && !stopped) {
+				notFull.awaitUninterruptibly();
+			}
+			
+			// Nothing can be queued once the writer thread has stopped or the writer is closed
+			check();
+			if (stopped || (closed && operation != Close)) {
+				throw new IOException("The CSV files have been closed.");
+			}
+			
+			int slot = (int)(tail % operations.length);
+			operations[slot] = operation;
+			files[slot] = file;
+			values[slot] = value;
+			tail++;
+			notEmpty.signal();
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Perform the operation, returns false when the writer thread should stop.
+	 */
+	private boolean process(byte operation, int file, double value) throws IOException {
+		switch (operation) {
+		case WriteDouble:
+			writers[file].write(value);
+			return true;
+		case WriteInt:
+			writers[file].write((int)value);
+			return true;
+		case NewLine:
+			writers[file].newLine();
+			return true;
+		case Flush:
+			for (BufferedCsvWriter writer : writers) {
+				writer.flush();
+			}
+			return true;
+		case Close:
+			for (BufferedCsvWriter writer : writers) {
+				writer.close();
+			}
+			return false;
+		default:
+			throw new IOException("Unknown operation: " + operation);
+		}
+	}
+	
+	/**
+	 * Close the files after an error, any further errors are ignored since the first is reported.
+	 */
+	private void release() {
+		for (BufferedCsvWriter writer : writers) {
+			try {
+				writer.close();
+			} catch (IOException ex) {
+				// Ignored, see above
+			}
+		}
+	}
+}
@@ -1,11 +1,19 @@
 package edu.mtu.utilities;
 
 import java.io.BufferedWriter;
-import java.io.FileWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.util.zip.GZIPOutputStream;
 
 public class BufferedCsvWriter {
 
+	// Reusable buffers so that numeric cells can be written without creating a string per cell
+	private final StringBuilder cell = new StringBuilder(32);
+	private char[] buffer = new char[32];
+	
+	private FileOutputStream stream;
+	private GZIPOutputStream compressor;
 	private BufferedWriter writer;
 	
 	/**
@@ -15,15 +23,30 @@ public class BufferedCsvWriter {
 	 * @param append True if the file should be appended to, false otherwise.
 	 */
 	public BufferedCsvWriter(String fileName, boolean append) throws IOException {
-		open(fileName, append);
+		open(fileName, append, Compression.None);
 	}
 	
 	/**
-	 * Finalize the line, flush any buffered contents, and close the file.
+	 * Open the file for writing.
+	 * 
+	 * @param fileName The file name and path.
+	 * @param append True if the file should be appended to, false otherwise.
+	 * @param level The gzip compression level, or Compression.None for plain text.
+	 */
+	public BufferedCsvWriter(String fileName, boolean append, int level) throws IOException {
+		open(fileName, append, level);
+	}
+	
+	/**
+	 * Finalize the line, flush any buffered contents to the storage device, and close the file.
 	 */
 	public void close() throws IOException {
 		writer.newLine();
 		writer.flush();
+		if (compressor != null) {
+			compressor.finish();
+		}
+		stream.getFD().sync();
 		writer.close();
 	}
 	
@@ -48,28 +71,70 @@ public class BufferedCsvWriter {
 	 * @param append True if the file should be appended to, false otherwise.
 	 */
 	public void open(String fileName, boolean append) throws IOException {
-		FileWriter file = new FileWriter(fileName, append);
-		writer = new BufferedWriter(file);
+		open(fileName, append, Compression.None);
+	}
+	
+	/**
+	 * Open the file for writing, when appending to a compressed file a new gzip member is started.
+	 * 
+	 * @param fileName The file name and path.
+	 * @param append True if the file should be appended to, false otherwise.
+	 * @param level The gzip compression level, or Compression.None for plain text.
+	 */
+	public void open(String fileName, boolean append, int level) throws IOException {
+		stream = new FileOutputStream(fileName, append);
+		if (level == Compression.None) {
+			compressor = null;
+			writer = new BufferedWriter(new OutputStreamWriter(stream));
+		} else {
+			compressor = Compression.gzip(stream, level);
+			writer = new BufferedWriter(new OutputStreamWriter(compressor));
+		}
+	}
+	
+	/**
+	 * Flushes the buffer and forces the contents of the file to the storage device.
+	 */
+	public void sync() throws IOException {
+		writer.flush();
+		stream.getFD().sync();
 	}
 
 	/**
 	 * Write the indicated value to the file as a cell.
 	 */
 	public void write(int value) throws IOException {
-		writer.write(value + ",");
+		cell.setLength(0);
+		cell.append(value).append(',');
+		writeCell();
 	}
 	
 	/**
 	 * Write the indicated value to the file as a cell.
 	 */
 	public void write(double value) throws IOException {
-		writer.write(value + ",");
+		cell.setLength(0);
+		cell.append(value).append(',');
+		writeCell();
 	}	
 	
 	/**
 	 * Write the indicated value to the file as a cell, note that it is NOT escaped.
 	 */
 	public void write(String value) throws IOException {
-		writer.write(value + ",");
+		writer.write(value);
+		writer.write(',');
+	}
+	
+	/**
+	 * Copy the formatted cell to the writer.
+	 */
+	private void writeCell() throws IOException {
+		int length = cell.length();
+		if (buffer.length < length) {
+			buffer = new char[length];
+		}
+		cell.getChars(0, length, buffer, 0);
+		writer.write(buffer, 0, length);
 	}
 }
@@ -0,0 +1,228 @@
+package edu.mtu.utilities;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class reads a binary results column written by the ColumnWriter. The file is memory mapped and 
+ * the replicates are indexed from their footers, so single replicates, ranges of replicates, or the summary 
+ * of the column can be read without parsing the whole file.
+ */
+public class ColumnReader {
+	
+	private final MappedByteBuffer buffer;
+	
+	// Index of the replicates, in the order they were written
+	private final ColumnType type;
+	private final long[] offsets;
+	private final int[] counts;
+	private final double[] minimums;
+	private final double[] maximums;
+	private final double[] sums;
+	
+	/**
+	 * Open the column and index the replicates.
+	 * 
+	 * @param fileName The file name and path.
+	 */
+	public ColumnReader(String fileName) throws IOException {
+		RandomAccessFile file = new RandomAccessFile(fileName, "r");
+		try {
+			buffer = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length());
+		} finally {
+			file.close();
+		}
+		
+		// Walk the footers from the end of the file
+		List<long[]> segments = new ArrayList<long[]>();
+		ColumnType columnType = null;
+		long end = buffer.limit();
+		while (end > 0) {
+			int footer = (int)(end - ColumnWriter.FooterSize);
+			if (footer < 0 || buffer.getInt(footer + ColumnWriter.FooterSize - 4) != ColumnWriter.Marker) {
+				throw new IOException("The column " + fileName + " is incomplete or corrupt at " + end);
+			}
+			int count = buffer.getInt(footer);
+			ColumnType segmentType = ColumnType.fromValue(buffer.getInt(footer + 4));
+			if (columnType != null && columnType != segmentType) {
+				throw new IOException("The column " + fileName + " contains more than one type.");
+			}
+			columnType = segmentType;
+			long offset = footer - (long)count * segmentType.getWidth();
+			segments.add(new long[] { offset, footer });
+			end = offset;
+		}
+		Collections.reverse(segments);
+		type = (columnType != null) ? columnType : ColumnType.Float64;
+		
+		// Build the index
+		int replicates = segments.size();
+		offsets = new long[replicates];
+		counts = new int[replicates];
+		minimums = new double[replicates];
+		maximums = new double[replicates];
+		sums = new double[replicates];
+		for (int ndx = 0; ndx < replicates; ndx++) {
+			int footer = (int)segments.get(ndx)[1];
+			offsets[ndx] = segments.get(ndx)[0];
+			counts[ndx] = buffer.getInt(footer);
+			minimums[ndx] = buffer.getDouble(footer + 8);
+			maximums[ndx] = buffer.getDouble(footer + 16);
+			sums[ndx] = buffer.getDouble(footer + 24);
+		}
+	}
+	
+	/**
+	 * Export a column to CSV from the command line.
+	 * 
+	 * Usage: ColumnReader [column] [csv]
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length != 2) {
+			System.err.println("Usage: ColumnReader [column] [csv]");
+			System.exit(-1);
+		}
+		new ColumnReader(args[0]).exportCsv(args[1]);
+	}
+	
+	/**
+	 * Export the column as CSV, one row per replicate and one cell per step, in the same format as the
+	 * BufferedCsvWriter.
+	 * 
+	 * @param fileName The file name and path to write to.
+	 */
+	public void exportCsv(String fileName) throws IOException {
+		BufferedCsvWriter writer = new BufferedCsvWriter(fileName, false);
+		for (int replicate = 0; replicate < offsets.length; replicate++) {
+			if (replicate > 0) {
+				writer.newLine();
+			}
+			for (int step = 0; step < counts[replicate]; step++) {
+				if (type == ColumnType.Int32) {
+					writer.write(getInt(replicate, step));
+				} else {
+					writer.write(getDouble(replicate, step));
+				}
+			}
+		}
+		writer.close();
+	}
+	
+	/**
+	 * Get the number of values in the column.
+	 */
+	public long getCount() {
+		long count = 0;
+		for (int value : counts) {
+			count += value;
+		}
+		return count;
+	}
+	
+	/**
+	 * Get the number of steps recorded for the replicate.
+	 */
+	public int getCount(int replicate) { return counts[replicate]; }
+	
+	/**
+	 * Get the value for the replicate and step.
+	 */
+	public double getDouble(int replicate, int step) {
+		if (step < 0 || step >= counts[replicate]) {
+			throw new IndexOutOfBoundsException("Step " + step + " is not in replicate " + replicate);
+		}
+		int position = (int)(offsets[replicate] + (long)step * type.getWidth());
+		return (type == ColumnType.Int32) ? buffer.getInt(position) : buffer.getDouble(position);
+	}
+	
+	/**
+	 * Get the value for the replicate and step, only valid for integer columns.
+	 */
+	public int getInt(int replicate, int step) {
+		if (type != ColumnType.Int32) {
+			throw new IllegalStateException("The column does not contain integers.");
+		}
+		return (int)getDouble(replicate, step);
+	}
+	
+	/**
+	 * Get the maximum value in the column.
+	 */
+	public double getMaximum() {
+		double maximum = Double.NEGATIVE_INFINITY;
+		for (double value : maximums) {
+			maximum = Math.max(maximum, value);
+		}
+		return maximum;
+	}
+	
+	/**
+	 * Get the maximum value for the replicate.
+	 */
+	public double getMaximum(int replicate) { return maximums[replicate]; }
+	
+	/**
+	 * Get the minimum value in the column.
+	 */
+	public double getMinimum() {
+		double minimum = Double.POSITIVE_INFINITY;
+		for (double value : minimums) {
+			minimum = Math.min(minimum, value);
+		}
+		return minimum;
+	}
+	
+	/**
+	 * Get the minimum value for the replicate.
+	 */
+	public double getMinimum(int replicate) { return minimums[replicate]; }
+	
+	/**
+	 * Get the number of replicates in the column.
+	 */
+	public int getReplicateCount() { return offsets.length; }
+	
+	/**
+	 * Get the sum of the values in the column.
+	 */
+	public double getSum() {
+		double sum = 0;
+		for (double value : sums) {
+			sum += value;
+		}
+		return sum;
+	}
+	
+	/**
+	 * Get the sum of the values for the replicate.
+	 */
+	public double getSum(int replicate) { return sums[replicate]; }
+	
+	/**
+	 * Get the type of the values in the column.
+	 */
+	public ColumnType getType() { return type; }
+	
+	/**
+	 * Read the values for the range of replicates, one row per replicate.
+	 * 
+	 * @param start The first replicate (inclusive).
+	 * @param end The last replicate (exclusive).
+	 */
+	public double[][] read(int start, int end) {
+		double[][] values = new double[end - start][];
+		for (int replicate = start; replicate < end; replicate++) {
+			double[] row = new double[counts[replicate]];
+			for (int step = 0; step < row.length; step++) {
+				row[step] = getDouble(replicate, step);
+			}
+			values[replicate - start] = row;
+		}
+		return values;
+	}
+}
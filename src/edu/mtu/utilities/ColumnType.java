@@ -0,0 +1,36 @@
+package edu.mtu.utilities;
+
+/**
+ * The types of values that may be stored in a results column.
+ */
+public enum ColumnType {
+	Float64(0, 8),
+	Int32(1, 4);
+	
+	private int value;
+	private int width;
+	
+	private ColumnType(int value, int width) {
+		this.value = value;
+		this.width = width;
+	}
+	
+	/**
+	 * Get the type with the given value.
+	 */
+	public static ColumnType fromValue(int value) {
+		for (ColumnType type : ColumnType.values()) {
+			if (type.value == value) {
+				return type;
+			}
+		}
+		throw new IllegalArgumentException("Unknown column type: " + value);
+	}
+	
+	public int getValue() { return value; }
+	
+	/**
+	 * Get the number of bytes used by each value.
+	 */
+	public int getWidth() { return width; }
+}
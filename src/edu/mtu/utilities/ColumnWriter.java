@@ -0,0 +1,175 @@
+package edu.mtu.utilities;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+/**
+ * This class appends one replicate of a time series to a binary results column. 
+ * 
+ * A column file is a sequence of segments, one per replicate, each being the values for the steps 
+ * followed by a footer with the number of values, the type, the minimum, maximum, and sum of the values, 
+ * and a marker. Values are big-endian so the file can be read with a ByteBuffer. Since replicates are 
+ * appended, the ColumnReader locates the segments by walking the footers from the end of the file.
+ * 
+ * A run that is killed leaves a segment without a footer, so when the column is opened anything after the 
+ * last complete segment is discarded before the replicate is appended.
+ */
+public class ColumnWriter {
+	
+	// Marker written at the end of each footer
+	public final static int Marker = 0x464f5245;
+	
+	// Size of the footer in bytes
+	public final static int FooterSize = 4 + 4 + 8 + 8 + 8 + 4;
+	
+	private final ColumnType type;
+	
+	private FileOutputStream stream;
+	private DataOutputStream writer;
+	
+	private int count = 0;
+	private double minimum = Double.POSITIVE_INFINITY;
+	private double maximum = Double.NEGATIVE_INFINITY;
+	private double sum = 0;
+	
+	/**
+	 * Open the column for appending a replicate.
+	 * 
+	 * @param fileName The file name and path.
+	 * @param type The type of the values in the column.
+	 */
+	public ColumnWriter(String fileName, ColumnType type) throws IOException {
+		this.type = type;
+		recover(fileName);
+		stream = new FileOutputStream(fileName, true);
+		writer = new DataOutputStream(new BufferedOutputStream(stream));
+	}
+	
+	/**
+	 * Write the footer for the replicate, flush the contents to the storage device, and close the file.
+	 */
+	public void close() throws IOException {
+		writer.writeInt(count);
+		writer.writeInt(type.getValue());
+		writer.writeDouble(minimum);
+		writer.writeDouble(maximum);
+		writer.writeDouble(sum);
+		writer.writeInt(Marker);
+		writer.flush();
+		stream.getFD().sync();
+		writer.close();
+	}
+	
+	/**
+	 * Flushes the buffer to the file.
+	 */
+	public void flush() throws IOException {
+		writer.flush();
+	}
+	
+	/**
+	 * Get the type of the values in the column.
+	 */
+	public ColumnType getType() { return type; }
+	
+	/**
+	 * Write the value for the next step.
+	 */
+	public void write(int value) throws IOException {
+		if (type == ColumnType.Float64) {
+			write((double)value);
+			return;
+		}
+		writer.writeInt(value);
+		update(value);
+	}
+	
+	/**
+	 * Write the value for the next step.
+	 */
+	public void write(double value) throws IOException {
+		if (type != ColumnType.Float64) {
+			throw new IllegalArgumentException("A floating point value cannot be written to an " + type + " column.");
+		}
+		writer.writeDouble(value);
+		update(value);
+	}
+	
+	/**
+	 * Find the end of the last complete segment in the file, or zero if there are none.
+	 */
+	private static long findEnd(RandomAccessFile file) throws IOException {
+		// Segments are always a multiple of four bytes long
+		long length = file.length();
+		for (long end = length - length % 4; end > 0; end -= 4) {
+			if (isComplete(file, end)) {
+				return end;
+			}
+		}
+		return 0;
+	}
+	
+	/**
+	 * Check to see if the footers from the given end of the file lead back to the start of the file.
+	 */
+	private static boolean isComplete(RandomAccessFile file, long end) throws IOException {
+		ColumnType columnType = null;
+		while (end > 0) {
+			long footer = end - FooterSize;
+			if (footer < 0) {
+				return false;
+			}
+			file.seek(footer + FooterSize - 4);
+			if (file.readInt() != Marker) {
+				return false;
+			}
+			file.seek(footer);
+			int count = file.readInt();
+			ColumnType segmentType;
+			try {
+				segmentType = ColumnType.fromValue(file.readInt());
+			} catch (IllegalArgumentException ex) {
+				return false;
+			}
+			if (count < 0 || (columnType != null && columnType != segmentType)) {
+				return false;
+			}
+			columnType = segmentType;
+			end = footer - (long)count * segmentType.getWidth();
+		}
+		return end == 0;
+	}
+	
+	/**
+	 * Truncate the file back to the last complete segment, if it exists.
+	 */
+	private static void recover(String fileName) throws IOException {
+		if (!new File(fileName).exists()) {
+			return;
+		}
+		RandomAccessFile file = new RandomAccessFile(fileName, "rw");
+		try {
+			long end = findEnd(file);
+			if (end != file.length()) {
+				System.err.println("WARNING: discarding " + (file.length() - end) + " bytes of an incomplete replicate from " + fileName);
+				file.setLength(end);
+			}
+		} finally {
+			file.close();
+		}
+	}
+	
+	/**
+	 * Update the summary of the values.
+	 */
+	private void update(double value) {
+		count++;
+		minimum = Math.min(minimum, value);
+		maximum = Math.max(maximum, value);
+		sum += value;
+	}
+}
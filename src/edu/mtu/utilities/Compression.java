@@ -0,0 +1,74 @@
+package edu.mtu.utilities;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * This class contains helper methods for writing gzip compressed output.
+ */
+public class Compression {
+	
+	// Extension added to the name of compressed files
+	public final static String Extension = ".gz";
+	
+	// Compression level that indicates the output should not be compressed
+	public final static int None = 0;
+	
+	/**
+	 * Compress the file to a gzip file with the same name and the extension appended, the original file
+	 * is deleted once the compressed file has been written.
+	 * 
+	 * @param fileName The file name and path.
+	 * @param level The compression level, one (fastest) through nine (best).
+	 */
+	public static void compressFile(String fileName, int level) throws IOException {
+		File source = new File(fileName);
+		InputStream input = new BufferedInputStream(new FileInputStream(source));
+		OutputStream output = new ParallelGzipOutputStream(new FileOutputStream(fileName + Extension), level);
+		try {
+			byte[] buffer = new byte[8192];
+			int read;
+			while ((read = input.read(buffer)) != -1) {
+				output.write(buffer, 0, read);
+			}
+		} finally {
+			input.close();
+			output.close();
+		}
+		
+		if (!source.delete()) {
+			System.err.println("WARNING: Unable to delete " + fileName + " after compression.");
+		}
+	}
+	
+	/**
+	 * Get the file name to use for the compression level provided.
+	 */
+	public static String getFileName(String fileName, int level) {
+		return (level == None) ? fileName : fileName + Extension;
+	}
+	
+	/**
+	 * Wrap the output stream in a gzip stream at the compression level provided, flushing the stream 
+	 * will flush the compressor as well.
+	 * 
+	 * @param output The stream to write the compressed output to.
+	 * @param level The compression level, one (fastest) through nine (best).
+	 */
+	public static GZIPOutputStream gzip(OutputStream output, final int level) throws IOException {
+		if (level < 1 || level > 9) {
+			throw new IllegalArgumentException("The compression level must be between one and nine.");
+		}
+		return new GZIPOutputStream(output, 8192, true) {
+			{
+				def.setLevel(level);
+			}
+		};
+	}
+}
@@ -0,0 +1,153 @@
+package edu.mtu.utilities;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * This stream compresses large outputs using all of the processors. The output is split into blocks that 
+ * are compressed in parallel as independent gzip members and written in order, the concatenated members 
+ * are a valid gzip file.
+ */
+public class ParallelGzipOutputStream extends OutputStream {
+	
+	// Default size of the blocks to compress
+	public final static int DefaultBlockSize = 1 << 17;
+	
+	private final static int threadCount = Runtime.getRuntime().availableProcessors();
+	private final static ExecutorService service = Executors.newFixedThreadPool(threadCount);
+	
+	// Blocks that are being compressed, in the order they are to be written 
+	private final Deque<Future<byte[]>> pending = new ArrayDeque<Future<byte[]>>();
+	
+	private final OutputStream output;
+	private final int blockSize;
+	private final int level;
+	
+	private byte[] block;
+	private int count = 0;
+	private boolean empty = true;
+	
+	/**
+	 * Constructor, with the default block size.
+	 * 
+	 * @param output The stream to write the compressed output to.
+	 * @param level The compression level, one (fastest) through nine (best).
+	 */
+	public ParallelGzipOutputStream(OutputStream output, int level) {
+		this(output, level, DefaultBlockSize);
+	}
+	
+	/**
+	 * Constructor.
+	 * 
+	 * @param output The stream to write the compressed output to.
+	 * @param level The compression level, one (fastest) through nine (best).
+	 * @param blockSize The size of the blocks that are compressed independently.
+	 */
+	public ParallelGzipOutputStream(OutputStream output, int level, int blockSize) {
+		if (level < 1 || level > 9) {
+			throw new IllegalArgumentException("The compression level must be between one and nine.");
+		}
+		this.output = output;
+		this.level = level;
+		this.blockSize = blockSize;
+		block = new byte[blockSize];
+	}
+	
+	/**
+	 * Compress any remaining output, write all of the blocks, and close the underlying stream.
+	 */
+	@Override
+	public void close() throws IOException {
+		// An empty gzip file still needs a member
+		if (empty) {
+			submit();
+		}
+		flush();
+		output.close();
+	}
+	
+	/**
+	 * Compress any buffered output and write all of the blocks to the underlying stream.
+	 */
+	@Override
+	public void flush() throws IOException {
+		if (count > 0) {
+			submit();
+		}
+		while (!pending.isEmpty()) {
+			writeNext();
+		}
+		output.flush();
+	}
+	
+	@Override
+	public void write(int value) throws IOException {
+		block[count++] = (byte)value;
+		if (count == blockSize) {
+			submit();
+		}
+	}
+	
+	@Override
+	public void write(byte[] buffer, int offset, int length) throws IOException {
+		while (length > 0) {
+			int copy = Math.min(length, blockSize - count);
+			System.arraycopy(buffer, offset, block, count, copy);
+			count += copy;
+			offset += copy;
+			length -= copy;
+			if (count == blockSize) {
+				submit();
+			}
+		}
+	}
+	
+	/**
+	 * Submit the current block for compression, blocking if too many blocks are pending.
+	 */
+	private void submit() throws IOException {
+		final byte[] data = block;
+		final int length = count;
+		pending.add(service.submit(new Callable<byte[]>() {
+			public byte[] call() throws Exception {
+				ByteArrayOutputStream buffer = new ByteArrayOutputStream(length / 2 + 64);
+				GZIPOutputStream gzip = Compression.gzip(buffer, level);
+				gzip.write(data, 0, length);
+				gzip.close();
+				return buffer.toByteArray();
+			}
+		}));
+		block = new byte[blockSize];
+		count = 0;
+		empty = false;
+		
+		// Limit the memory used by the pending blocks
+		while (pending.size() > threadCount * 2) {
+			writeNext();
+		}
+	}
+	
+	/**
+	 * Wait for the oldest block to be compressed and write it.
+	 */
+	private void writeNext() throws IOException {
+		try {
+			output.write(pending.poll().get());
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while compressing.", ex);
+		} catch (ExecutionException ex) {
+			throw new IOException("Unable to compress the block.", ex.getCause());
+		}
+	}
+}
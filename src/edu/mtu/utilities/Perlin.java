@@ -1,5 +1,13 @@
 package edu.mtu.utilities;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import ec.util.MersenneTwisterFast;
 import sim.field.grid.DoubleGrid2D;
 
@@ -11,8 +19,13 @@ public class Perlin {
 	// This value is set by the developer, 0.5 is recommended as a good starting point
 	private final static float Persistance = 0.5f;
 	
+	private final static int threadCount = Runtime.getRuntime().availableProcessors();
+	private final static ExecutorService service = Executors.newFixedThreadPool(threadCount);
+	
 	/**
-	 * Generate a random grid using Perlin noise of the given dimensions.
+	 * Generate a random grid using Perlin noise of the given dimensions. All of the octaves are computed 
+	 * for each cell in a single pass, in parallel over bands of columns, so only the noise and the result 
+	 * are held in memory.
 	 * 
 	 * @param height The height of the grid.
 	 * @param width The width of the grid.
@@ -20,52 +33,101 @@ public class Perlin {
 	 * @param random The random number generator to use for the generation.
 	 * @return The generated gird with Perlin noise applied.
 	 */
-	public static DoubleGrid2D generate(int height, int width, int octaves, MersenneTwisterFast random) {
-		// Generate the random noise
-		DoubleGrid2D noise = generateWhiteNoise(height, width, random);
-		
-		// Smooth the random noise
-		DoubleGrid2D[] smoothed = new DoubleGrid2D[octaves];
-		for (int ndx = 0; ndx < octaves; ndx++) {
-			smoothed[ndx] = smoothNoise(noise, ndx);
-		}
+	public static DoubleGrid2D generate(final int height, final int width, final int octaves, MersenneTwisterFast random) {
+		// Generate the random noise, this must be done in order to preserve the sequence
+		final double[][] noise = generateWhiteNoise(height, width, random).field;
+		final DoubleGrid2D grid = new DoubleGrid2D(width, height);
 		
-		return generatePerlinNoise(noise, smoothed, octaves);
-	}
-	
-	/**
-	 * Generate the Perlin noise based upon the base noise grid, smoothed grids, and the number of octaves.
-	 * 
-	 * @param noise A grid containing white noise.
-	 * @param smoothed Grids based upon the white noise that have been smoothed.
-	 * @param octaves The number of octaves of smoothing.
-	 * @return The final grid with Perlin noise.
-	 */
-	private static DoubleGrid2D generatePerlinNoise(DoubleGrid2D noise, DoubleGrid2D[] smoothed, int octaves) {
-		DoubleGrid2D grid = new DoubleGrid2D(noise.getWidth(), noise.getHeight());
-
+		// Note the amplitude of each octave, the highest octave is the first to be scaled
+		final float[] amplitudes = new float[octaves];
 		float amplitude = 1.0f;
 		float totalAmplitude = 0.0f;
-
 		for (int octave = octaves - 1; octave >= 0; octave--) {
 			amplitude *= Persistance;
 			totalAmplitude += amplitude;
-
-			for (int ndx = 0; ndx < grid.getWidth(); ndx++) {
-				for (int ndy = 0; ndy < grid.getHeight(); ndy++) {
-					grid.set(ndx, ndy, grid.get(ndx, ndy) + smoothed[octave].get(ndx, ndy) * amplitude); 
-				}
+			amplitudes[octave] = amplitude;
+		}
+		final float total = totalAmplitude;
+		
+		// The vertical samples are the same for every column, the blends are exact as floats
+		final int[][] rows = new int[octaves][height * 2];
+		final float[][] verticalBlends = new float[octaves][height];
+		for (int octave = 0; octave < octaves; octave++) {
+			int samplePeriod = 1 << octave;
+			float sampleFrequency = 1.0f / samplePeriod;
+			for (int ndy = 0; ndy < height; ndy++) {
+				int sample_j0 = (ndy / samplePeriod) * samplePeriod;
+				rows[octave][ndy * 2] = sample_j0;
+				rows[octave][ndy * 2 + 1] = (sample_j0 + samplePeriod) % height;
+				verticalBlends[octave][ndy] = (ndy - sample_j0) * sampleFrequency;
 			}
 		}
-
-		for (int ndx = 0; ndx < grid.getWidth(); ndx++) {
-			for (int ndy = 0; ndy < grid.getHeight(); ndy++) {
-				grid.set(ndx, ndy, grid.get(ndx, ndy) / totalAmplitude);
+		
+		// Compute the columns in parallel
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+		final int range = (width + threadCount - 1) / threadCount;
+		for (int start = 0; start < width; start += range) {
+			final int first = start;
+			final int last = Math.min(start + range, width);
+			tasks.add(new Callable<Void>() {
+				public Void call() {
+					generateColumns(noise, grid.field, first, last, octaves, amplitudes, total, rows, verticalBlends);
+					return null;
+				}
+			});
+		}
+		try {
+			for (Future<Void> future : service.invokeAll(tasks)) {
+				future.get();
 			}
+		} catch (InterruptedException | ExecutionException ex) {
+			System.err.println("An error occurred generating the Perlin noise: " + ex);
+			System.exit(-1);
 		}
-
+		
 		return grid;
 	}
+	
+	/**
+	 * Generate the Perlin noise for the columns in the range provided, the operations match those of 
+	 * smoothing each octave in full and then combining them so that the values are identical.
+	 */
+	private static void generateColumns(double[][] noise, double[][] field, int start, int end, int octaves, 
+			float[] amplitudes, float totalAmplitude, int[][] rows, float[][] verticalBlends) {
+		int width = noise.length;
+		int height = field[start].length;
+		
+		double[][] column0 = new double[octaves][];
+		double[][] column1 = new double[octaves][];
+		double[] horizontalBlends = new double[octaves];
+		
+		for (int ndx = start; ndx < end; ndx++) {
+			// Note the horizontal samples for the column
+			for (int octave = 0; octave < octaves; octave++) {
+				int samplePeriod = 1 << octave;
+				float sampleFrequency = 1.0f / samplePeriod;
+				int sample_i0 = (ndx / samplePeriod) * samplePeriod;
+				// Ensure that values wrap around
+				int sample_i1 = (sample_i0 + samplePeriod) % width;
+				column0[octave] = noise[sample_i0];
+				column1[octave] = noise[sample_i1];
+				horizontalBlends[octave] = (ndx - sample_i0) * sampleFrequency;
+			}
+			
+			double[] column = field[ndx];
+			for (int ndy = 0; ndy < height; ndy++) {
+				double value = 0.0;
+				for (int octave = octaves - 1; octave >= 0; octave--) {
+					int sample_j0 = rows[octave][ndy * 2];
+					int sample_j1 = rows[octave][ndy * 2 + 1];
+					double top = interpolate(column0[octave][sample_j0], column1[octave][sample_j0], horizontalBlends[octave]);
+					double bottom = interpolate(column0[octave][sample_j1], column1[octave][sample_j1], horizontalBlends[octave]);
+					value = value + interpolate(top, bottom, verticalBlends[octave][ndy]) * amplitudes[octave];
+				}
+				column[ndy] = value / totalAmplitude;
+			}
+		}
+	}
 		
 	/**
 	 * Generate a grid of random noise with values between zero and one.
@@ -107,36 +169,4 @@ public class Perlin {
 		}
 		return grid;
 	}
-	
-	/**
-	 * Generate smooth noise from the grid provided.
-	 * 
-	 * @param base The grid to generate smooth noise form.
-	 * @param octave The current octave of smoothing.
-	 * @return The smoothed grid.
-	 */
-	private static DoubleGrid2D smoothNoise(DoubleGrid2D base, int octave) {
-		DoubleGrid2D grid = new DoubleGrid2D(base.getWidth(), base.getHeight());
-		
-		// Calculate the sample period and frequency
-		int samplePeriod = 1 << octave;
-		float sampleFrequency = 1.0f / samplePeriod;
-				
-		for (int ndx = 0; ndx < base.getWidth(); ndx++) {
-			int sample_i0 = (ndx / samplePeriod) * samplePeriod;
-			// Ensure that values wrap around
-			int sample_i1 = (sample_i0 + samplePeriod) % base.getWidth();
-			double horizontal_blend = (ndx - sample_i0) * sampleFrequency;
-
-			for (int ndy = 0; ndy < base.getHeight(); ndy++) {
-				int sample_j0 = (ndy / samplePeriod) * samplePeriod;
-				int sample_j1 = (sample_j0 + samplePeriod) % base.getHeight();
-				double vertical_blend = (ndy - sample_j0) * sampleFrequency;
-				double top = interpolate(base.get(sample_i0, sample_j0), base.get(sample_i1, sample_j0), horizontal_blend);
-				double bottom = interpolate(base.get(sample_i0, sample_j1), base.get(sample_i1, sample_j1), horizontal_blend);
-				grid.set(ndx, ndy, interpolate(top, bottom, vertical_blend));
-			}
-		}
-		return grid;
-	}
 }
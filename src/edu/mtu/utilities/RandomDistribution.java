@@ -18,4 +18,26 @@ public class RandomDistribution {
 	public static double NormalDistribution(double mean, double sd, MersenneTwisterFast random) {
 		return random.nextGaussian() * sd + mean;
 	}
+	
+	/**
+	 * Return the number of failed Bernoulli trials before the first success, this is equivalent to 
+	 * drawing against the probability once per trial until the draw succeeds.
+	 * 
+	 * @param probability The probability of success for each trial.
+	 * @param random The random number generator.
+	 * @return The number of failures before the first success, or Long.MAX_VALUE if success is not possible.
+	 */
+	public static long GeometricDistribution(double probability, MersenneTwisterFast random) {
+		if (probability >= 1.0) {
+			return 0;
+		}
+		if (probability <= 0.0) {
+			return Long.MAX_VALUE;
+		}
+		
+		// Invert the CDF, note the draw is shifted to (0, 1] to avoid log(0)
+		double draw = 1.0 - random.nextDouble();
+		double trials = Math.floor(Math.log(draw) / Math.log(1.0 - probability));
+		return (trials < Long.MAX_VALUE) ? (long)trials : Long.MAX_VALUE;
+	}
 }
@@ -0,0 +1,64 @@
+package edu.mtu.utilities;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * This class reads and writes the contents of grids as raw blocks of primitives, column by column, 
+ * matching the layout of the MASON grids. 
+ */
+public class RasterIO {
+	
+	/**
+	 * Read a block of doubles into the field provided, which must already be sized.
+	 */
+	public static void readDoubles(DataInput in, double[][] field) throws IOException {
+		ByteBuffer buffer = allocate(field.length != 0 ? field[0].length : 0, 8);
+		for (double[] column : field) {
+			in.readFully(buffer.array(), 0, column.length * 8);
+			buffer.asDoubleBuffer().get(column);
+		}
+	}
+	
+	/**
+	 * Read a block of integers into the field provided, which must already be sized.
+	 */
+	public static void readInts(DataInput in, int[][] field) throws IOException {
+		ByteBuffer buffer = allocate(field.length != 0 ? field[0].length : 0, 4);
+		for (int[] column : field) {
+			in.readFully(buffer.array(), 0, column.length * 4);
+			buffer.asIntBuffer().get(column);
+		}
+	}
+	
+	/**
+	 * Write the field as a block of doubles.
+	 */
+	public static void writeDoubles(DataOutput out, double[][] field) throws IOException {
+		ByteBuffer buffer = allocate(field.length != 0 ? field[0].length : 0, 8);
+		for (double[] column : field) {
+			buffer.asDoubleBuffer().put(column);
+			out.write(buffer.array(), 0, column.length * 8);
+		}
+	}
+	
+	/**
+	 * Write the field as a block of integers.
+	 */
+	public static void writeInts(DataOutput out, int[][] field) throws IOException {
+		ByteBuffer buffer = allocate(field.length != 0 ? field[0].length : 0, 4);
+		for (int[] column : field) {
+			buffer.asIntBuffer().put(column);
+			out.write(buffer.array(), 0, column.length * 4);
+		}
+	}
+	
+	/**
+	 * Allocate a buffer large enough for one column.
+	 */
+	private static ByteBuffer allocate(int length, int width) {
+		return ByteBuffer.allocate(length * width);
+	}
+}
@@ -0,0 +1,206 @@
+package edu.mtu.utilities;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Calendar;
+
+/**
+ * This class writes rectangular polygons, with an integer ID attribute, to an ESRI shapefile (.shp, .shx,
+ * and .dbf). The records are streamed to disk as they are written and the headers are completed when the
+ * writer is closed, so the number of polygons is not limited by memory.
+ */
+public class ShapefileWriter {
+
+	// Shapefile constants
+	private final static int fileCode = 9994;
+	private final static int headerBytes = 100;
+	private final static int polygonType = 5;
+	private final static int shapeVersion = 1000;
+
+	// Every rectangle is one part with five points: type, box, part and point counts, part index, and points
+	private final static int contentBytes = 4 + 32 + 4 + 4 + 4 + 5 * 16;
+
+	// dBase constants, one numeric ID field
+	private final static int dbfHeaderBytes = 32 + 32 + 1;
+	private final static int idLength = 10;
+	private final static int recordBytes = 1 + idLength;
+
+	private RandomAccessFile shp;
+	private RandomAccessFile shx;
+	private RandomAccessFile dbf;
+	private OutputStream shpOut;
+	private OutputStream shxOut;
+	private OutputStream dbfOut;
+
+	private ByteBuffer shpRecord = ByteBuffer.allocate(8 + contentBytes);
+	private ByteBuffer shxRecord = ByteBuffer.allocate(8);
+	private byte[] dbfRecord = new byte[recordBytes];
+
+	private int count = 0;
+	private double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE;
+	private double maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param fileName The name of the shapefile, the .shx and .dbf files are written alongside it.
+	 */
+	public ShapefileWriter(String fileName) throws IOException {
+		String base = fileName.endsWith(".shp") ? fileName.substring(0, fileName.length() - 4) : fileName;
+		shp = open(base + ".shp");
+		shx = open(base + ".shx");
+		dbf = open(base + ".dbf");
+		shpOut = new BufferedOutputStream(new FileOutputStream(shp.getFD()), 1 << 16);
+		shxOut = new BufferedOutputStream(new FileOutputStream(shx.getFD()), 1 << 16);
+		dbfOut = new BufferedOutputStream(new FileOutputStream(dbf.getFD()), 1 << 16);
+
+		// Reserve space for the headers, they are written on close
+		shpOut.write(new byte[headerBytes]);
+		shxOut.write(new byte[headerBytes]);
+		dbfOut.write(new byte[dbfHeaderBytes]);
+	}
+
+	/**
+	 * Complete the headers and close the files.
+	 */
+	public void close() throws IOException {
+		// Terminate the dBase records
+		dbfOut.write(0x1A);
+		shpOut.flush();
+		shxOut.flush();
+		dbfOut.flush();
+
+		if (count == 0) {
+			minX = minY = maxX = maxY = 0;
+		}
+		long shpBytes = headerBytes + (long)count * (8 + contentBytes);
+		long shxBytes = headerBytes + (long)count * 8;
+		shp.seek(0);
+		shp.write(getHeader(shpBytes));
+		shx.seek(0);
+		shx.write(getHeader(shxBytes));
+		dbf.seek(0);
+		dbf.write(getDbfHeader());
+
+		shp.close();
+		shx.close();
+		dbf.close();
+	}
+
+	/**
+	 * Get the number of polygons that have been written.
+	 */
+	public int getCount() { return count; }
+
+	/**
+	 * Write a rectangle to the shapefile.
+	 *
+	 * @param id The value of the ID attribute.
+	 */
+	public void writeRectangle(double minX, double minY, double maxX, double maxY, long id) throws IOException {
+		// Shapefile offsets and lengths are in 16-bit words
+		long offset = headerBytes + (long)count * (8 + contentBytes);
+		if (offset / 2 > Integer.MAX_VALUE) {
+			throw new IOException("The shapefile cannot exceed 4 GB.");
+		}
+		count++;
+
+		// Record header, big-endian
+		shpRecord.clear();
+		shpRecord.order(ByteOrder.BIG_ENDIAN);
+		shpRecord.putInt(count).putInt(contentBytes / 2);
+
+		// Record contents, little-endian, the ring is clockwise as required for an outer ring
+		shpRecord.order(ByteOrder.LITTLE_ENDIAN);
+		shpRecord.putInt(polygonType);
+		shpRecord.putDouble(minX).putDouble(minY).putDouble(maxX).putDouble(maxY);
+		shpRecord.putInt(1).putInt(5).putInt(0);
+		shpRecord.putDouble(minX).putDouble(minY);
+		shpRecord.putDouble(minX).putDouble(maxY);
+		shpRecord.putDouble(maxX).putDouble(maxY);
+		shpRecord.putDouble(maxX).putDouble(minY);
+		shpRecord.putDouble(minX).putDouble(minY);
+		shpOut.write(shpRecord.array());
+
+		// Index entry, big-endian
+		shxRecord.clear();
+		shxRecord.putInt((int)(offset / 2)).putInt(contentBytes / 2);
+		shxOut.write(shxRecord.array());
+
+		// Attributes, numeric fields are right justified
+		String value = Long.toString(id);
+		if (value.length() > idLength) {
+			throw new IllegalArgumentException("The ID " + id + " exceeds " + idLength + " digits.");
+		}
+		dbfRecord[0] = ' ';
+		int padding = idLength - value.length();
+		for (int ndx = 0; ndx < idLength; ndx++) {
+			dbfRecord[1 + ndx] = (byte)((ndx < padding) ? ' ' : value.charAt(ndx - padding));
+		}
+		dbfOut.write(dbfRecord);
+
+		// Update the bounds
+		this.minX = Math.min(this.minX, minX);
+		this.minY = Math.min(this.minY, minY);
+		this.maxX = Math.max(this.maxX, maxX);
+		this.maxY = Math.max(this.maxY, maxY);
+	}
+
+	/**
+	 * Get the header for the .shp or .shx file of the given length.
+	 */
+	private byte[] getHeader(long bytes) {
+		ByteBuffer header = ByteBuffer.allocate(headerBytes);
+		header.order(ByteOrder.BIG_ENDIAN);
+		header.putInt(fileCode);
+		header.position(24);
+		header.putInt((int)(bytes / 2));
+		header.order(ByteOrder.LITTLE_ENDIAN);
+		header.putInt(shapeVersion);
+		header.putInt(polygonType);
+		header.putDouble(minX).putDouble(minY).putDouble(maxX).putDouble(maxY);
+		return header.array();
+	}
+
+	/**
+	 * Get the dBase III header with the ID field.
+	 */
+	private byte[] getDbfHeader() {
+		Calendar today = Calendar.getInstance();
+		ByteBuffer header = ByteBuffer.allocate(dbfHeaderBytes);
+		header.order(ByteOrder.LITTLE_ENDIAN);
+		header.put((byte)0x03);
+		header.put((byte)(today.get(Calendar.YEAR) - 1900));
+		header.put((byte)(today.get(Calendar.MONTH) + 1));
+		header.put((byte)today.get(Calendar.DAY_OF_MONTH));
+		header.putInt(count);
+		header.putShort((short)dbfHeaderBytes);
+		header.putShort((short)recordBytes);
+
+		// Field descriptor, name, type, and length
+		header.position(32);
+		header.put("ID".getBytes());
+		header.position(32 + 11);
+		header.put((byte)'N');
+		header.position(32 + 16);
+		header.put((byte)idLength);
+		header.put((byte)0);
+		header.position(64);
+		header.put((byte)0x0D);
+		return header.array();
+	}
+
+	/**
+	 * Open the given file for writing, truncating it.
+	 */
+	private static RandomAccessFile open(String fileName) throws IOException {
+		RandomAccessFile file = new RandomAccessFile(fileName, "rw");
+		file.setLength(0);
+		return file;
+	}
+}
@@ -0,0 +1,148 @@
+package edu.mtu.environment;
+
+import java.awt.Point;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import ec.util.MersenneTwisterFast;
+import edu.mtu.measures.BiomassLedger;
+import edu.mtu.measures.ParcelSummaries;
+import sim.field.geo.GeomGridField;
+import sim.field.grid.DoubleGrid2D;
+import sim.field.grid.IntGrid2D;
+
+/**
+ * This class prepares a small deterministic forest for tests, the land cover is a mix of woody and
+ * non-woody pixels that is divided into square parcels, with the last rows of the map left unowned.
+ */
+public class ForestFixture implements GrowthModel {
+
+	private static final long serialVersionUID = 1L;
+
+	public final static int Width = 48;
+	public final static int Height = 42;
+	public final static int ParcelSize = 8;
+	public final static double[] Thresholds = new double[] { 20, 30 };
+
+	private final static int[] woody = new int[] { 41, 42, 43, 90 };
+	private final static Species species = new FixtureSpecies();
+
+	private final long seed;
+	private Point[][] parcels;
+
+	/**
+	 * Simple species with a generic hardwood biomass equation.
+	 */
+	private static class FixtureSpecies implements Species, Serializable {
+		private static final long serialVersionUID = 1L;
+
+		public double getAboveGroundBiomass(double dbh) { return (dbh > 0) ? Math.exp(-2.0127 + 2.4342 * Math.log(dbh)) : 0; }
+		public double getStemWoodBiomassRatio(double dbh) { return 0.6; }
+		public double getDbhGrowth() { return 0.5; }
+		public double getHeight(double dbh) { return dbh; }
+		public double getMaximumDbh() { return 60; }
+		public String getName() { return "Fixture"; }
+	}
+
+	private ForestFixture(long seed) {
+		this.seed = seed;
+	}
+
+	/**
+	 * Create the forest and index the parcels in the same way that the simulation does.
+	 *
+	 * @param seed The seed used to generate the land cover and stands.
+	 */
+	public static ForestFixture create(long seed) throws InterruptedException {
+		ForestFixture fixture = new ForestFixture(seed);
+
+		MersenneTwisterFast random = new MersenneTwisterFast(seed);
+		IntGrid2D grid = new IntGrid2D(Width, Height, 0);
+		for (int ndx = 0; ndx < Width; ndx++) {
+			for (int ndy = 0; ndy < Height; ndy++) {
+				grid.set(ndx, ndy, (random.nextDouble() < 0.8) ? woody[random.nextInt(woody.length)] : 21);
+			}
+		}
+		GeomGridField landCover = new GeomGridField(grid);
+		Forest.getInstance().calculateInitialStands(landCover, fixture);
+
+		// Square parcels, the rows that do not fill a parcel are not owned
+		List<Point[]> working = new ArrayList<Point[]>();
+		for (int x = 0; x + ParcelSize <= Width; x += ParcelSize) {
+			for (int y = 0; y + ParcelSize <= Height; y += ParcelSize) {
+				Point[] parcel = new Point[ParcelSize * ParcelSize];
+				int count = 0;
+				for (int ndx = x; ndx < x + ParcelSize; ndx++) {
+					for (int ndy = y; ndy < y + ParcelSize; ndy++) {
+						parcel[count++] = new Point(ndx, ndy);
+					}
+				}
+				working.add(parcel);
+			}
+		}
+		fixture.parcels = working.toArray(new Point[working.size()][]);
+
+		ParcelIndex.getInstance().setThresholds(Thresholds);
+		ParcelIndex.getInstance().setParcels(fixture.parcels, Width, Height);
+		ParcelIndex.getInstance().update();
+		BiomassLedger.getInstance().setAudit(false);
+		BiomassLedger.getInstance().rebuild();
+		ParcelSummaries.getInstance().rebuild();
+
+		return fixture;
+	}
+
+	/**
+	 * Get the points in each of the parcels.
+	 */
+	public Point[][] getParcels() {
+		return parcels;
+	}
+
+	@Override
+	public void calculateInitialStands() {
+		MersenneTwisterFast random = new MersenneTwisterFast(seed + 1);
+		IntGrid2D landCover = (IntGrid2D)Forest.getInstance().getLandCover().getGrid();
+		IntGrid2D age = new IntGrid2D(Width, Height, 0);
+		IntGrid2D trees = new IntGrid2D(Width, Height, 0);
+		DoubleGrid2D dbh = new DoubleGrid2D(Width, Height, 0);
+		for (int ndx = 0; ndx < Width; ndx++) {
+			for (int ndy = 0; ndy < Height; ndy++) {
+				if (!NlcdClassification.isWoodyBiomass(landCover.get(ndx, ndy))) {
+					continue;
+				}
+				age.set(ndx, ndy, 10 + random.nextInt(60));
+				dbh.set(ndx, ndy, 5 + random.nextInt(70) * 0.5);
+				trees.set(ndx, ndy, 10 + random.nextInt(50));
+			}
+		}
+
+		Forest.getInstance().setStandAgeMap(age);
+		Forest.getInstance().setTreeCountMap(trees);
+		Forest.getInstance().setStandDiameterMap(new GeomGridField(dbh));
+	}
+
+	@Override
+	public Species getSpecies(int nlcd) {
+		return NlcdClassification.isWoodyBiomass(nlcd) ? species : null;
+	}
+
+	@Override
+	public double[][] getStockingGuide(int nlcd) {
+		return getStockingGuide(species);
+	}
+
+	@Override
+	public double[][] getStockingGuide(Species species) {
+		return new double[][] { { 0, 10 } };
+	}
+
+	@Override
+	public Stand growStand(Stand stand) {
+		stand.arithmeticMeanDiameter = Math.min(stand.arithmeticMeanDiameter + 0.5, species.getMaximumDbh());
+		stand.numberOfTrees -= stand.numberOfTrees / 50;
+		stand.age++;
+		return stand;
+	}
+}
@@ -0,0 +1,115 @@
+package edu.mtu.environment;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import sim.field.grid.DoubleGrid2D;
+import sim.field.grid.IntGrid2D;
+
+public class ParcelIndexTests {
+
+	// DBH values to check, both the thresholds and values that need the sorted list
+	private final static double[] dbhValues = new double[] { 0, 12.5, 20, 24.25, 30, 38, 100 };
+
+	@Test
+	public void countTest() throws InterruptedException {
+		ForestFixture fixture = ForestFixture.create(42);
+		ParcelIndex index = ParcelIndex.getInstance();
+		Assert.assertEquals(fixture.getParcels().length, index.getParcelCount());
+
+		for (int parcel = 0; parcel < fixture.getParcels().length; parcel++) {
+			for (double dbh : dbhValues) {
+				List<Point> expected = scan(fixture.getParcels()[parcel], dbh);
+				Assert.assertEquals("parcel " + parcel + ", dbh " + dbh, expected.size(), index.getHarvestableCount(parcel, dbh));
+			}
+			Assert.assertEquals(maximum(fixture.getParcels()[parcel]), index.getMaximumDbh(parcel), 0);
+		}
+	}
+
+	@Test
+	public void orderTest() throws InterruptedException {
+		ForestFixture fixture = ForestFixture.create(7);
+		ParcelIndex index = ParcelIndex.getInstance();
+
+		for (int parcel = 0; parcel < fixture.getParcels().length; parcel++) {
+			for (double dbh : dbhValues) {
+				Point[] expected = scan(fixture.getParcels()[parcel], dbh).toArray(new Point[0]);
+				Assert.assertArrayEquals(expected, index.getHarvestableStands(parcel, dbh));
+			}
+		}
+	}
+
+	@Test
+	public void ownershipTest() throws InterruptedException {
+		ForestFixture fixture = ForestFixture.create(1);
+		IntGrid2D owners = ParcelIndex.getInstance().getOwnershipMap();
+		for (int parcel = 0; parcel < fixture.getParcels().length; parcel++) {
+			for (Point point : fixture.getParcels()[parcel]) {
+				Assert.assertEquals(parcel, owners.get(point.x, point.y));
+			}
+		}
+		Assert.assertEquals(-1, owners.get(0, ForestFixture.Height - 1));
+	}
+
+	@Test
+	public void harvestTest() throws InterruptedException {
+		ForestFixture fixture = ForestFixture.create(42);
+		ParcelIndex index = ParcelIndex.getInstance();
+
+		// Find a parcel with stands at the threshold and harvest half of them
+		int parcel = 0;
+		while (index.getHarvestableCount(parcel, 20) < 2) {
+			parcel++;
+		}
+		Point[] stands = index.getHarvestableStands(parcel, 20);
+		int before = index.getHarvestableCount(parcel, 20);
+		Point[] harvest = Arrays.copyOf(stands, stands.length / 2);
+		Forest.getInstance().harvest(harvest);
+
+		// The parcel should be refreshed when it is next queried, even before the stocking is updated
+		Assert.assertEquals(before - harvest.length, index.getHarvestableCount(parcel, 20));
+		Assert.assertEquals(scan(fixture.getParcels()[parcel], 20).size(), index.getHarvestableCount(parcel, 20));
+		Assert.assertEquals(scan(fixture.getParcels()[parcel], 24.25).size(), index.getHarvestableCount(parcel, 24.25));
+		Assert.assertArrayEquals(Arrays.copyOfRange(stands, harvest.length, stands.length), index.getHarvestableStands(parcel, 20));
+
+		// After growth and a stocking update everything should still agree
+		Forest.getInstance().grow();
+		Forest.getInstance().updateStocking();
+		for (int ndx = 0; ndx < fixture.getParcels().length; ndx++) {
+			for (double dbh : dbhValues) {
+				Assert.assertEquals(scan(fixture.getParcels()[ndx], dbh).size(), index.getHarvestableCount(ndx, dbh));
+			}
+		}
+	}
+
+	/**
+	 * Scan the parcel for the fully stocked stands whose DBH is at least the value provided.
+	 */
+	private static List<Point> scan(Point[] parcel, double dbh) {
+		DoubleGrid2D diameter = (DoubleGrid2D)Forest.getInstance().getStandDbhMap().getGrid();
+		IntGrid2D stocking = (IntGrid2D)Forest.getInstance().getStockingMap().getGrid();
+		List<Point> results = new ArrayList<Point>();
+		for (Point point : parcel) {
+			if (stocking.get(point.x, point.y) >= StockingCondition.Full.getValue() && diameter.get(point.x, point.y) >= dbh) {
+				results.add(point);
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * Get the maximum DBH of the fully stocked stands in the parcel.
+	 */
+	private static double maximum(Point[] parcel) {
+		double result = 0;
+		for (Point point : scan(parcel, 0)) {
+			result = Math.max(result, Forest.getInstance().getStandDbh(point));
+		}
+		return result;
+	}
+}
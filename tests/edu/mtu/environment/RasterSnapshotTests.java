@@ -0,0 +1,101 @@
+package edu.mtu.environment;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import sim.field.grid.DoubleGrid2D;
+import sim.field.grid.IntGrid2D;
+
+public class RasterSnapshotTests {
+
+	/**
+	 * Check that snapshots read back as they were written, for keyframes and for the deltas between them.
+	 */
+	@Test
+	public void roundTripTest() throws IOException, InterruptedException {
+		File file = File.createTempFile("rasters", ".fsr");
+		file.deleteOnExit();
+		ForestFixture.create(42);
+		Forest forest = Forest.getInstance();
+
+		// Write enough snapshots for several keyframes, with harvests so values decrease as well
+		List<int[][]> ages = new ArrayList<int[][]>();
+		List<double[][]> diameters = new ArrayList<double[][]>();
+		List<int[][]> stocking = new ArrayList<int[][]>();
+		RasterSnapshotWriter writer = new RasterSnapshotWriter(file.getPath(), 3);
+		for (int step = 0; step < 8; step++) {
+			writer.write(step * 5);
+			ages.add(copy((IntGrid2D)forest.getStandAgeMap().getGrid()));
+			diameters.add(copy((DoubleGrid2D)forest.getStandDbhMap().getGrid()));
+			stocking.add(copy((IntGrid2D)forest.getStockingMap().getGrid()));
+
+			forest.grow();
+			if (step % 2 == 1) {
+				forest.harvest(ParcelIndex.getInstance().getHarvestableStands(step, 20));
+			}
+			forest.updateStocking();
+		}
+		writer.close();
+
+		RasterSnapshotReader reader = new RasterSnapshotReader(file.getPath());
+		try {
+			Assert.assertEquals(ForestFixture.Width, reader.getWidth());
+			Assert.assertEquals(ForestFixture.Height, reader.getHeight());
+			Assert.assertEquals(8, reader.getSteps().length);
+
+			// Read out of order so each snapshot is decoded from its keyframe
+			for (int step = 7; step >= 0; step--) {
+				RasterSnapshotReader.Snapshot snapshot = reader.read(step * 5);
+				Assert.assertEquals(step * 5, snapshot.step);
+				check(snapshot, ages.get(step), diameters.get(step), stocking.get(step));
+			}
+		} finally {
+			reader.close();
+		}
+	}
+
+	/**
+	 * Compare the snapshot with the maps that were captured when it was written.
+	 */
+	private static void check(RasterSnapshotReader.Snapshot snapshot, int[][] age, double[][] dbh, int[][] stocking) {
+		IntGrid2D landCover = (IntGrid2D)Forest.getInstance().getLandCover().getGrid();
+		int count = 0;
+		for (int x = 0; x < ForestFixture.Width; x++) {
+			for (int y = 0; y < ForestFixture.Height; y++) {
+				int ndx = snapshot.find(x, y);
+				if (!NlcdClassification.isWoodyBiomass(landCover.get(x, y))) {
+					Assert.assertEquals(-1, ndx);
+					continue;
+				}
+				Assert.assertEquals(count++, ndx);
+				Assert.assertEquals(x, snapshot.getX(ndx));
+				Assert.assertEquals(y, snapshot.getY(ndx));
+				Assert.assertEquals(age[x][y], snapshot.age[ndx]);
+				Assert.assertEquals((float)dbh[x][y], snapshot.dbh[ndx], 0);
+				Assert.assertEquals(stocking[x][y], snapshot.stocking[ndx]);
+			}
+		}
+		Assert.assertEquals(count, snapshot.age.length);
+	}
+
+	private static double[][] copy(DoubleGrid2D grid) {
+		double[][] result = new double[grid.getWidth()][];
+		for (int ndx = 0; ndx < result.length; ndx++) {
+			result[ndx] = grid.field[ndx].clone();
+		}
+		return result;
+	}
+
+	private static int[][] copy(IntGrid2D grid) {
+		int[][] result = new int[grid.getWidth()][];
+		for (int ndx = 0; ndx < result.length; ndx++) {
+			result[ndx] = grid.field[ndx].clone();
+		}
+		return result;
+	}
+}
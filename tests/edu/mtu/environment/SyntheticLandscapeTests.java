@@ -0,0 +1,87 @@
+package edu.mtu.environment;
+
+import java.io.IOException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import sim.field.grid.IntGrid2D;
+
+public class SyntheticLandscapeTests {
+
+	/**
+	 * Check that the land cover is the same when generated in parallel, pixel by pixel, or by another instance.
+	 */
+	@Test
+	public void deterministicTest() throws InterruptedException {
+		SyntheticLandscape landscape = new SyntheticLandscape(300, 200, 42);
+		landscape.setClumping(32, 4);
+		IntGrid2D grid = landscape.generateLandCover();
+
+		SyntheticLandscape other = new SyntheticLandscape(300, 200, 42);
+		other.setClumping(32, 4);
+		IntGrid2D copy = other.generateLandCover();
+		for (int x = 0; x < 300; x++) {
+			Assert.assertArrayEquals(grid.field[x], copy.field[x]);
+			for (int y = 0; y < 200; y += 7) {
+				Assert.assertEquals(grid.field[x][y], landscape.getCover(x, y));
+			}
+		}
+	}
+
+	/**
+	 * Check that the woody fraction of the land cover is matched.
+	 */
+	@Test
+	public void proportionTest() throws InterruptedException {
+		for (double fraction : new double[] { 0.25, 0.6 }) {
+			SyntheticLandscape landscape = new SyntheticLandscape(512, 512, 7);
+			landscape.setClumping(32, 5);
+			landscape.setWoodyFraction(fraction);
+			IntGrid2D grid = landscape.generateLandCover();
+
+			int woody = 0;
+			for (int x = 0; x < 512; x++) {
+				for (int y = 0; y < 512; y++) {
+					woody += NlcdClassification.isWoodyBiomass(grid.field[x][y]) ? 1 : 0;
+				}
+			}
+			Assert.assertEquals(fraction, woody / (512.0 * 512.0), 0.02);
+		}
+	}
+
+	/**
+	 * Check that the parcels cover every pixel exactly once.
+	 */
+	@Test
+	public void parcelTest() throws IOException, InterruptedException {
+		final int width = 700, height = 300;
+		SyntheticLandscape landscape = new SyntheticLandscape(width, height, 42);
+		landscape.setParcelSize(10, 1.0);
+
+		final int[][] owner = new int[width][height];
+		final long[] expected = new long[1];
+		long count = landscape.generateParcels(new SyntheticLandscape.ParcelVisitor() {
+			public void visit(long index, int x, int y, int columns, int rows) {
+				Assert.assertEquals(expected[0]++, index);
+				for (int ndx = x; ndx < x + columns; ndx++) {
+					for (int ndy = y; ndy < y + rows; ndy++) {
+						Assert.assertEquals(0, owner[ndx][ndy]);
+						owner[ndx][ndy] = (int)index + 1;
+					}
+				}
+			}
+		});
+
+		Assert.assertEquals(expected[0], count);
+		for (int ndx = 0; ndx < width; ndx++) {
+			for (int ndy = 0; ndy < height; ndy++) {
+				Assert.assertTrue(owner[ndx][ndy] != 0);
+			}
+		}
+
+		// Ten acre parcels are about 45 pixels, so the count should be in the thousands
+		double mean = (double)width * height / count;
+		Assert.assertTrue("Mean parcel size " + mean, mean > 20 && mean < 90);
+	}
+}
@@ -0,0 +1,75 @@
+package edu.mtu.environment;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TiledRasterTests {
+
+	/**
+	 * Check that copies share tiles until they are written to, and that writes do not leak between copies.
+	 */
+	@Test
+	public void copyOnWriteTest() {
+		// Partial tiles on both edges
+		int width = TiledRaster.TileSize * 3 + 5, height = TiledRaster.TileSize * 2 + 7;
+		int[][] field = new int[width][height];
+		for (int x = 0; x < width; x++) {
+			for (int y = 0; y < TiledRaster.TileSize; y++) {
+				field[x][y] = x * 1000 + y;
+			}
+		}
+		
+		// Only the first row of tiles holds anything
+		TiledIntRaster raster = new TiledIntRaster(width, height);
+		raster.load(field);
+		Assert.assertEquals(4, raster.getAllocatedTiles());
+		Assert.assertEquals(4, raster.getOwnedTiles());
+		
+		TiledIntRaster copy = raster.copy();
+		Assert.assertEquals(0, copy.getOwnedTiles());
+		copy.set(1, 1, -1);
+		copy.set(width - 1, height - 1, -2);
+		Assert.assertEquals(2, copy.getOwnedTiles());
+		Assert.assertEquals(5, copy.getAllocatedTiles());
+		Assert.assertEquals(1001, raster.get(1, 1));
+		Assert.assertEquals(0, raster.get(width - 1, height - 1));
+		Assert.assertEquals(-1, copy.get(1, 1));
+		
+		// Loading the same grid again changes nothing
+		TiledIntRaster next = raster.copy();
+		next.load(field);
+		Assert.assertEquals(0, next.getOwnedTiles());
+		
+		// A change to the grid is picked up by one tile only
+		field[width - 1][3] = 42;
+		next.load(field);
+		Assert.assertEquals(1, next.getOwnedTiles());
+		
+		int[][] result = new int[width][height];
+		next.store(result);
+		for (int x = 0; x < width; x++) {
+			Assert.assertArrayEquals(field[x], result[x]);
+		}
+	}
+	
+	/**
+	 * Check that double rasters round trip through the MASON grid layout.
+	 */
+	@Test
+	public void doubleRoundTripTest() {
+		int width = 100, height = 70;
+		double[][] field = new double[width][height];
+		for (int x = 0; x < width; x++) {
+			for (int y = 0; y < height; y++) {
+				field[x][y] = (x % 3 == 0) ? 0 : x / 7.0 + y;
+			}
+		}
+		TiledDoubleRaster raster = new TiledDoubleRaster(width, height);
+		raster.load(field);
+		double[][] result = new double[width][height];
+		raster.copy().store(result);
+		for (int x = 0; x < width; x++) {
+			Assert.assertArrayEquals(field[x], result[x], 0);
+		}
+	}
+}
@@ -0,0 +1,153 @@
+package edu.mtu.examples.houghton.model;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import ec.util.MersenneTwisterFast;
+import edu.mtu.environment.Forest;
+import edu.mtu.environment.GrowthModel;
+import edu.mtu.environment.NlcdClassification;
+import edu.mtu.environment.Species;
+import edu.mtu.environment.Stand;
+import edu.mtu.examples.houghton.species.AcerRebrum;
+import edu.mtu.examples.houghton.species.WesternUPSpecies;
+import sim.field.geo.GeomGridField;
+import sim.field.grid.DoubleGrid2D;
+import sim.field.grid.IntGrid2D;
+
+public class HarvestValueCacheTests {
+
+	private final static int width = 24;
+	private final static int height = 24;
+	private final static int parcelSize = 6;
+	
+	/**
+	 * Growth model with random red maple stands around the sawtimber threshold.
+	 */
+	@SuppressWarnings("serial")
+	private static class MapleGrowth implements GrowthModel {
+		private final static Species species = new AcerRebrum();
+		
+		public void calculateInitialStands() {
+			MersenneTwisterFast random = new MersenneTwisterFast(42);
+			IntGrid2D age = new IntGrid2D(width, height, 50);
+			IntGrid2D trees = new IntGrid2D(width, height, 0);
+			DoubleGrid2D dbh = new DoubleGrid2D(width, height, 0);
+			for (int ndx = 0; ndx < width; ndx++) {
+				for (int ndy = 0; ndy < height; ndy++) {
+					dbh.set(ndx, ndy, 20 + random.nextInt(3000) * 0.01);
+					trees.set(ndx, ndy, 10 + random.nextInt(30));
+				}
+			}
+			Forest.getInstance().setStandAgeMap(age);
+			Forest.getInstance().setTreeCountMap(trees);
+			Forest.getInstance().setStandDiameterMap(new GeomGridField(dbh));
+		}
+
+		public Species getSpecies(int nlcd) {
+			return NlcdClassification.isWoodyBiomass(nlcd) ? species : null;
+		}
+
+		public double[][] getStockingGuide(int nlcd) {
+			return getStockingGuide(species);
+		}
+
+		public double[][] getStockingGuide(Species species) {
+			return new double[][] { { 0, 1 } };
+		}
+
+		public Stand growStand(Stand stand) {
+			return stand;
+		}
+	}
+	
+	/**
+	 * Check the histogram bids against the per-stand bids for the same parcels. Valuing the stands at 
+	 * the lower edge of their bin should give the histogram bid, and it should never exceed the bid on
+	 * the actual stands.
+	 */
+	@Test
+	public void histogramTest() throws InterruptedException {
+		Forest.getInstance().calculateInitialStands(new GeomGridField(new IntGrid2D(width, height, 41)), new MapleGrowth());
+		HarvestValueCache cache = HarvestValueCache.getInstance();
+		
+		int valued = 0;
+		for (int x = 0; x < width; x += parcelSize) {
+			for (int y = 0; y < height; y += parcelSize) {
+				Point[] parcel = new Point[parcelSize * parcelSize];
+				int count = 0;
+				for (int ndx = x; ndx < x + parcelSize; ndx++) {
+					for (int ndy = y; ndy < y + parcelSize; ndy++) {
+						parcel[count++] = new Point(ndx, ndy);
+					}
+				}
+				
+				StandHistogram histogram = StandHistogram.create(parcel);
+				for (double dbh : new double[] { Harvesting.PulpwoodDbh, Harvesting.SawtimberDbh, Harvesting.VeneerDbh }) {
+					// Move the harvestable stands to the lower edge of their bin, dropping those that fall below the DBH
+					List<Stand> stands = Harvesting.getHarvestableStands(parcel, dbh);
+					List<Stand> binned = new ArrayList<Stand>();
+					for (Stand stand : stands) {
+						stand.arithmeticMeanDiameter = YieldTable.getBinDbh(YieldTable.getBin(stand.arithmeticMeanDiameter));
+						if (stand.arithmeticMeanDiameter >= dbh) {
+							binned.add(stand);
+						}
+					}
+					
+					double value = cache.getHarvestValue(histogram, dbh);
+					Assert.assertEquals(Harvesting.getHarvestValue(binned), value, 0.02);
+					Assert.assertTrue(value <= Harvesting.getHarvestValue(Harvesting.getHarvestableStands(parcel, dbh)) + 0.02);
+					if (value > 0) {
+						valued++;
+					}
+				}
+			}
+		}
+		Assert.assertTrue(valued > 0);
+	}
+
+	/**
+	 * Check that stands just below the sawtimber threshold are not valued, and stands at it are.
+	 */
+	@Test
+	public void thresholdTest() {
+		WesternUPSpecies species = new AcerRebrum();
+		HarvestValueCache cache = HarvestValueCache.getInstance();
+		
+		Assert.assertEquals(0.0, cache.getStandValue(species, 35.555), 0.0);
+		Assert.assertEquals(0.0, cache.getStandValue(species, Harvesting.SawtimberDbh - 1E-9), 0.0);
+		Assert.assertTrue(cache.getStandValue(species, Harvesting.SawtimberDbh) > 0);
+	}
+	
+	/**
+	 * Check that the cached values never exceed the calculated values and are within one quantum of them.
+	 */
+	@Test
+	public void valueTest() {
+		WesternUPSpecies species = new AcerRebrum();
+		HarvestValueCache cache = HarvestValueCache.getInstance();
+		
+		for (double dbh = 20.0; dbh < species.getMaximumDbh(); dbh += 0.137) {
+			double expected = Harvesting.getStandValue(species, dbh);
+			double actual = cache.getStandValue(species, dbh);
+			if (expected == 0) {
+				Assert.assertEquals(0.0, actual, 0.0);
+				continue;
+			}
+			double lower = Harvesting.getStandValue(species, dbh - HarvestValueCache.Quantum);
+			Assert.assertTrue("DBH " + dbh, actual <= expected + 1E-9);
+			Assert.assertTrue("DBH " + dbh, actual >= Math.min(lower, expected) - 1E-9);
+			
+			// Repeated requests come from the cache
+			Assert.assertEquals(actual, cache.getStandValue(species, dbh), 0.0);
+		}
+		
+		// Values beyond the maximum DBH fall back to the calculation
+		double dbh = species.getMaximumDbh() + 5;
+		Assert.assertEquals(Harvesting.getStandValue(species, dbh), cache.getStandValue(species, dbh), 1E-9);
+	}
+}
@@ -0,0 +1,130 @@
+package edu.mtu.measures;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.mtu.environment.Forest;
+import edu.mtu.environment.ForestFixture;
+import edu.mtu.environment.NlcdClassification;
+import edu.mtu.environment.StandThinning;
+import sim.field.grid.IntGrid2D;
+
+public class BiomassLedgerTests {
+
+	private final static double epsilon = 1E-6;
+
+	@Test
+	public void rebuildTest() throws InterruptedException {
+		ForestFixture fixture = ForestFixture.create(42);
+		check(fixture);
+	}
+
+	@Test
+	public void growTest() throws InterruptedException {
+		ForestFixture fixture = ForestFixture.create(42);
+		for (int step = 0; step < 5; step++) {
+			Forest.getInstance().grow();
+			Forest.getInstance().updateStocking();
+			check(fixture);
+		}
+		Assert.assertTrue(BiomassLedger.getInstance().audit());
+	}
+
+	@Test
+	public void harvestTest() throws InterruptedException {
+		ForestFixture fixture = ForestFixture.create(7);
+
+		// Harvest every woody pixel in the first parcel and part of a second one
+		List<Point> stands = new ArrayList<Point>();
+		for (Point point : fixture.getParcels()[0]) {
+			if (isWoody(point)) {
+				stands.add(point);
+			}
+		}
+		for (Point point : fixture.getParcels()[3]) {
+			if (isWoody(point) && point.x % 2 == 0) {
+				stands.add(point);
+			}
+		}
+		Forest.getInstance().harvest(stands.toArray(new Point[0]));
+		check(fixture);
+
+		// Thin a third parcel
+		List<StandThinning> plans = new ArrayList<StandThinning>();
+		for (Point point : fixture.getParcels()[5]) {
+			if (isWoody(point)) {
+				plans.add(new StandThinning(point, 0.3));
+			}
+		}
+		Forest.getInstance().thin(plans);
+		check(fixture);
+
+		Forest.getInstance().grow();
+		check(fixture);
+		Assert.assertTrue(BiomassLedger.getInstance().audit());
+	}
+
+	@Test
+	public void deltasTest() {
+		ParcelDeltas deltas = new ParcelDeltas(2, 100);
+		deltas.add(0, 3, 1.5);
+		deltas.add(1, 3, 2.0);
+		deltas.add(0, 97, -4.0);
+		deltas.add(0, 3, 0.5);
+		Assert.assertEquals(2, deltas.getTouched());
+
+		double[][] totals = new double[2][100];
+		totals[0][3] = 10;
+		deltas.commit(totals);
+		Assert.assertEquals(0, deltas.getTouched());
+		Assert.assertEquals(12.0, totals[0][3], 0);
+		Assert.assertEquals(2.0, totals[1][3], 0);
+		Assert.assertEquals(-4.0, totals[0][97], 0);
+
+		// The changes are cleared by the commit
+		deltas.add(1, 50, 1.0);
+		deltas.commit(totals);
+		Assert.assertEquals(12.0, totals[0][3], 0);
+		Assert.assertEquals(1.0, totals[1][50], 0);
+	}
+
+	/**
+	 * Compare the ledger against a recalculation of the forest.
+	 */
+	private static void check(ForestFixture fixture) {
+		BiomassLedger ledger = BiomassLedger.getInstance();
+		Forest forest = Forest.getInstance();
+		IntGrid2D landCover = (IntGrid2D)forest.getLandCover().getGrid();
+
+		double total = 0;
+		double[] nlcd = new double[NlcdClassification.HighestValue + 1];
+		for (int ndx = 0; ndx < forest.getMapWidth(); ndx++) {
+			for (int ndy = 0; ndy < forest.getMapHeight(); ndy++) {
+				double biomass = ForestMeasures.calculateBiomass(ndx, ndy);
+				total += biomass;
+				nlcd[landCover.get(ndx, ndy)] += biomass;
+			}
+		}
+		Assert.assertEquals(total, ledger.getTotalBiomass(), epsilon * total);
+		for (int code = 0; code < nlcd.length; code++) {
+			Assert.assertEquals(nlcd[code], ledger.getNlcdBiomass(code), epsilon * Math.max(1, nlcd[code]));
+		}
+
+		double agents = 0;
+		for (int parcel = 0; parcel < fixture.getParcels().length; parcel++) {
+			double expected = ForestMeasures.calculateStandBiomass(fixture.getParcels()[parcel]);
+			Assert.assertEquals(expected, ledger.getAgentBiomass(parcel), epsilon * Math.max(1, expected));
+			agents += expected;
+		}
+		Assert.assertEquals(agents, ledger.getTotalAgentBiomass(), epsilon * agents);
+		Assert.assertTrue(agents < total);
+	}
+
+	private static boolean isWoody(Point point) {
+		return NlcdClassification.isWoodyBiomass(((IntGrid2D)Forest.getInstance().getLandCover().getGrid()).get(point.x, point.y));
+	}
+}
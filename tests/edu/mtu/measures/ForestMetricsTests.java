@@ -0,0 +1,150 @@
+package edu.mtu.measures;
+
+import java.awt.Point;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.mtu.environment.Forest;
+import edu.mtu.environment.ForestFixture;
+import edu.mtu.environment.NlcdClassification;
+import edu.mtu.environment.Stand;
+import sim.field.grid.IntGrid2D;
+
+public class ForestMetricsTests {
+
+	private final static double epsilon = 1E-9;
+
+	@Test
+	public void sumTest() throws InterruptedException {
+		ForestFixture.create(42);
+		SumReducer age = new SumReducer() {
+			protected double value(Stand stand) {
+				return stand.age;
+			}
+		};
+		ForestMetrics.getInstance().calculate(age);
+
+		Forest forest = Forest.getInstance();
+		IntGrid2D landCover = (IntGrid2D)forest.getLandCover().getGrid();
+		double sum = 0;
+		long count = 0;
+		for (int ndx = 0; ndx < forest.getMapWidth(); ndx++) {
+			for (int ndy = 0; ndy < forest.getMapHeight(); ndy++) {
+				if (NlcdClassification.isWoodyBiomass(landCover.get(ndx, ndy))) {
+					sum += forest.getStand(ndx, ndy).age;
+					count++;
+				}
+			}
+		}
+		Assert.assertEquals(count, age.getCount());
+		Assert.assertEquals(sum, age.getSum(), 0);
+		Assert.assertEquals(sum / count, age.getMean(), epsilon);
+	}
+
+	@Test
+	public void agentTest() throws InterruptedException {
+		ForestFixture fixture = ForestFixture.create(7);
+		AgentReducer biomass = new AgentReducer() {
+			protected double value(Stand stand) {
+				return BiomassLedger.calculateBiomass(stand);
+			}
+		};
+		AgentReducer stocking = new AgentReducer() {
+			protected double value(Stand stand) {
+				return Forest.getInstance().calculateStandStocking(stand.point.x, stand.point.y);
+			}
+		};
+		ForestMetrics.getInstance().calculate(biomass, stocking);
+
+		double total = 0;
+		for (int parcel = 0; parcel < fixture.getParcels().length; parcel++) {
+			double expectedBiomass = 0, expectedStocking = 0;
+			for (Point point : fixture.getParcels()[parcel]) {
+				expectedBiomass += ForestMeasures.calculateBiomass(point);
+				expectedStocking += Forest.getInstance().calculateStandStocking(point.x, point.y);
+			}
+			Assert.assertEquals(expectedBiomass, biomass.getSum(parcel), epsilon * expectedBiomass);
+			Assert.assertEquals(expectedStocking, stocking.getSum(parcel), epsilon * expectedStocking);
+			Assert.assertEquals(expectedBiomass, BiomassLedger.getInstance().getAgentBiomass(parcel), epsilon * expectedBiomass);
+			total += expectedBiomass;
+		}
+		Assert.assertEquals(total, biomass.getSum(), epsilon * total);
+	}
+
+	@Test
+	public void histogramTest() throws InterruptedException {
+		ForestFixture.create(42);
+		HistogramReducer age = new HistogramReducer(0, 10, 8) {
+			protected double value(Stand stand) {
+				return stand.age;
+			}
+		};
+		HistogramReducer dbh = new HistogramReducer(5, 2.5, 12) {
+			protected double value(Stand stand) {
+				return stand.arithmeticMeanDiameter;
+			}
+		};
+		ForestMetrics.getInstance().calculate(age, dbh);
+
+		// Bin the stands serially, values past the last bin are counted in it
+		Forest forest = Forest.getInstance();
+		IntGrid2D landCover = (IntGrid2D)forest.getLandCover().getGrid();
+		long[] ages = new long[8];
+		long[] diameters = new long[12];
+		for (int ndx = 0; ndx < forest.getMapWidth(); ndx++) {
+			for (int ndy = 0; ndy < forest.getMapHeight(); ndy++) {
+				if (NlcdClassification.isWoodyBiomass(landCover.get(ndx, ndy))) {
+					Stand stand = forest.getStand(ndx, ndy);
+					ages[Math.min(stand.age / 10, 7)]++;
+					diameters[Math.min((int)((stand.arithmeticMeanDiameter - 5) / 2.5), 11)]++;
+				}
+			}
+		}
+		Assert.assertArrayEquals(ages, age.getCounts());
+		Assert.assertArrayEquals(diameters, dbh.getCounts());
+		Assert.assertEquals(25.0, dbh.getLowerBound(8), 0);
+
+		// A rescan replaces the counts rather than adding to them
+		ForestMetrics.getInstance().calculate(age);
+		Assert.assertArrayEquals(ages, age.getCounts());
+	}
+
+	@Test
+	public void registerTest() throws InterruptedException {
+		ForestFixture.create(1);
+		SumReducer dbh = new SumReducer() {
+			protected double value(Stand stand) {
+				return stand.arithmeticMeanDiameter;
+			}
+		};
+		ForestMetrics metrics = ForestMetrics.getInstance();
+		metrics.register(dbh);
+		try {
+			// Repeated scans reset the reducer and give the same result
+			metrics.calculate();
+			double first = dbh.getSum();
+			metrics.calculate();
+			Assert.assertEquals(first, dbh.getSum(), 0);
+
+			// Growth should be picked up by the next scan
+			Forest.getInstance().grow();
+			metrics.calculate();
+			Assert.assertTrue(dbh.getSum() > first);
+		} finally {
+			metrics.unregister(dbh);
+		}
+	}
+
+	@Test
+	public void auditTest() throws InterruptedException {
+		ForestFixture.create(42);
+		Assert.assertTrue(BiomassLedger.getInstance().audit());
+		Forest.getInstance().grow();
+		Assert.assertTrue(BiomassLedger.getInstance().audit());
+
+		// A change that is not made to the forest should be caught
+		BiomassLedger.getInstance().adjust(0, 0, 41, 1000);
+		Assert.assertFalse(BiomassLedger.getInstance().audit());
+	}
+}
@@ -0,0 +1,82 @@
+package edu.mtu.measures;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import ec.util.MersenneTwisterFast;
+
+public class ParallelReductionTests {
+	
+	private final static int Size = 100000;
+	
+	/**
+	 * Check that the reduction returns the same sum as a serial loop.
+	 */
+	@Test
+	public void sumTest() throws InterruptedException {
+		final double[] values = values();
+		double expected = 0;
+		for (double value : values) {
+			expected += value;
+		}
+		
+		ExecutorService service = Executors.newFixedThreadPool(4);
+		try {
+			ParallelReduction reduction = new ParallelReduction(service, 4);
+			Assert.assertEquals(expected, reduction.sum(values.length, 64, kernel(values)), Math.abs(expected) * 1e-9);
+			reduction.setReproducible(true);
+			Assert.assertEquals(expected, reduction.sum(values.length, 64, kernel(values)), Math.abs(expected) * 1e-9);
+		} finally {
+			service.shutdown();
+		}
+	}
+	
+	/**
+	 * Check that the reproducible sum is the same, bit for bit, regardless of the thread count.
+	 */
+	@Test
+	public void reproducibleTest() throws InterruptedException {
+		final double[] values = values();
+		
+		Double expected = null;
+		for (int threads : new int[] { 1, 2, 3, 7, 16 }) {
+			ExecutorService service = Executors.newFixedThreadPool(threads);
+			try {
+				ParallelReduction reduction = new ParallelReduction(service, threads);
+				reduction.setReproducible(true);
+				double sum = reduction.sum(values.length, 64, kernel(values));
+				if (expected == null) {
+					expected = sum;
+				}
+				Assert.assertEquals(Double.doubleToLongBits(expected), Double.doubleToLongBits(sum));
+			} finally {
+				service.shutdown();
+			}
+		}
+	}
+	
+	private static ParallelReduction.Kernel kernel(final double[] values) {
+		return new ParallelReduction.Kernel() {
+			public double sum(int start, int end) {
+				double sum = 0;
+				for (int ndx = start; ndx < end; ndx++) {
+					sum += values[ndx];
+				}
+				return sum;
+			}
+		};
+	}
+	
+	// Values spread over several orders of magnitude so the summation order matters
+	private static double[] values() {
+		MersenneTwisterFast random = new MersenneTwisterFast(42);
+		double[] values = new double[Size];
+		for (int ndx = 0; ndx < Size; ndx++) {
+			values[ndx] = random.nextDouble() * Math.pow(10, random.nextInt(12));
+		}
+		return values;
+	}
+}
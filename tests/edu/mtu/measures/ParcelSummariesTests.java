@@ -0,0 +1,95 @@
+package edu.mtu.measures;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.mtu.environment.Forest;
+import edu.mtu.environment.ForestFixture;
+import edu.mtu.environment.NlcdClassification;
+import edu.mtu.environment.StandThinning;
+import sim.field.grid.IntGrid2D;
+
+public class ParcelSummariesTests {
+
+	private final static double epsilon = 1E-9;
+
+	/**
+	 * Check that the running sums do not drift from a rebuild as the forest grows, is harvested, and is thinned.
+	 */
+	@Test
+	public void driftTest() throws InterruptedException {
+		ForestFixture fixture = ForestFixture.create(42);
+		Forest forest = Forest.getInstance();
+		check(fixture);
+
+		for (int step = 0; step < 10; step++) {
+			forest.grow();
+			forest.updateStocking();
+
+			// Harvest part of one parcel and thin another each step
+			Point[][] parcels = fixture.getParcels();
+			List<Point> stands = new ArrayList<Point>();
+			for (Point point : parcels[step % parcels.length]) {
+				if (isWoody(point) && (point.x + point.y) % 3 == 0) {
+					stands.add(point);
+				}
+			}
+			forest.harvest(stands.toArray(new Point[0]));
+
+			List<StandThinning> plans = new ArrayList<StandThinning>();
+			for (Point point : parcels[(step * 7 + 3) % parcels.length]) {
+				if (isWoody(point)) {
+					plans.add(new StandThinning(point, 0.25));
+				}
+			}
+			forest.thin(plans);
+			forest.updateStocking();
+			check(fixture);
+		}
+	}
+
+	/**
+	 * Compare the running sums with a scan of the parcels and with a rebuild.
+	 */
+	private static void check(ForestFixture fixture) {
+		ParcelSummaries summaries = ParcelSummaries.getInstance();
+		Forest forest = Forest.getInstance();
+		Point[][] parcels = fixture.getParcels();
+
+		double[][] running = new double[parcels.length][];
+		for (int parcel = 0; parcel < parcels.length; parcel++) {
+			double age = 0, dbh = 0, stocking = 0;
+			long trees = 0;
+			for (Point point : parcels[parcel]) {
+				age += forest.getStand(point).age;
+				dbh += forest.getStandDbh(point);
+				stocking += forest.getStandStocking(point);
+				trees += forest.getStandTreeCount(point);
+			}
+			int count = parcels[parcel].length;
+			Assert.assertEquals(count, summaries.getPixelCount(parcel));
+			Assert.assertEquals(age / count, summaries.getAverageAge(parcel), epsilon);
+			Assert.assertEquals(dbh / count, summaries.getAverageDbh(parcel), epsilon);
+			Assert.assertEquals(stocking / count, summaries.getAverageStocking(parcel), epsilon);
+			Assert.assertEquals(trees, summaries.getTreeCount(parcel));
+
+			running[parcel] = new double[] { summaries.getAverageAge(parcel), summaries.getAverageDbh(parcel),
+					summaries.getAverageStocking(parcel), summaries.getTreeCount(parcel) };
+		}
+
+		summaries.rebuild();
+		for (int parcel = 0; parcel < parcels.length; parcel++) {
+			double[] rebuilt = new double[] { summaries.getAverageAge(parcel), summaries.getAverageDbh(parcel),
+					summaries.getAverageStocking(parcel), summaries.getTreeCount(parcel) };
+			Assert.assertArrayEquals(rebuilt, running[parcel], epsilon);
+		}
+	}
+
+	private static boolean isWoody(Point point) {
+		return NlcdClassification.isWoodyBiomass(((IntGrid2D)Forest.getInstance().getLandCover().getGrid()).get(point.x, point.y));
+	}
+}
@@ -0,0 +1,280 @@
+package edu.mtu.simulation;
+
+import java.awt.Point;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.file.Files;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import ec.util.MersenneTwisterFast;
+import edu.mtu.environment.Forest;
+import edu.mtu.environment.GrowthModel;
+import edu.mtu.environment.NlcdClassification;
+import edu.mtu.environment.ParcelIndex;
+import edu.mtu.environment.RasterSnapshotReader;
+import edu.mtu.environment.Species;
+import edu.mtu.environment.Stand;
+import edu.mtu.measures.BiomassLedger;
+import edu.mtu.policy.PolicyBase;
+import edu.mtu.simulation.parameters.ParameterBase;
+import edu.mtu.steppables.LandUseGeomWrapper;
+import edu.mtu.steppables.ParcelAgent;
+import edu.mtu.steppables.ParcelAgentType;
+import edu.mtu.steppables.marketplace.HarvesterAgent;
+import sim.field.geo.GeomGridField;
+import sim.field.grid.DoubleGrid2D;
+import sim.field.grid.IntGrid2D;
+
+public class CheckpointTests {
+
+	// Small landscape of 48 by 42 pixels divided into 41 parcels
+	private final static String coverFile = "tests/data/checkpoint/nlcd.asc";
+	private final static String parcelFile = "file:tests/data/checkpoint/parcels.shp";
+	private final static int width = 48;
+	private final static int height = 42;
+
+	private final static double[] thresholds = new double[] { 20, 30 };
+	private final static long seed = 42;
+	private final static int checkpointStep = 5;
+	private final static int finalTimeStep = 10;
+
+	/**
+	 * Small model on the test landscape, the agents harvest their mature stands at random.
+	 */
+	@SuppressWarnings("serial")
+	private static class CheckpointModel extends ForestSim {
+		private final String directory;
+		private final ParameterBase parameters = new ParameterBase();
+
+		public CheckpointModel(long seed, String directory) {
+			super(seed);
+			this.directory = directory;
+			parameters.setEconomicAgentPercentage(0.5);
+			parameters.setFinalTimeStep(finalTimeStep);
+			parameters.setPolicyActiviationStep(finalTimeStep + 1);
+			parameters.setRasterSnapshotInterval(checkpointStep);
+			parameters.setGridWidth(width);
+			parameters.setGridHeight(height);
+		}
+
+		public ParcelAgent createEconomicAgent(MersenneTwisterFast random, LandUseGeomWrapper lu) {
+			return new HarvestingAgent(ParcelAgentType.ECONOMIC, lu, 0.3);
+		}
+
+		public ParcelAgent createEcosystemsAgent(MersenneTwisterFast random, LandUseGeomWrapper lu) {
+			return new HarvestingAgent(ParcelAgentType.ECOSYSTEM, lu, 0.05);
+		}
+
+		public String getDefaultCoverFile() { return coverFile; }
+
+		public String getDefaultOutputDirectory() { return directory; }
+
+		public String getDefaultParcelFile() { return parcelFile; }
+
+		public GrowthModel getGrowthModel() { return new CheckpointGrowth(seed()); }
+
+		public int getHarvestCapacity() { return 4; }
+
+		public Object getModelParameters() { return parameters; }
+
+		public PolicyBase getPolicy() { return null; }
+
+		public Scorecard getScoreCard() { return null; }
+
+		public void initialize() {
+			ParcelIndex.getInstance().setThresholds(thresholds);
+		}
+
+		public boolean useAggregateHarvester() { return true; }
+	}
+
+	/**
+	 * Agent that requests a harvest of the sawtimber on its parcel with the odds given.
+	 */
+	@SuppressWarnings("serial")
+	private static class HarvestingAgent extends ParcelAgent {
+		private final double odds;
+
+		public HarvestingAgent(ParcelAgentType type, LandUseGeomWrapper lu, double odds) {
+			super(type, lu);
+			this.odds = odds;
+		}
+
+		public void doHarvestedOperation() { }
+
+		protected void doPolicyOperation() { }
+
+		protected void doHarvestOperation() {
+			Point[] stands = ParcelIndex.getInstance().getHarvestableStands(getGeometry().getIndex(), thresholds[1]);
+			if (stands.length != 0 && state.random.nextDouble() < odds) {
+				HarvesterAgent.getInstance().requestHarvest(this, stands, null);
+			}
+		}
+	}
+
+	/**
+	 * Simple growth model with random initial stands of a single species, it is checkpointed with the model.
+	 */
+	@SuppressWarnings("serial")
+	private static class CheckpointGrowth implements GrowthModel {
+		private final static Species species = new CheckpointSpecies();
+		private final long seed;
+
+		public CheckpointGrowth(long seed) {
+			this.seed = seed;
+		}
+
+		public void calculateInitialStands() {
+			MersenneTwisterFast random = new MersenneTwisterFast(seed);
+			IntGrid2D landCover = (IntGrid2D)Forest.getInstance().getLandCover().getGrid();
+			IntGrid2D age = new IntGrid2D(landCover.getWidth(), landCover.getHeight(), 0);
+			IntGrid2D trees = new IntGrid2D(landCover.getWidth(), landCover.getHeight(), 0);
+			DoubleGrid2D dbh = new DoubleGrid2D(landCover.getWidth(), landCover.getHeight(), 0);
+			for (int ndx = 0; ndx < landCover.getWidth(); ndx++) {
+				for (int ndy = 0; ndy < landCover.getHeight(); ndy++) {
+					if (!NlcdClassification.isWoodyBiomass(landCover.get(ndx, ndy))) {
+						continue;
+					}
+					age.set(ndx, ndy, 10 + random.nextInt(60));
+					dbh.set(ndx, ndy, 5 + random.nextInt(70) * 0.5);
+					trees.set(ndx, ndy, 10 + random.nextInt(50));
+				}
+			}
+			Forest.getInstance().setStandAgeMap(age);
+			Forest.getInstance().setTreeCountMap(trees);
+			Forest.getInstance().setStandDiameterMap(new GeomGridField(dbh));
+		}
+
+		public Species getSpecies(int nlcd) {
+			return NlcdClassification.isWoodyBiomass(nlcd) ? species : null;
+		}
+
+		public double[][] getStockingGuide(int nlcd) {
+			return getStockingGuide(species);
+		}
+
+		public double[][] getStockingGuide(Species species) {
+			return new double[][] { { 0, 10 } };
+		}
+
+		public Stand growStand(Stand stand) {
+			stand.arithmeticMeanDiameter = Math.min(stand.arithmeticMeanDiameter + 0.5, species.getMaximumDbh());
+			stand.numberOfTrees -= stand.numberOfTrees / 50;
+			stand.age++;
+			return stand;
+		}
+	}
+
+	/**
+	 * Species with a generic hardwood biomass equation.
+	 */
+	@SuppressWarnings("serial")
+	private static class CheckpointSpecies implements Species, Serializable {
+		public double getAboveGroundBiomass(double dbh) { return (dbh > 0) ? Math.exp(-2.0127 + 2.4342 * Math.log(dbh)) : 0; }
+		public double getStemWoodBiomassRatio(double dbh) { return 0.6; }
+		public double getDbhGrowth() { return 0.5; }
+		public double getHeight(double dbh) { return dbh; }
+		public double getMaximumDbh() { return 60; }
+		public String getName() { return "Checkpoint"; }
+	}
+
+	/**
+	 * Check that a model restored from a checkpoint follows the same trajectory as the model that was
+	 * checkpointed, and that the raster snapshots written before the checkpoint are preserved.
+	 */
+	@Test
+	public void resumeTest() throws IOException, ClassNotFoundException {
+		String directory = Files.createTempDirectory("checkpoint").toString();
+
+		// Run part way, checkpoint, and then run to the end
+		CheckpointModel model = new CheckpointModel(seed, directory);
+		model.start();
+		while (model.schedule.getSteps() < checkpointStep) {
+			Assert.assertTrue(model.schedule.step(model));
+		}
+		byte[] checkpoint = capture(model);
+		while (model.schedule.step(model)) { }
+		Assert.assertEquals(finalTimeStep, model.schedule.getSteps());
+
+		Forest forest = Forest.getInstance();
+		int[][] age = copy((IntGrid2D)forest.getStandAgeMap().getGrid());
+		double[][] dbh = copy((DoubleGrid2D)forest.getStandDbhMap().getGrid());
+		int[][] trees = copy(forest.getTreeCountMap());
+		double biomass = BiomassLedger.getInstance().getTotalBiomass();
+		double agentBiomass = BiomassLedger.getInstance().getTotalAgentBiomass();
+		model = null;
+
+		// Resume from the checkpoint and run to the end again
+		ForestSim resumed = restore(checkpoint);
+		resumed.awakeFromCheckpoint();
+		Assert.assertEquals(checkpointStep, resumed.schedule.getSteps());
+		while (resumed.schedule.step(resumed)) { }
+		Assert.assertEquals(finalTimeStep, resumed.schedule.getSteps());
+
+		forest = Forest.getInstance();
+		for (int x = 0; x < width; x++) {
+			Assert.assertArrayEquals(age[x], ((IntGrid2D)forest.getStandAgeMap().getGrid()).field[x]);
+			Assert.assertArrayEquals(dbh[x], ((DoubleGrid2D)forest.getStandDbhMap().getGrid()).field[x], 0);
+			Assert.assertArrayEquals(trees[x], forest.getTreeCountMap().field[x]);
+		}
+		Assert.assertEquals(biomass, BiomassLedger.getInstance().getTotalBiomass(), 0);
+		Assert.assertEquals(agentBiomass, BiomassLedger.getInstance().getTotalAgentBiomass(), 0);
+
+		// The snapshots of the first run are intact, the resumed run wrote its own file
+		checkSteps(directory + "/rasters" + seed + ".fsr", checkpointStep, finalTimeStep);
+		checkSteps(directory + "/rasters" + seed + "-" + (checkpointStep + 1) + ".fsr", finalTimeStep);
+	}
+
+	/**
+	 * Capture the simulation in the same manner as a checkpoint.
+	 */
+	private static byte[] capture(ForestSim state) throws IOException {
+		state.preCheckpoint();
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(buffer);
+		out.writeObject(state);
+		out.close();
+		state.postCheckpoint();
+		return buffer.toByteArray();
+	}
+
+	private static ForestSim restore(byte[] checkpoint) throws IOException, ClassNotFoundException {
+		ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(checkpoint));
+		try {
+			return (ForestSim)in.readObject();
+		} finally {
+			in.close();
+		}
+	}
+
+	private static void checkSteps(String fileName, long... steps) throws IOException {
+		RasterSnapshotReader reader = new RasterSnapshotReader(fileName);
+		try {
+			Assert.assertArrayEquals(steps, reader.getSteps());
+		} finally {
+			reader.close();
+		}
+	}
+
+	private static double[][] copy(DoubleGrid2D grid) {
+		double[][] result = new double[grid.getWidth()][];
+		for (int ndx = 0; ndx < result.length; ndx++) {
+			result[ndx] = grid.field[ndx].clone();
+		}
+		return result;
+	}
+
+	private static int[][] copy(IntGrid2D grid) {
+		int[][] result = new int[grid.getWidth()][];
+		for (int ndx = 0; ndx < result.length; ndx++) {
+			result[ndx] = grid.field[ndx].clone();
+		}
+		return result;
+	}
+}
@@ -0,0 +1,135 @@
+package edu.mtu.simulation.profiling;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class StepProfilerTests {
+
+	private final static double epsilon = 1E-9;
+	private final static long milliToNano = 1000000;
+
+	/**
+	 * Sink that notes the steps it is told about.
+	 */
+	private static class TestSink implements ProfilerSink {
+		List<Long> steps = new ArrayList<Long>();
+		int closed = 0;
+
+		public void stepCompleted(StepProfiler profiler, long step) {
+			steps.add(step);
+		}
+
+		public void close(StepProfiler profiler) {
+			closed++;
+		}
+	}
+
+	/**
+	 * Check the minimum, mean, maximum, and nearest rank percentiles of a known set of steps.
+	 */
+	@Test
+	public void statisticsTest() {
+		StepProfiler profiler = StepProfiler.getInstance();
+		profiler.reset();
+
+		// Each step is split across two steppables to check that they are summed
+		long[] times = new long[] { 5, 3, 9, 1, 7, 10, 2, 8, 4, 6 };
+		for (int step = 0; step < times.length; step++) {
+			profiler.record(ProfileCategory.AGENTS.ordinal(), (times[step] - 1) * milliToNano);
+			profiler.record(ProfileCategory.AGENTS.ordinal(), milliToNano);
+			profiler.completeStep(step);
+		}
+
+		Assert.assertEquals(10, profiler.getSteps());
+		Assert.assertEquals(6.0, profiler.getLast(ProfileCategory.AGENTS), epsilon);
+		Assert.assertEquals(1.0, profiler.getMinimum(ProfileCategory.AGENTS), epsilon);
+		Assert.assertEquals(5.5, profiler.getMean(ProfileCategory.AGENTS), epsilon);
+		Assert.assertEquals(10.0, profiler.getMaximum(ProfileCategory.AGENTS), epsilon);
+
+		// Nearest rank, the smallest value with at least the percentile of the steps at or below it
+		Assert.assertEquals(1.0, profiler.getPercentile(ProfileCategory.AGENTS, 0), epsilon);
+		Assert.assertEquals(1.0, profiler.getPercentile(ProfileCategory.AGENTS, 10), epsilon);
+		Assert.assertEquals(2.0, profiler.getPercentile(ProfileCategory.AGENTS, 11), epsilon);
+		Assert.assertEquals(5.0, profiler.getPercentile(ProfileCategory.AGENTS, 50), epsilon);
+		Assert.assertEquals(9.0, profiler.getPercentile(ProfileCategory.AGENTS, 90), epsilon);
+		Assert.assertEquals(10.0, profiler.getPercentile(ProfileCategory.AGENTS, 99), epsilon);
+		Assert.assertEquals(10.0, profiler.getPercentile(ProfileCategory.AGENTS, 100), epsilon);
+
+		// A category that was not timed is zero for every step
+		Assert.assertEquals(0.0, profiler.getMinimum(ProfileCategory.HARVESTER), 0);
+		Assert.assertEquals(0.0, profiler.getMean(ProfileCategory.HARVESTER), 0);
+		Assert.assertEquals(0.0, profiler.getMaximum(ProfileCategory.HARVESTER), 0);
+	}
+
+	/**
+	 * Check the statistics once the history has grown past its initial size.
+	 */
+	@Test
+	public void growthTest() {
+		StepProfiler profiler = StepProfiler.getInstance();
+		profiler.reset();
+		for (int step = 1; step <= 100; step++) {
+			profiler.record(ProfileCategory.ENVIRONMENT.ordinal(), step * milliToNano);
+			profiler.completeStep(step);
+		}
+
+		Assert.assertEquals(100, profiler.getSteps());
+		Assert.assertEquals(1.0, profiler.getMinimum(ProfileCategory.ENVIRONMENT), epsilon);
+		Assert.assertEquals(50.5, profiler.getMean(ProfileCategory.ENVIRONMENT), epsilon);
+		Assert.assertEquals(100.0, profiler.getMaximum(ProfileCategory.ENVIRONMENT), epsilon);
+		Assert.assertEquals(50.0, profiler.getPercentile(ProfileCategory.ENVIRONMENT, 50), epsilon);
+		Assert.assertEquals(99.0, profiler.getPercentile(ProfileCategory.ENVIRONMENT, 99), epsilon);
+	}
+
+	/**
+	 * Check that an empty profile is all zeros, and that finish flushes the step in progress once.
+	 */
+	@Test
+	public void finishTest() {
+		StepProfiler profiler = StepProfiler.getInstance();
+		profiler.reset();
+		Assert.assertEquals(0, profiler.getSteps());
+		Assert.assertEquals(0.0, profiler.getMinimum(ProfileCategory.AGGREGATION), 0);
+		Assert.assertEquals(0.0, profiler.getMean(ProfileCategory.AGGREGATION), 0);
+		Assert.assertEquals(0.0, profiler.getPercentile(ProfileCategory.AGGREGATION, 50), 0);
+		Assert.assertEquals(0.0, profiler.getLast(ProfileCategory.AGGREGATION), 0);
+
+		TestSink sink = new TestSink();
+		profiler.addSink(sink);
+		Assert.assertTrue(profiler.isEnabled());
+		profiler.record(ProfileCategory.AGGREGATION.ordinal(), 2 * milliToNano);
+		profiler.completeStep(0);
+		profiler.record(ProfileCategory.AGGREGATION.ordinal(), 4 * milliToNano);
+		profiler.finish();
+		profiler.finish();
+
+		// The step flushed by finish is not repeated when the step end runs
+		profiler.completeStep(1);
+		Assert.assertEquals(2, profiler.getSteps());
+		Assert.assertEquals(2, sink.steps.size());
+		Assert.assertEquals(1, (long)sink.steps.get(1));
+		Assert.assertEquals(1, sink.closed);
+		Assert.assertEquals(3.0, profiler.getMean(ProfileCategory.AGGREGATION), epsilon);
+
+		profiler.reset();
+		Assert.assertFalse(profiler.isEnabled());
+		Assert.assertEquals(1, sink.closed);
+	}
+
+	/**
+	 * Check that the step end can be checkpointed with the schedule.
+	 */
+	@Test
+	public void serializeTest() throws IOException {
+		ObjectOutputStream out = new ObjectOutputStream(new ByteArrayOutputStream());
+		out.writeObject(StepProfiler.getInstance().getStepEnd());
+		out.writeObject(StepProfiler.getInstance().wrap(ProfileCategory.AGENTS, StepProfiler.getInstance().getStepEnd()));
+		out.close();
+	}
+}
@@ -0,0 +1,112 @@
+package edu.mtu.utilities;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AsyncCsvWriterTests {
+
+	/**
+	 * Check that cells are written in order, formatted as before, to the correct files.
+	 */
+	@Test
+	public void writeTest() throws IOException {
+		File first = File.createTempFile("first", ".csv");
+		File second = File.createTempFile("second", ".csv");
+		first.deleteOnExit();
+		second.deleteOnExit();
+		
+		// Use a small capacity so the queue wraps and the caller blocks
+		AsyncCsvWriter writer = new AsyncCsvWriter(new String[] { first.getPath(), second.getPath() }, false, 4);
+		StringBuilder expected = new StringBuilder();
+		for (int ndx = 0; ndx < 100; ndx++) {
+			writer.write(0, ndx * 0.5);
+			writer.write(1, ndx);
+			expected.append(ndx * 0.5).append(',');
+			if (ndx % 10 == 0) {
+				writer.flush();
+			}
+		}
+		writer.close();
+		
+		Assert.assertEquals(expected.toString(), readLine(first));
+		Assert.assertEquals("0,1,2,3,", readLine(second).substring(0, 8));
+	}
+	
+	/**
+	 * Check that operations after the writer is closed are rejected rather than blocking.
+	 */
+	@Test(timeout = 10000)
+	public void closedTest() throws IOException {
+		File file = File.createTempFile("closed", ".csv");
+		file.deleteOnExit();
+		
+		AsyncCsvWriter writer = new AsyncCsvWriter(new String[] { file.getPath() }, false, 4);
+		writer.write(0, 1);
+		writer.close();
+		writer.close();
+		
+		// More than the capacity, so the caller would block if the operations were queued
+		for (int ndx = 0; ndx < 10; ndx++) {
+			try {
+				writer.write(0, ndx);
+				Assert.fail("Write after close should fail");
+			} catch (IOException ex) {
+				// Expected
+			}
+		}
+		Assert.assertEquals("1,", readLine(file));
+	}
+	
+	/**
+	 * Check that an error on the writer thread is thrown to the caller rather than blocking it.
+	 */
+	@Test(timeout = 10000)
+	public void errorTest() throws IOException {
+		File device = new File("/dev/full");
+		if (!device.exists()) {
+			return;
+		}
+		
+		// Fill the queue well past the capacity, the writer thread fails on the first flush
+		AsyncCsvWriter writer = new AsyncCsvWriter(new String[] { device.getPath() }, true, 4);
+		IOException error = null;
+		for (int ndx = 0; ndx < 100000 && error == null; ndx++) {
+			try {
+				writer.write(0, ndx);
+				writer.flush();
+			} catch (IOException ex) {
+				error = ex;
+			}
+		}
+		Assert.assertNotNull(error);
+		Assert.assertNotNull(error.getCause());
+		
+		// The error is reported again, including by close
+		try {
+			writer.write(0, 0);
+			Assert.fail("Write after an error should fail");
+		} catch (IOException ex) {
+			// Expected
+		}
+		try {
+			writer.close();
+			Assert.fail("Close after an error should fail");
+		} catch (IOException ex) {
+			// Expected
+		}
+	}
+	
+	private static String readLine(File file) throws IOException {
+		BufferedReader reader = new BufferedReader(new FileReader(file));
+		try {
+			return reader.readLine();
+		} finally {
+			reader.close();
+		}
+	}
+}
@@ -0,0 +1,116 @@
+package edu.mtu.utilities;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ColumnStoreTests {
+
+	/**
+	 * Check that appended replicates are indexed and summarized correctly.
+	 */
+	@Test
+	public void replicateTest() throws IOException {
+		File file = File.createTempFile("column", ".col");
+		file.delete();
+		file.deleteOnExit();
+		
+		for (int replicate = 0; replicate < 3; replicate++) {
+			ColumnWriter writer = new ColumnWriter(file.getPath(), ColumnType.Float64);
+			for (int step = 0; step < 5 + replicate; step++) {
+				writer.write(replicate * 10 + step * 0.5);
+			}
+			writer.close();
+		}
+		
+		ColumnReader reader = new ColumnReader(file.getPath());
+		Assert.assertEquals(3, reader.getReplicateCount());
+		Assert.assertEquals(18, reader.getCount());
+		Assert.assertEquals(7, reader.getCount(2));
+		Assert.assertEquals(21.5, reader.getDouble(2, 3), 0);
+		Assert.assertEquals(0, reader.getMinimum(), 0);
+		Assert.assertEquals(23, reader.getMaximum(), 0);
+		Assert.assertEquals(0 + 0.5 + 1 + 1.5 + 2, reader.getSum(0), 0);
+		
+		double[][] values = reader.read(1, 3);
+		Assert.assertEquals(2, values.length);
+		Assert.assertEquals(10.5, values[0][1], 0);
+	}
+	
+	/**
+	 * Check that a replicate left without a footer by a killed run is discarded when the column is opened.
+	 */
+	@Test
+	public void recoverTest() throws IOException {
+		File file = File.createTempFile("column", ".col");
+		file.delete();
+		file.deleteOnExit();
+		
+		// A killed run with no complete replicates is discarded entirely
+		ColumnWriter writer = new ColumnWriter(file.getPath(), ColumnType.Float64);
+		writer.write(1.0);
+		writer.flush();
+		writer = new ColumnWriter(file.getPath(), ColumnType.Float64);
+		Assert.assertEquals(0, file.length());
+		
+		// Complete replicate, followed by a killed run
+		for (int step = 0; step < 5; step++) {
+			writer.write(step);
+		}
+		writer.close();
+		long length = file.length();
+		writer = new ColumnWriter(file.getPath(), ColumnType.Float64);
+		for (int step = 0; step < 100; step++) {
+			writer.write(ColumnWriter.Marker);
+		}
+		writer.flush();
+		
+		// The next run should append after the complete replicate
+		writer = new ColumnWriter(file.getPath(), ColumnType.Float64);
+		Assert.assertEquals(length, file.length());
+		for (int step = 0; step < 3; step++) {
+			writer.write(10.0 + step);
+		}
+		writer.close();
+		
+		ColumnReader reader = new ColumnReader(file.getPath());
+		Assert.assertEquals(2, reader.getReplicateCount());
+		Assert.assertEquals(5, reader.getCount(0));
+		Assert.assertEquals(3, reader.getCount(1));
+		Assert.assertEquals(4.0, reader.getDouble(0, 4), 0);
+		Assert.assertEquals(12.0, reader.getDouble(1, 2), 0);
+	}
+	
+	/**
+	 * Check that integer columns export in the same format as the CSV writer.
+	 */
+	@Test
+	public void exportTest() throws IOException {
+		File file = File.createTempFile("column", ".col");
+		File csv = File.createTempFile("column", ".csv");
+		file.delete();
+		file.deleteOnExit();
+		csv.deleteOnExit();
+		
+		ColumnWriter writer = new ColumnWriter(file.getPath(), ColumnType.Int32);
+		for (int step = 0; step < 4; step++) {
+			writer.write(step);
+		}
+		writer.close();
+		
+		ColumnReader reader = new ColumnReader(file.getPath());
+		Assert.assertEquals(3, reader.getInt(0, 3));
+		reader.exportCsv(csv.getPath());
+		
+		BufferedReader input = new BufferedReader(new FileReader(csv));
+		try {
+			Assert.assertEquals("0,1,2,3,", input.readLine());
+		} finally {
+			input.close();
+		}
+	}
+}
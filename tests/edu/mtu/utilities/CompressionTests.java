@@ -0,0 +1,58 @@
+package edu.mtu.utilities;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CompressionTests {
+
+	/**
+	 * Check that the blocks written by the parallel compressor decompress to the original data.
+	 */
+	@Test
+	public void parallelGzipTest() throws IOException {
+		byte[] data = new byte[1000000];
+		for (int ndx = 0; ndx < data.length; ndx++) {
+			data[ndx] = (byte)((ndx * 31) % 97);
+		}
+		
+		// Use a small block size so there are many members
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		ParallelGzipOutputStream output = new ParallelGzipOutputStream(buffer, 6, 4096);
+		output.write(data, 0, 1000);
+		for (int ndx = 1000; ndx < 2000; ndx++) {
+			output.write(data[ndx]);
+		}
+		output.write(data, 2000, data.length - 2000);
+		output.close();
+		
+		Assert.assertArrayEquals(data, decompress(buffer.toByteArray()));
+	}
+	
+	/**
+	 * Check that an empty stream is still a valid gzip file.
+	 */
+	@Test
+	public void emptyTest() throws IOException {
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		new ParallelGzipOutputStream(buffer, 1).close();
+		Assert.assertEquals(0, decompress(buffer.toByteArray()).length);
+	}
+	
+	private static byte[] decompress(byte[] compressed) throws IOException {
+		InputStream input = new GZIPInputStream(new ByteArrayInputStream(compressed));
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		int read;
+		while ((read = input.read(buffer)) != -1) {
+			output.write(buffer, 0, read);
+		}
+		input.close();
+		return output.toByteArray();
+	}
+}
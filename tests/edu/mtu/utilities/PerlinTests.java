@@ -0,0 +1,79 @@
+package edu.mtu.utilities;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import ec.util.MersenneTwisterFast;
+import sim.field.grid.DoubleGrid2D;
+
+public class PerlinTests {
+	
+	private final static float Persistance = 0.5f;
+
+	/**
+	 * Check that the fused generator matches smoothing each octave in full, including dimensions that 
+	 * are not a multiple of the sample period and grids smaller than the largest period.
+	 */
+	@Test
+	public void identicalTest() {
+		int[][] sizes = new int[][] { { 37, 91 }, { 300, 257 }, { 5, 3 } };
+		for (int[] size : sizes) {
+			DoubleGrid2D expected = reference(size[0], size[1], 8, new MersenneTwisterFast(42));
+			DoubleGrid2D actual = Perlin.generate(size[0], size[1], 8, new MersenneTwisterFast(42));
+			for (int ndx = 0; ndx < size[1]; ndx++) {
+				for (int ndy = 0; ndy < size[0]; ndy++) {
+					Assert.assertEquals(Double.doubleToLongBits(expected.get(ndx, ndy)), Double.doubleToLongBits(actual.get(ndx, ndy)));
+				}
+			}
+		}
+	}
+	
+	/**
+	 * The original generator, each octave is smoothed into its own grid before they are combined.
+	 */
+	private static DoubleGrid2D reference(int height, int width, int octaves, MersenneTwisterFast random) {
+		DoubleGrid2D noise = Perlin.generateWhiteNoise(height, width, random);
+		DoubleGrid2D[] smoothed = new DoubleGrid2D[octaves];
+		for (int octave = 0; octave < octaves; octave++) {
+			smoothed[octave] = new DoubleGrid2D(width, height);
+			int samplePeriod = 1 << octave;
+			float sampleFrequency = 1.0f / samplePeriod;
+			for (int ndx = 0; ndx < width; ndx++) {
+				int sample_i0 = (ndx / samplePeriod) * samplePeriod;
+				int sample_i1 = (sample_i0 + samplePeriod) % width;
+				double horizontal_blend = (ndx - sample_i0) * sampleFrequency;
+				for (int ndy = 0; ndy < height; ndy++) {
+					int sample_j0 = (ndy / samplePeriod) * samplePeriod;
+					int sample_j1 = (sample_j0 + samplePeriod) % height;
+					double vertical_blend = (ndy - sample_j0) * sampleFrequency;
+					double top = interpolate(noise.get(sample_i0, sample_j0), noise.get(sample_i1, sample_j0), horizontal_blend);
+					double bottom = interpolate(noise.get(sample_i0, sample_j1), noise.get(sample_i1, sample_j1), horizontal_blend);
+					smoothed[octave].set(ndx, ndy, interpolate(top, bottom, vertical_blend));
+				}
+			}
+		}
+		
+		DoubleGrid2D grid = new DoubleGrid2D(width, height);
+		float amplitude = 1.0f;
+		float totalAmplitude = 0.0f;
+		for (int octave = octaves - 1; octave >= 0; octave--) {
+			amplitude *= Persistance;
+			totalAmplitude += amplitude;
+			for (int ndx = 0; ndx < width; ndx++) {
+				for (int ndy = 0; ndy < height; ndy++) {
+					grid.set(ndx, ndy, grid.get(ndx, ndy) + smoothed[octave].get(ndx, ndy) * amplitude);
+				}
+			}
+		}
+		for (int ndx = 0; ndx < width; ndx++) {
+			for (int ndy = 0; ndy < height; ndy++) {
+				grid.set(ndx, ndy, grid.get(ndx, ndy) / totalAmplitude);
+			}
+		}
+		return grid;
+	}
+	
+	private static double interpolate(double x0, double x1, double alpha) {
+		return x0 * (1 - alpha) + alpha * x1;
+	}
+}
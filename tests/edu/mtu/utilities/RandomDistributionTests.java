@@ -0,0 +1,40 @@
+package edu.mtu.utilities;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import ec.util.MersenneTwisterFast;
+
+public class RandomDistributionTests {
+
+	private final static int samples = 100000;
+	
+	@Test
+	public void geometricBoundsTest() {
+		MersenneTwisterFast random = new MersenneTwisterFast(42);
+		Assert.assertEquals(0, RandomDistribution.GeometricDistribution(1.0, random));
+		Assert.assertEquals(Long.MAX_VALUE, RandomDistribution.GeometricDistribution(0.0, random));
+	}
+	
+	// Tests that the sampled waiting time matches drawing against the rate once per step
+	@Test
+	public void geometricMeanTest() {
+		double rate = 0.02;
+		MersenneTwisterFast random = new MersenneTwisterFast(42);
+		
+		double sampled = 0, stepped = 0;
+		for (int ndx = 0; ndx < samples; ndx++) {
+			sampled += RandomDistribution.GeometricDistribution(rate, random);
+			
+			int steps = 0;
+			while (rate < random.nextDouble()) {
+				steps++;
+			}
+			stepped += steps;
+		}
+		
+		// Expected mean is (1 - p) / p = 49
+		Assert.assertEquals(49.0, sampled / samples, 1.0);
+		Assert.assertEquals(stepped / samples, sampled / samples, 1.0);
+	}
+}
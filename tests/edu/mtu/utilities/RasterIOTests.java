@@ -0,0 +1,48 @@
+package edu.mtu.utilities;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RasterIOTests {
+
+	/**
+	 * Check that grids are restored exactly, and that the blocks can be interleaved with other data.
+	 */
+	@Test
+	public void roundTripTest() throws IOException {
+		int[][] ints = new int[7][5];
+		double[][] doubles = new double[7][5];
+		for (int x = 0; x < 7; x++) {
+			for (int y = 0; y < 5; y++) {
+				ints[x][y] = x * 1000 - y;
+				doubles[x][y] = x / 3.0 + y * Math.PI;
+			}
+		}
+
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(buffer);
+		RasterIO.writeInts(out, ints);
+		out.writeInt(42);
+		RasterIO.writeDoubles(out, doubles);
+		out.close();
+		Assert.assertEquals(7 * 5 * 12 + 4, buffer.size());
+
+		int[][] intsRead = new int[7][5];
+		double[][] doublesRead = new double[7][5];
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(buffer.toByteArray()));
+		RasterIO.readInts(in, intsRead);
+		Assert.assertEquals(42, in.readInt());
+		RasterIO.readDoubles(in, doublesRead);
+
+		for (int x = 0; x < 7; x++) {
+			Assert.assertArrayEquals(ints[x], intsRead[x]);
+			Assert.assertArrayEquals(doubles[x], doublesRead[x], 0);
+		}
+	}
+}